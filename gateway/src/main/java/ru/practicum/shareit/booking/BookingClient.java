@@ -1,5 +1,9 @@
 package ru.practicum.shareit.booking;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,10 +11,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBatchMode;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
 
@@ -24,22 +32,23 @@ public class BookingClient extends BaseClient {
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                        .build()
+                        .build(),
+                // Пул HttpClient рассчитан на короткие запросы; выгрузки и SSE идут через JDK HttpClient
+                new JdkClientHttpRequestFactory()
         );
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size, String cursor) {
+        return get("?" + pageQuery(cursor), userId, pageParameters(state, from, size, cursor));
     }
 
 
-    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto, String idempotencyKey) {
+        return postIdempotent("", userId, idempotencyKey, requestDto);
+    }
+
+    public ResponseEntity<Object> bookItems(long userId, BookingBatchMode mode, List<BookItemRequestDto> requestDtos) {
+        return post("/batch?mode={mode}", userId, Map.of("mode", mode.name()), requestDtos);
     }
 
     public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
@@ -50,12 +59,70 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved=" + approved, userId);
     }
 
-    public ResponseEntity<Object> getBookingsForOwnedItems(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> approveBookings(long userId, List<Long> bookingIds, boolean approved) {
+        return patch("/batch?approved={approved}", userId, Map.of("approved", approved), bookingIds);
+    }
+
+    public ResponseEntity<Object> getBookingCounts(long userId) {
+        return get("/counts", userId);
+    }
+
+    public ResponseEntity<Object> getBookingCountsForOwnedItems(long userId) {
+        return get("/owner/counts", userId);
+    }
+
+    public ResponseEntity<Object> getBookingsForOwnedItems(long userId, BookingState state, Integer from, Integer size,
+                                                           String cursor) {
+        return get("/owner?" + pageQuery(cursor), userId, pageParameters(state, from, size, cursor));
+    }
+
+    public ResponseEntity<StreamingResponseBody> streamBookingEvents(long userId) {
+        return stream("/events", userId, Map.of());
+    }
+
+    public ResponseEntity<Object> getUtilizationForOwnedItems(long userId, YearMonth from, YearMonth to) {
+        StringBuilder path = new StringBuilder("/owner/utilization");
+        Map<String, Object> parameters = new HashMap<>();
+        if (from != null) {
+            path.append("?from={from}");
+            parameters.put("from", from.toString());
+        }
+        if (to != null) {
+            path.append(from != null ? "&" : "?").append("to={to}");
+            parameters.put("to", to.toString());
+        }
+        return get(path.toString(), userId, parameters);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportBookingsForOwnedItems(long userId, BookingExportFormat format,
+                                                                             LocalDateTime from, LocalDateTime to) {
+        StringBuilder path = new StringBuilder("/owner/export?format={format}");
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("format", format.name());
+        if (from != null) {
+            path.append("&from={from}");
+            parameters.put("from", from.toString());
+        }
+        if (to != null) {
+            path.append("&to={to}");
+            parameters.put("to", to.toString());
+        }
+        return stream(path.toString(), userId, parameters);
+    }
+
+    private static String pageQuery(String cursor) {
+        String query = "state={state}&from={from}&size={size}";
+        return cursor == null ? query : query + "&cursor={cursor}";
+    }
+
+    private static Map<String, Object> pageParameters(BookingState state, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state.name());
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
     }
 }
@@ -1,18 +1,29 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBatchMode;
+import ru.practicum.shareit.booking.dto.BookingExportFormat;
 import ru.practicum.shareit.booking.dto.BookingState;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -20,13 +31,27 @@ import ru.practicum.shareit.booking.dto.BookingState;
 @Slf4j
 @Validated
 public class BookingController {
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final BookingClient bookingClient;
 
     @PostMapping
     public ResponseEntity<Object> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                                           @RequestHeader(value = "Idempotency-Key", required = false)
+                                           @Size(min = 1, max = MAX_IDEMPOTENCY_KEY_LENGTH) String idempotencyKey,
                                            @RequestBody @Valid BookItemRequestDto requestDto) {
-        log.info("Creating booking {}, userId={}", requestDto, userId);
-        return bookingClient.bookItem(userId, requestDto);
+        log.info("Creating booking {}, userId={}, idempotencyKey={}", requestDto, userId, idempotencyKey);
+        return bookingClient.bookItem(userId, requestDto, idempotencyKey);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<Object> bookItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                            @RequestParam(name = "mode", defaultValue = "ALL_OR_NOTHING") BookingBatchMode mode,
+                                            @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<BookItemRequestDto> requestDtos) {
+        // Записи проверяет сервер, чтобы вернуть ошибку по каждой из них, а не отклонить весь пакет
+        log.info("Creating {} bookings in {} mode, userId={}", requestDtos.size(), mode, userId);
+        return bookingClient.bookItems(userId, mode, requestDtos);
     }
 
     @PatchMapping("/{bookingId}")
@@ -37,6 +62,14 @@ public class BookingController {
         return bookingClient.approveBooking(userId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> approveBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @RequestParam boolean approved,
+                                                  @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@NotNull Long> bookingIds) {
+        log.info("Approve {} bookings, userId={}, approved={}", bookingIds.size(), userId, approved);
+        return bookingClient.approveBookings(userId, bookingIds, approved);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
                                              @PathVariable Long bookingId) {
@@ -48,21 +81,59 @@ public class BookingController {
     public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}", stateParam, userId, from, size, cursor);
+        return bookingClient.getBookings(userId, state, from, size, cursor);
+    }
+
+    @GetMapping("/counts")
+    public ResponseEntity<Object> getBookingCounts(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Get booking counts, userId={}", userId);
+        return bookingClient.getBookingCounts(userId);
+    }
+
+    @GetMapping("/owner/counts")
+    public ResponseEntity<Object> getBookingCountsForOwnedItems(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Get booking counts for owned items, userId={}", userId);
+        return bookingClient.getBookingCountsForOwnedItems(userId);
+    }
+
+    @GetMapping("/events")
+    public ResponseEntity<StreamingResponseBody> streamBookingEvents(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Subscribe to booking events, userId={}", userId);
+        return bookingClient.streamBookingEvents(userId);
+    }
+
+    @GetMapping("/owner/utilization")
+    public ResponseEntity<Object> getUtilizationForOwnedItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                              @RequestParam(name = "from", required = false) YearMonth from,
+                                                              @RequestParam(name = "to", required = false) YearMonth to) {
+        log.info("Get utilization of owned items, userId={}, from={}, to={}", userId, from, to);
+        return bookingClient.getUtilizationForOwnedItems(userId, from, to);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsForOwnedItems(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(name = "format", defaultValue = "NDJSON") BookingExportFormat format,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Export bookings for owned items as {}, userId={}, from={}, to={}", format, userId, from, to);
+        return bookingClient.exportBookingsForOwnedItems(userId, format, from, to);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getBookingsForOwnedItems(@RequestHeader("X-Sharer-User-Id") long userId,
                                                            @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                                            @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                           @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                                           @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                           @RequestParam(name = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get booking for owned items with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookingsForOwnedItems(userId, state, from, size);
+        log.info("Get booking for owned items with state {}, userId={}, from={}, size={}, cursor={}", stateParam, userId, from, size, cursor);
+        return bookingClient.getBookingsForOwnedItems(userId, state, from, size, cursor);
     }
 }
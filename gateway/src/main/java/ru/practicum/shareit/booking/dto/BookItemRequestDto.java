@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -13,6 +15,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookItemRequestDto {
+    public static final int MAX_REPEAT_COUNT = 520;
+
     @NotNull(message = "itemId должен быть указан")
     private long itemId;
 
@@ -24,6 +28,13 @@ public class BookItemRequestDto {
     @Future(message = "Дата окончания бронирования не может быть в прошлом")
     private LocalDateTime end;
 
+    // Повторяющееся бронирование: одна запись с правилом вместо отдельной на каждый повтор
+    private BookingRepeat repeat;
+
+    @Min(value = 2, message = "Число повторов должно быть не меньше 2")
+    @Max(value = MAX_REPEAT_COUNT, message = "Число повторов должно быть не больше " + MAX_REPEAT_COUNT)
+    private Integer repeatCount;
+
     public boolean isValidPeriod() {
         return end != null && start != null && end.isAfter(start);
     }
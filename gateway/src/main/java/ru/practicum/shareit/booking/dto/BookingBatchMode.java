@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking.dto;
+
+public enum BookingBatchMode {
+    // Пакет создаётся целиком или не создаётся вовсе
+    ALL_OR_NOTHING,
+    // Создаются все корректные бронирования, ошибки возвращаются по каждой записи
+    BEST_EFFORT
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking.dto;
+
+public enum BookingRepeat {
+    DAILY,
+    WEEKLY,
+    MONTHLY
+}
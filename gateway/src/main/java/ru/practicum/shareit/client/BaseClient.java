@@ -1,22 +1,42 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public class BaseClient {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     protected final RestTemplate rest;
+    // Потоковые ответы держат соединение долго, поэтому могут идти мимо пула соединений rest
+    private final ClientHttpRequestFactory streamRequestFactory;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, rest.getRequestFactory());
+    }
+
+    public BaseClient(RestTemplate rest, ClientHttpRequestFactory streamRequestFactory) {
         this.rest = rest;
+        this.streamRequestFactory = streamRequestFactory;
     }
 
     protected ResponseEntity<Object> get(String path) {
@@ -43,6 +63,11 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
+    // Повтор запроса с тем же ключом сервер не выполняет заново, а возвращает сохранённый ответ
+    protected <T> ResponseEntity<Object> postIdempotent(String path, long userId, @Nullable String idempotencyKey, T body) {
+        return makeAndSendRequest(HttpMethod.POST, path, userId, null, body, idempotencyKey);
+    }
+
     protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
@@ -79,8 +104,72 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    /**
+     * GET-запрос, ответ которого передаётся клиенту потоком, без чтения в память. Статус и
+     * заголовки сервера известны до начала ответа, поэтому ошибки возвращаются как есть.
+     */
+    protected ResponseEntity<StreamingResponseBody> stream(String path, long userId, Map<String, Object> parameters) {
+        ClientHttpResponse response;
+        try {
+            URI uri = rest.getUriTemplateHandler().expand(path, parameters);
+            ClientHttpRequest request = streamRequestFactory.createRequest(uri, HttpMethod.GET);
+            request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+            response = request.execute();
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on GET request for \"" + path + "\": " + e.getMessage(), e);
+        }
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(response.getHeaders().getContentType());
+            List<String> disposition = response.getHeaders().get(HttpHeaders.CONTENT_DISPOSITION);
+            if (disposition != null) {
+                headers.put(HttpHeaders.CONTENT_DISPOSITION, disposition);
+            }
+
+            HttpStatusCode status = response.getStatusCode();
+            if (!status.is2xxSuccessful()) {
+                byte[] error = response.getBody().readAllBytes();
+                response.close();
+                return ResponseEntity.status(status).headers(headers).body(out -> out.write(error));
+            }
+
+            // События SSE отдаём клиенту сразу, не дожидаясь заполнения буфера ответа
+            boolean eventStream = MediaType.TEXT_EVENT_STREAM.isCompatibleWith(headers.getContentType());
+            if (eventStream) {
+                headers.setCacheControl(CacheControl.noCache());
+            }
+            return ResponseEntity.status(status).headers(headers).body(out -> {
+                try (response; InputStream body = response.getBody()) {
+                    if (!eventStream) {
+                        body.transferTo(out);
+                        return;
+                    }
+                    byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+                    int read;
+                    while ((read = body.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                        out.flush();
+                    }
+                }
+            });
+        } catch (IOException e) {
+            response.close();
+            throw new ResourceAccessException("I/O error on GET request for \"" + path + "\": " + e.getMessage(), e);
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        return makeAndSendRequest(method, path, userId, parameters, body, null);
+    }
+
+    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body,
+                                                          @Nullable String idempotencyKey) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (idempotencyKey != null) {
+            headers.set(IDEMPOTENCY_KEY, idempotencyKey);
+        }
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
 
         ResponseEntity<Object> shareitServerResponse;
         try {
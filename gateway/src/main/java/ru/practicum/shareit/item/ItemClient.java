@@ -10,6 +10,10 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
@@ -24,8 +28,8 @@ public class ItemClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> addItem(ItemCreateDto item, long userId) {
-        return post("", userId, item);
+    public ResponseEntity<Object> addItem(ItemCreateDto item, long userId, String idempotencyKey) {
+        return postIdempotent("", userId, idempotencyKey, item);
     }
 
     public ResponseEntity<Object> patchItem(Long itemId, ItemPatchDto patchItem, long userId) {
@@ -40,11 +44,37 @@ public class ItemClient extends BaseClient {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> searchItems(String text) {
-        return get("/search?text=" + text);
+    public ResponseEntity<Object> searchItems(String text, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return get("/search?text=" + text);
+        }
+        // Если задана только одна граница, пустую вторую отклонит сервер
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("text", text);
+        parameters.put("from", from == null ? "" : from.toString());
+        parameters.put("to", to == null ? "" : to.toString());
+        return get("/search?text={text}&from={from}&to={to}", null, parameters);
+    }
+
+    public ResponseEntity<Object> suggestItems(String prefix, int limit) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "limit", limit
+        );
+        return get("/suggest?prefix={prefix}&limit={limit}", null, parameters);
+    }
+
+    public ResponseEntity<Object> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to,
+                                                  AvailabilityGranularity granularity) {
+        Map<String, Object> parameters = Map.of(
+                "from", from.toString(),
+                "to", to.toString(),
+                "granularity", granularity.name()
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}&granularity={granularity}", null, parameters);
     }
 
-    public ResponseEntity<Object> addComment(Long itemId, CommentCreateDto comment, long userId) {
-        return post("/" + itemId + "/comment", userId, comment);
+    public ResponseEntity<Object> addComment(Long itemId, CommentCreateDto comment, long userId, String idempotencyKey) {
+        return postIdempotent("/" + itemId + "/comment", userId, idempotencyKey, comment);
     }
 }
\ No newline at end of file
@@ -1,27 +1,39 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.practicum.shareit.item.dto.*;
 
+import java.time.LocalDateTime;
+
 @Controller
 @RequestMapping(path = "/items")
 @RequiredArgsConstructor
 @Slf4j
 @Validated
 public class ItemController {
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final int MAX_SUGGESTIONS = 10;
+
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> addItem(@RequestBody @Valid ItemCreateDto item, @RequestHeader("X-Sharer-User-Id") long userId) {
-        log.info("Adding item: {}", item);
-        return itemClient.addItem(item, userId);
+    public ResponseEntity<Object> addItem(@RequestBody @Valid ItemCreateDto item, @RequestHeader("X-Sharer-User-Id") long userId,
+                                          @RequestHeader(value = "Idempotency-Key", required = false)
+                                          @Size(min = 1, max = MAX_IDEMPOTENCY_KEY_LENGTH) String idempotencyKey) {
+        log.info("Adding item: {}, idempotencyKey={}", item, idempotencyKey);
+        return itemClient.addItem(item, userId, idempotencyKey);
     }
 
     @PatchMapping("/{itemId}")
@@ -44,15 +56,35 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestParam String text) {
-        log.info("Searching items with text: {}", text);
-        return itemClient.searchItems(text);
+    public ResponseEntity<Object> searchItems(@RequestParam String text,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Searching items with text: {}, free from {} to {}", text, from, to);
+        return itemClient.searchItems(text, from, to);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> suggestItems(@RequestParam @NotBlank String prefix,
+                                               @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_SUGGESTIONS) int limit) {
+        log.info("Suggesting items for prefix: {}, limit {}", prefix, limit);
+        return itemClient.suggestItems(prefix, limit);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@PathVariable Long itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                  @RequestParam(defaultValue = "DAY") AvailabilityGranularity granularity) {
+        log.info("Getting availability of item with id {} from {} to {} by {}", itemId, from, to, granularity);
+        return itemClient.getAvailability(itemId, from, to, granularity);
     }
 
     @PostMapping("/{itemId}/comment")
     public ResponseEntity<Object> addComment(@RequestBody @Valid CommentCreateDto comment,
-                                             @PathVariable Long itemId, @RequestHeader("X-Sharer-User-Id") long userId) {
-        log.info("Adding comment to item with id {}: {}", itemId, comment);
-        return itemClient.addComment(itemId, comment, userId);
+                                             @PathVariable Long itemId, @RequestHeader("X-Sharer-User-Id") long userId,
+                                             @RequestHeader(value = "Idempotency-Key", required = false)
+                                             @Size(min = 1, max = MAX_IDEMPOTENCY_KEY_LENGTH) String idempotencyKey) {
+        log.info("Adding comment to item with id {}: {}, idempotencyKey={}", itemId, comment, idempotencyKey);
+        return itemClient.addComment(itemId, comment, userId, idempotencyKey);
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная вставка бронирований через JDBC. Hibernate не группирует INSERT-ы для
+ * IDENTITY-ключей, поэтому пакет отправляется напрямую одним executeBatch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookingBatchRepository {
+    private static final String INSERT = "INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Вставляет все бронирования в одной транзакции и проставляет им сгенерированные id.
+     */
+    @Transactional
+    public void insertAll(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, bookings.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                }, keys);
+
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int i = 0; i < bookings.size(); i++) {
+            bookings.get(i).setId(((Number) ids.get(i).get("id")).longValue());
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Booking booking) throws SQLException {
+        ps.setObject(1, booking.getStart());
+        ps.setObject(2, booking.getEnd());
+        ps.setLong(3, booking.getItem().getId());
+        ps.setLong(4, booking.getBooker().getId());
+        ps.setString(5, booking.getStatus().name());
+    }
+}
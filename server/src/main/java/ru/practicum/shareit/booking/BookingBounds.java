@@ -0,0 +1,45 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Границы бронирований вещи относительно момента расчёта: последнее окончание до него,
+ * ближайшее начало после него и ближайшее окончание после него (когда сменится последнее).
+ */
+@Getter
+@AllArgsConstructor
+public class BookingBounds {
+    private final Long itemId;
+    private final LocalDateTime lastEnd;
+    private final LocalDateTime nextStart;
+    private final LocalDateTime nextEnd;
+
+    /**
+     * Границы с учётом повторов серии, идущей в момент now: берутся только соседние с now повторы.
+     */
+    public BookingBounds with(BookingRecurrence recurrence, LocalDateTime now) {
+        int firstNotEnded = recurrence.first(k -> recurrence.endOf(k).isAfter(now));
+        int firstNotStarted = recurrence.first(k -> !recurrence.startOf(k).isBefore(now));
+        LocalDateTime last = firstNotEnded > 0 ? recurrence.endOf(firstNotEnded - 1) : null;
+        LocalDateTime next = firstNotStarted < recurrence.getCount() ? recurrence.startOf(firstNotStarted) : null;
+        LocalDateTime end = firstNotEnded < recurrence.getCount() ? recurrence.endOf(firstNotEnded) : null;
+        return new BookingBounds(itemId, latest(lastEnd, last), earliest(nextStart, next), earliest(nextEnd, end));
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static LocalDateTime earliest(LocalDateTime first, LocalDateTime second) {
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование создано или сменило статус. Публикуется после записи в базу, чтобы
+ * производные данные (счётчики, календари) обновлялись без повторного чтения bookings.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingChangedEvent {
+    private final Long bookingId;
+    private final Long itemId;
+    private final Long ownerId;
+    private final Long bookerId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    // Правило серии; у разового бронирования null, start и end - период первого повтора серии
+    private final BookingRepeat repeat;
+    private final Integer repeatCount;
+    // null для только что созданного бронирования
+    private final BookingStatus oldStatus;
+    private final BookingStatus newStatus;
+
+    public static BookingChangedEvent of(Booking booking, BookingStatus oldStatus) {
+        return new BookingChangedEvent(booking.getId(), booking.getItem().getId(),
+                booking.getItem().getOwner().getId(), booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd(), booking.getRepeat(), booking.getRepeatCount(),
+                oldStatus, booking.getStatus());
+    }
+
+    /**
+     * Правило серии или null, если бронирование разовое.
+     */
+    public BookingRecurrence recurrence() {
+        return repeat == null ? null : new BookingRecurrence(start, end, repeat, repeatCount);
+    }
+}
@@ -1,10 +1,23 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.OwnerUtilizationDto;
+import ru.practicum.shareit.config.IdempotencyStore;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 /**
@@ -16,13 +29,24 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService service;
+    private final IdempotencyStore idempotencyStore;
     private static final String xSharerUserId = "X-Sharer-User-Id";
 
     @PostMapping
     public BookingDto createBooking(@RequestBody BookingCreateDto bookingDto,
-                                    @RequestHeader(xSharerUserId) long userId) {
+                                    @RequestHeader(xSharerUserId) long userId,
+                                    @RequestHeader(value = IdempotencyStore.HEADER, required = false)
+                                    String idempotencyKey) {
         bookingDto.setBookerId(userId);
-        return service.createBooking(bookingDto);
+        return idempotencyStore.execute(userId, "POST /bookings", idempotencyKey, bookingDto,
+                () -> service.createBooking(bookingDto));
+    }
+
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBookings(@RequestBody List<BookingCreateDto> bookings,
+                                                      @RequestParam(defaultValue = "ALL_OR_NOTHING") BookingBatchMode mode,
+                                                      @RequestHeader(xSharerUserId) long userId) {
+        return service.createBookings(bookings, userId, mode);
     }
 
     @PatchMapping("/{bookingId}")
@@ -32,6 +56,13 @@ public class BookingController {
         return service.approveBooking(bookingId, approved, userId);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingDto> approveBookings(@RequestBody List<Long> bookingIds,
+                                            @RequestParam boolean approved,
+                                            @RequestHeader(xSharerUserId) long userId) {
+        return service.approveBookings(bookingIds, approved, userId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getBooking(@PathVariable Long bookingId,
                                  @RequestHeader(xSharerUserId) long userId) {
@@ -39,15 +70,65 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getBookingsForCurrentUser(@RequestParam(defaultValue = "ALL") State state,
-                                                      @RequestHeader(xSharerUserId) long userId) {
-        return service.getBookingsForCurrentUser(state, userId);
+    public ResponseEntity<List<BookingDto>> getBookingsForCurrentUser(@RequestParam(defaultValue = "ALL") State state,
+                                                                      @RequestParam(defaultValue = "0") int from,
+                                                                      @RequestParam(defaultValue = "10") int size,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestHeader(xSharerUserId) long userId) {
+        return withNextCursor(service.getBookingsForCurrentUser(state, userId, from, size, cursor), size);
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getBookingsForOwnedItems(@RequestParam(defaultValue = "ALL") State state,
-                                                     @RequestHeader(xSharerUserId) long userId) {
-        return service.getBookingsForOwnedItems(state, userId);
+    public ResponseEntity<List<BookingDto>> getBookingsForOwnedItems(@RequestParam(defaultValue = "ALL") State state,
+                                                                     @RequestParam(defaultValue = "0") int from,
+                                                                     @RequestParam(defaultValue = "10") int size,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestHeader(xSharerUserId) long userId) {
+        return withNextCursor(service.getBookingsForOwnedItems(state, userId, from, size, cursor), size);
+    }
+
+    @GetMapping("/counts")
+    public BookingCountsDto getBookingCountsForCurrentUser(@RequestHeader(xSharerUserId) long userId) {
+        return service.getBookingCountsForCurrentUser(userId);
+    }
+
+    @GetMapping("/owner/counts")
+    public BookingCountsDto getBookingCountsForOwnedItems(@RequestHeader(xSharerUserId) long userId) {
+        return service.getBookingCountsForOwnedItems(userId);
+    }
+
+    @GetMapping("/owner/utilization")
+    public OwnerUtilizationDto getUtilizationForOwnedItems(@RequestParam(required = false) YearMonth from,
+                                                           @RequestParam(required = false) YearMonth to,
+                                                           @RequestHeader(xSharerUserId) long userId) {
+        return service.getUtilizationForOwnedItems(userId, from, to);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsForOwnedItems(
+            @RequestParam(defaultValue = "NDJSON") BookingExportFormat format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(xSharerUserId) long userId) {
+        StreamingResponseBody body = service.exportBookingsForOwnedItems(userId, format, from, to);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("bookings." + format.getExtension()).build().toString())
+                .body(body);
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToEvents(@RequestHeader(xSharerUserId) long userId) {
+        return service.subscribeToEvents(userId);
+    }
+
+    private ResponseEntity<List<BookingDto>> withNextCursor(List<BookingDto> page, int size) {
+        String next = BookingCursor.next(page, size);
+        if (next == null) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok().header(BookingCursor.HEADER, next).body(page);
     }
 
     public enum State {
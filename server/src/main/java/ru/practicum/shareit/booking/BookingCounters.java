@@ -0,0 +1,216 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Счётчики бронирований пользователя для каждого состояния списка, отдельно для арендатора
+ * и для владельца вещей. Данные пользователя читаются из bookings при первом запросе,
+ * дальше поддерживаются по {@link BookingChangedEvent}: статусы считаются напрямую,
+ * а CURRENT/PAST/FUTURE - бинарным поиском по отсортированным началам и окончаниям. Серия
+ * считается так же, как её разворачивают списки, - каждым повтором: границы повторов находятся
+ * двоичным поиском по правилу серии.
+ * <p>
+ * События приходят только от своего экземпляра, поэтому счётчики согласованы в конечном счёте:
+ * изменения, сделанные другими экземплярами, видны после перечитывания пользователя, не позже
+ * ttl после загрузки. Сверх max-users вытесняются пользователи, загруженные раньше остальных.
+ */
+@Component
+public class BookingCounters {
+    private final BookingRepository bookingRepository;
+    private final Users bookers = new Users();
+    private final Users owners = new Users();
+    private final long ttlNanos;
+    private final int maxUsers;
+
+    public BookingCounters(BookingRepository bookingRepository,
+                           @Value("${shareit.bookings.counters.ttl:PT5M}") Duration ttl,
+                           @Value("${shareit.bookings.counters.max-users:10000}") int maxUsers) {
+        this.bookingRepository = bookingRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.maxUsers = maxUsers;
+    }
+
+    public BookingCountsDto forBooker(Long userId, LocalDateTime now) {
+        return counters(bookers, userId, bookingRepository::findSnapshotsByBooker).toDto(now);
+    }
+
+    public BookingCountsDto forOwner(Long userId, LocalDateTime now) {
+        return counters(owners, userId, bookingRepository::findSnapshotsByOwner).toDto(now);
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        apply(bookers, event.getBookerId(), event);
+        apply(owners, event.getOwnerId(), event);
+    }
+
+    private UserCounters counters(Users users, Long userId, Function<Long, List<BookingSnapshot>> loader) {
+        long now = System.nanoTime();
+        UserCounters[] loaded = new UserCounters[1];
+        UserCounters counters = users.loaded.compute(userId, (id, current) -> {
+            if (current != null && current.expiresAt - now > 0) {
+                return current;
+            }
+            loaded[0] = UserCounters.of(id, loader.apply(id), now + ttlNanos);
+            return loaded[0];
+        });
+        if (loaded[0] != null) {
+            users.remember(loaded[0], now, maxUsers);
+        }
+        return counters;
+    }
+
+    // Счётчики ещё не загруженных (или уже вытесненных) пользователей не заводим: они загрузятся из базы.
+    // computeIfPresent дожидается параллельной загрузки, а повторное применение события безвредно
+    private void apply(Users users, Long userId, BookingChangedEvent event) {
+        UserCounters updated = users.loaded.computeIfPresent(userId, (id, counters) -> {
+            counters.apply(event.getBookingId(), event.getStart(), event.getEnd(), event.recurrence(),
+                    event.getNewStatus());
+            return counters;
+        });
+        if (updated != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Изменение во внешней транзакции могло откатиться - тогда перечитаем пользователя
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        users.loaded.remove(userId, updated);
+                    }
+                }
+            });
+        }
+    }
+
+    private static final class Users {
+        private final ConcurrentMap<Long, UserCounters> loaded = new ConcurrentHashMap<>();
+        // Загруженные счётчики в порядке загрузки. ttl у всех одинаковый, поэтому это и порядок устаревания
+        private final Deque<UserCounters> order = new ArrayDeque<>();
+
+        // Запоминает загруженные счётчики и удаляет устаревшие, а при переполнении - самые давно загруженные.
+        // В очереди могут остаться уже заменённые счётчики: remove(userId, counters) их просто пропустит
+        private synchronized void remember(UserCounters counters, long now, int maxUsers) {
+            order.addLast(counters);
+            while (!order.isEmpty()) {
+                UserCounters oldest = order.peekFirst();
+                if (oldest.expiresAt - now > 0 && loaded.size() <= maxUsers) {
+                    return;
+                }
+                order.pollFirst();
+                loaded.remove(oldest.userId, oldest);
+            }
+        }
+    }
+
+    static final class UserCounters {
+        private final Long userId;
+        private final long expiresAt;
+        private final Map<Long, BookingStatus> statuses = new HashMap<>();
+        private final Map<BookingStatus, Long> byStatus = new EnumMap<>(BookingStatus.class);
+        // Периоды разовых бронирований
+        private final List<LocalDateTime> starts = new ArrayList<>();
+        private final List<LocalDateTime> ends = new ArrayList<>();
+        private final Map<Long, BookingRecurrence> series = new HashMap<>();
+        private long all;
+
+        private UserCounters(Long userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+
+        static UserCounters of(Long userId, List<BookingSnapshot> loaded, long expiresAt) {
+            UserCounters counters = new UserCounters(userId, expiresAt);
+            loaded.forEach(booking -> counters.apply(booking.getId(), booking.getStart(), booking.getEnd(),
+                    booking.recurrence(), booking.getStatus()));
+            return counters;
+        }
+
+        synchronized void apply(Long bookingId, LocalDateTime start, LocalDateTime end,
+                                BookingRecurrence recurrence, BookingStatus status) {
+            BookingStatus previous = statuses.put(bookingId, status);
+            if (previous == null) {
+                // Период бронирования не меняется, поэтому добавляем его только для нового бронирования
+                if (recurrence == null) {
+                    starts.add(countNotAfter(starts, start), start);
+                    ends.add(countNotAfter(ends, end), end);
+                } else {
+                    series.put(bookingId, recurrence);
+                }
+                all += occurrences(bookingId);
+            } else {
+                byStatus.merge(previous, -occurrences(bookingId), Long::sum);
+            }
+            byStatus.merge(status, occurrences(bookingId), Long::sum);
+        }
+
+        synchronized BookingCountsDto toDto(LocalDateTime now) {
+            long started = countNotAfter(starts, now);
+            long finished = countNotAfter(ends, now);
+            long past = countBefore(ends, now);
+            for (BookingRecurrence recurrence : series.values()) {
+                started += recurrence.first(k -> recurrence.startOf(k).isAfter(now));
+                finished += recurrence.first(k -> recurrence.endOf(k).isAfter(now));
+                past += recurrence.first(k -> !recurrence.endOf(k).isBefore(now));
+            }
+            return new BookingCountsDto(
+                    all,
+                    started - finished,
+                    past,
+                    all - started,
+                    byStatus.getOrDefault(BookingStatus.WAITING, 0L),
+                    byStatus.getOrDefault(BookingStatus.REJECTED, 0L));
+        }
+
+        private long occurrences(Long bookingId) {
+            BookingRecurrence recurrence = series.get(bookingId);
+            return recurrence == null ? 1 : recurrence.getCount();
+        }
+
+        // Количество элементов <= time в отсортированном списке
+        private static int countNotAfter(List<LocalDateTime> sorted, LocalDateTime time) {
+            int low = 0;
+            int high = sorted.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted.get(mid).isAfter(time)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        // Количество элементов < time в отсортированном списке
+        private static int countBefore(List<LocalDateTime> sorted, LocalDateTime time) {
+            int low = 0;
+            int high = sorted.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted.get(mid).isBefore(time)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Позиция в списке бронирований, упорядоченном по (start DESC, id DESC).
+ * Клиенту передаётся в виде непрозрачной строки в заголовке {@link #HEADER}.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingCursor {
+    public static final String HEADER = "X-Next-Cursor";
+
+    private static final BookingCursor FIRST = new BookingCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime start;
+    private final Long id;
+
+    public static BookingCursor first() {
+        return FIRST;
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new BookingCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ValidationException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = start + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Курсор на следующую страницу или null, если страница была последней.
+     */
+    public static String next(List<BookingDto> page, int size) {
+        if (page.size() < size) {
+            return null;
+        }
+        BookingDto last = page.get(page.size() - 1);
+        return new BookingCursor(last.getStart(), last.getId()).encode();
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рассылка изменений бронирований подписчикам GET /bookings/events: арендатору и владельцу вещи.
+ * У каждого подписчика своя ограниченная очередь, которую отправляет виртуальный поток, поэтому
+ * медленный клиент не задерживает остальных. Переполнение очереди закрывает поток подписчика:
+ * клиент переподключится и перечитает список бронирований.
+ */
+@Slf4j
+@Component
+public class BookingEventBus implements DisposableBean {
+    static final String CREATED = "created";
+    static final String UPDATED = "updated";
+
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong sequence = new AtomicLong();
+    private final int bufferSize;
+    private final Duration timeout;
+
+    public BookingEventBus(@Value("${shareit.bookings.events.buffer-size:64}") int bufferSize,
+                           @Value("${shareit.bookings.events.timeout:PT30M}") Duration timeout) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        subscribe(userId, emitter);
+        return emitter;
+    }
+
+    void subscribe(Long userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        // Добавление внутри compute: иначе remove() мог бы удалить из карты пустое множество между
+        // computeIfAbsent и add, и подписчик остался бы в множестве, которое событий уже не получает
+        subscribers.compute(userId, (id, users) -> {
+            Set<Subscriber> result = users == null ? ConcurrentHashMap.newKeySet() : users;
+            result.add(subscriber);
+            return result;
+        });
+    }
+
+    // Событие уходит только после фиксации транзакции, иначе клиент увидит откатившееся изменение
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingEventDto dto = new BookingEventDto(event.getBookingId(), event.getItemId(), event.getBookerId(),
+                event.getOwnerId(), event.getStart(), event.getEnd(), event.getOldStatus(), event.getNewStatus());
+        // Сообщение собирается один раз: build() у SseEventBuilder нельзя вызывать повторно
+        Set<DataWithMediaType> message = SseEmitter.event()
+                .id(String.valueOf(sequence.incrementAndGet()))
+                .name(event.getOldStatus() == null ? CREATED : UPDATED)
+                .data(dto, MediaType.APPLICATION_JSON)
+                .build();
+
+        publish(event.getBookerId(), message);
+        if (!event.getOwnerId().equals(event.getBookerId())) {
+            publish(event.getOwnerId(), message);
+        }
+    }
+
+    // Комментарий раз в interval не даёт прокси закрыть простаивающее соединение
+    @Scheduled(fixedRateString = "${shareit.bookings.events.heartbeat:PT15S}")
+    public void heartbeat() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        subscribers.keySet().forEach(userId -> publish(userId, ping));
+    }
+
+    int subscriberCount(Long userId) {
+        return subscribers.getOrDefault(userId, Set.of()).size();
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.values().forEach(users -> users.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    private void publish(Long userId, Set<DataWithMediaType> message) {
+        Set<Subscriber> users = subscribers.get(userId);
+        if (users == null) {
+            return;
+        }
+        for (Subscriber subscriber : users) {
+            if (!subscriber.queue.offer(message)) {
+                log.warn("Booking events buffer overflow, closing stream of user {}", userId);
+                remove(subscriber);
+                subscriber.emitter.complete();
+                continue;
+            }
+            if (subscriber.sending.compareAndSet(false, true)) {
+                senders.execute(() -> send(subscriber));
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        do {
+            Set<DataWithMediaType> message;
+            while ((message = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(message);
+                } catch (IOException | IllegalStateException e) {
+                    // Клиент отключился: обработчики onError/onCompletion уже могли удалить подписчика
+                    remove(subscriber);
+                    subscriber.queue.clear();
+                    subscriber.sending.set(false);
+                    return;
+                }
+            }
+            subscriber.sending.set(false);
+            // Сообщение могло прийти между последним poll и сбросом флага
+        } while (!subscriber.queue.isEmpty() && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, users) -> {
+            users.remove(subscriber);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    @RequiredArgsConstructor
+    private static class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.config.PostgresSchemaInitializer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Переводит в CANCELED бронирования, которые так и не рассмотрели до их начала. Строки
+ * обрабатываются пачками по batch-size, каждая пачка - в своей транзакции. В PostgreSQL пачка
+ * берёт advisory-блокировку транзакции, поэтому при нескольких экземплярах сервера задача
+ * в каждый момент выполняется только одним из них.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    // Ключ pg_try_advisory_xact_lock, общий для всех экземпляров сервера
+    static final long LOCK_KEY = 7_301_011L;
+
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex intervalIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PostgresSchemaInitializer schema;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+
+    private final Counter expired;
+    private final DistributionSummary batches;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public BookingExpiryJob(BookingRepository bookingRepository, BookingIntervalIndex intervalIndex,
+                            ApplicationEventPublisher eventPublisher, PostgresSchemaInitializer schema,
+                            JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            MeterRegistry registry,
+                            @Value("${shareit.bookings.expiry.batch-size:500}") int batchSize,
+                            @Value("${shareit.bookings.expiry.max-batches:100}") int maxBatches) {
+        this.bookingRepository = bookingRepository;
+        this.intervalIndex = intervalIndex;
+        this.eventPublisher = eventPublisher;
+        this.schema = schema;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.expired = Counter.builder("shareit.bookings.expiry.expired")
+                .description("Бронирования, отменённые из-за истечения срока рассмотрения")
+                .register(registry);
+        this.batches = DistributionSummary.builder("shareit.bookings.expiry.batch.size")
+                .description("Размер обработанной пачки")
+                .register(registry);
+        Gauge.builder("shareit.bookings.expiry.lag", lagSeconds, AtomicLong::get)
+                .description("Сколько секунд назад должно было начаться самое старое нерассмотренное бронирование")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Scheduled(initialDelayString = "${shareit.bookings.expiry.delay:PT1M}",
+            fixedDelayString = "${shareit.bookings.expiry.delay:PT1M}")
+    public void expireWaiting() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            List<Booking> batch = transactionTemplate.execute(status -> expireBatch(now));
+            if (batch == null) {
+                log.debug("Booking expiry is running on another instance");
+                break;
+            }
+            // Сбрасываем занятые периоды после фиксации, иначе их могли бы перечитать со старым статусом
+            batch.stream()
+                    .map(booking -> booking.getItem().getId())
+                    .distinct()
+                    .forEach(intervalIndex::invalidate);
+            total += batch.size();
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Expired {} waiting bookings started before {}", total, now);
+        }
+
+        lagSeconds.set(bookingRepository.findEarliestStartBefore(BookingStatus.WAITING, now)
+                .map(start -> Duration.between(start, now).toSeconds())
+                .orElse(0L));
+    }
+
+    /**
+     * Отменяет одну пачку. Возвращает null, если блокировку держит другой экземпляр.
+     */
+    private List<Booking> expireBatch(LocalDateTime now) {
+        if (schema.isPostgres() && !Boolean.TRUE.equals(
+                jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY))) {
+            return null;
+        }
+
+        List<Long> ids = bookingRepository.lockStartedBefore(BookingStatus.WAITING, now,
+                PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        bookingRepository.transitionStatuses(ids, BookingStatus.WAITING, BookingStatus.CANCELED);
+        List<Booking> bookings = bookingRepository.findAllWithItemByIdIn(ids);
+        bookings.forEach(booking ->
+                eventPublisher.publishEvent(BookingChangedEvent.of(booking, BookingStatus.WAITING)));
+
+        expired.increment(bookings.size());
+        batches.record(bookings.size());
+        return bookings;
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Построчное чтение истории бронирований через JDBC-курсор. Строки не накапливаются ни в
+ * памяти, ни в контексте Hibernate: каждая сразу передаётся обработчику.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookingExportRepository {
+    static final int FETCH_SIZE = 500;
+    private static final String SELECT_FOR_OWNER = "SELECT b.id, b.start_date, b.end_date, b.status, " +
+            "b.repeat_rule, b.repeat_count, i.id AS item_id, i.name AS item_name, b.booker_id " +
+            "FROM bookings b JOIN items i ON i.id = b.item_id WHERE i.owner_id = ?";
+    private static final Comparator<Occurrence> OCCURRENCE_ORDER = Comparator.comparing(Occurrence::getStart)
+            .thenComparing(occurrence -> occurrence.getSeries().getId());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Передаёт обработчику бронирования вещей владельца с началом в [from, to) в порядке начала.
+     * Серия разворачивается в повторы с началом в [from, to), как в списках бронирований.
+     * Границы необязательны. Транзакция нужна PostgreSQL, чтобы fetchSize читал порциями.
+     */
+    @Transactional(readOnly = true)
+    public void streamForOwner(Long ownerId, LocalDateTime from, LocalDateTime to, Consumer<BookingDto> consumer) {
+        StringBuilder sql = new StringBuilder(SELECT_FOR_OWNER);
+        List<Object> args = new ArrayList<>();
+        args.add(ownerId);
+        if (from != null) {
+            // Серия, начатая раньше from, может иметь повторы внутри периода
+            sql.append(" AND (b.start_date >= ? OR b.series_end > ?)");
+            args.add(from);
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND b.start_date < ?");
+            args.add(to);
+        }
+        sql.append(" ORDER BY b.start_date, b.id");
+
+        // Строки идут по началу первого повтора, поэтому следующие повторы серий ждут в очереди,
+        // пока не подойдёт их место. В очереди не больше одного повтора каждой серии
+        PriorityQueue<Occurrence> pending = new PriorityQueue<>(OCCURRENCE_ORDER);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString());
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, rs -> {
+            BookingDto booking = new BookingDto(
+                    rs.getLong("id"),
+                    rs.getObject("start_date", LocalDateTime.class),
+                    rs.getObject("end_date", LocalDateTime.class),
+                    BookingStatus.valueOf(rs.getString("status")),
+                    rs.getLong("item_id"),
+                    rs.getString("item_name"),
+                    rs.getLong("booker_id"));
+            emitBefore(pending, booking.getStart(), booking.getId(), to, consumer);
+            String repeat = rs.getString("repeat_rule");
+            if (repeat == null) {
+                consumer.accept(booking);
+                return;
+            }
+            BookingRecurrence recurrence = new BookingRecurrence(booking.getStart(), booking.getEnd(),
+                    BookingRepeat.valueOf(repeat), rs.getInt("repeat_count"));
+            int first = from == null ? 0 : recurrence.first(k -> !recurrence.startOf(k).isBefore(from));
+            enqueue(pending, booking, recurrence, first, to);
+        });
+        emitBefore(pending, null, null, to, consumer);
+    }
+
+    // Передаёт повторы, стоящие в порядке (начало, id) раньше строки; start == null - все оставшиеся
+    private static void emitBefore(PriorityQueue<Occurrence> pending, LocalDateTime start, Long id,
+                                   LocalDateTime to, Consumer<BookingDto> consumer) {
+        while (!pending.isEmpty() && (start == null || pending.peek().getStart().isBefore(start)
+                || pending.peek().getStart().equals(start) && pending.peek().getSeries().getId() < id)) {
+            Occurrence occurrence = pending.poll();
+            consumer.accept(occurrence.toDto());
+            enqueue(pending, occurrence.getSeries(), occurrence.getRecurrence(), occurrence.getNumber() + 1, to);
+        }
+    }
+
+    private static void enqueue(PriorityQueue<Occurrence> pending, BookingDto series, BookingRecurrence recurrence,
+                                int number, LocalDateTime to) {
+        if (number < recurrence.getCount() && (to == null || recurrence.startOf(number).isBefore(to))) {
+            pending.add(new Occurrence(series, recurrence, number, recurrence.startOf(number)));
+        }
+    }
+
+    @Value
+    private static class Occurrence {
+        // Строка серии: период первого повтора
+        BookingDto series;
+        BookingRecurrence recurrence;
+        int number;
+        LocalDateTime start;
+
+        BookingDto toDto() {
+            BookingDto dto = new BookingDto(series.getId(), start, recurrence.endOf(number), series.getStatus(),
+                    series.getItem().getId(), series.getItem().getName(), series.getBooker().getId());
+            dto.setRepeat(recurrence.getRepeat());
+            dto.setRepeatCount(recurrence.getCount());
+            dto.setOccurrence(number);
+            return dto;
+        }
+    }
+}
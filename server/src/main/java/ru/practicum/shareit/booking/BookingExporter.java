@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Пишет историю бронирований владельца в NDJSON или CSV по мере чтения строк из базы.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingExporter {
+    private static final JsonFactory JSON = new JsonFactory();
+    // occurrence - номер повтора серии, у разового бронирования пусто
+    private static final String CSV_HEADER = "id,start,end,status,itemId,itemName,bookerId,occurrence\n";
+
+    private final BookingExportRepository exportRepository;
+
+    public void exportForOwner(Long ownerId, BookingExportFormat format, LocalDateTime from, LocalDateTime to,
+                               OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == BookingExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            exportRepository.streamForOwner(ownerId, from, to, booking -> write(() -> writeCsv(writer, booking)));
+        } else {
+            JsonGenerator json = JSON.createGenerator(writer);
+            exportRepository.streamForOwner(ownerId, from, to, booking -> write(() -> writeJson(json, booking)));
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private static void writeJson(JsonGenerator json, BookingDto booking) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", booking.getId());
+        json.writeStringField("start", booking.getStart().toString());
+        json.writeStringField("end", booking.getEnd().toString());
+        json.writeStringField("status", booking.getStatus().name());
+        json.writeNumberField("itemId", booking.getItem().getId());
+        json.writeStringField("itemName", booking.getItem().getName());
+        json.writeNumberField("bookerId", booking.getBooker().getId());
+        if (booking.getOccurrence() != null) {
+            json.writeNumberField("occurrence", booking.getOccurrence());
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeCsv(Writer writer, BookingDto booking) throws IOException {
+        writer.write(booking.getId() + "," + booking.getStart() + "," + booking.getEnd() + ","
+                + booking.getStatus() + "," + booking.getItem().getId() + "," + csvField(booking.getItem().getName())
+                + "," + booking.getBooker().getId() + ","
+                + (booking.getOccurrence() == null ? "" : booking.getOccurrence()) + "\n");
+    }
+
+    // Поле в кавычках, если в нём есть разделитель, кавычка или перевод строки
+    static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static void write(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            // Клиент оборвал соединение: прерываем чтение курсора
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
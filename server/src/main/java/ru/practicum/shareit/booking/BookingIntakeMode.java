@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking;
+
+public enum BookingIntakeMode {
+    // Запрос сам проверяет пересечения и пишет бронирование под блокировкой вещи
+    DIRECT,
+    // Запросы к одной вещи выстраиваются в очередь и записываются её единственным обработчиком
+    SEQUENCED
+}
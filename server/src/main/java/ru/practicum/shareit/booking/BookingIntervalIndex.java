@@ -0,0 +1,363 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Индекс занятости вещей: для каждой вещи хранит отсортированное множество непересекающихся
+ * периодов активных (WAITING/APPROVED) бронирований и проверяет пересечение за O(log n).
+ * Данные вещи подгружаются из bookings при первом обращении под блокировкой вещи; число вещей
+ * в памяти ограничено, лишние незаблокированные вещи вытесняются и при обращении загружаются
+ * заново. Проверка ex_booking_item_period в PostgreSQL (триггер booking_check_overlap по всем
+ * секциям bookings) остаётся страховкой на случай нескольких экземпляров сервера.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+    public static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    static final String OVERLAP_CONSTRAINT = "ex_booking_item_period";
+
+    private final BookingRepository bookingRepository;
+    private final int maxItems;
+    private final ConcurrentMap<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.bookings.index.max-items:10000}") int maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Проверяет, что период свободен, и под блокировкой вещи выполняет запись бронирования.
+     */
+    public <T> T reserve(Long itemId, LocalDateTime start, LocalDateTime end, Supplier<T> writer) {
+        return reserve(itemId, intervals -> intervals.overlaps(start, end), intervals -> intervals.add(start, end),
+                writer);
+    }
+
+    /**
+     * То же для повторяющегося бронирования: свободен должен быть каждый повтор. Проверка стоит
+     * O(count * log n), но выполняется только при записи; хранится одно правило, а не повторы.
+     */
+    public <T> T reserve(Long itemId, BookingRecurrence recurrence, Supplier<T> writer) {
+        return reserve(itemId, intervals -> intervals.overlaps(recurrence), intervals -> intervals.add(recurrence),
+                writer);
+    }
+
+    private <T> T reserve(Long itemId, Predicate<ItemIntervals> overlaps, Consumer<ItemIntervals> add,
+                          Supplier<T> writer) {
+        ItemIntervals intervals = lock(itemId);
+        try {
+            if (overlaps.test(intervals)) {
+                throw new ConflictException("Вещь с id " + itemId + " уже забронирована на пересекающийся период");
+            }
+
+            T result;
+            try {
+                result = writer.get();
+            } catch (DataIntegrityViolationException e) {
+                if (!isOverlapViolation(e)) {
+                    throw e;
+                }
+                // Бронирование создано другим экземпляром сервера, локальные данные устарели
+                log.warn("Overlap rejected by database for item {}", itemId);
+                intervals.reset();
+                throw new ConflictException("Вещь с id " + itemId + " уже забронирована на пересекающийся период");
+            }
+
+            add.accept(intervals);
+            invalidateOnRollback(List.of(itemId));
+            return result;
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Блокирует несколько вещей (в порядке возрастания id, чтобы избежать взаимоблокировок)
+     * и выполняет над их периодами пакетную операцию.
+     */
+    public <T> T withItems(Collection<Long> itemIds, Function<Batch, T> action) {
+        List<Long> ids = itemIds.stream().distinct().sorted().toList();
+        Map<Long, ItemIntervals> locked = new LinkedHashMap<>();
+        try {
+            for (Long id : ids) {
+                locked.put(id, lock(id));
+            }
+            T result = action.apply(new Batch(locked));
+            invalidateOnRollback(ids);
+            return result;
+        } finally {
+            locked.values().forEach(intervals -> intervals.lock.unlock());
+        }
+    }
+
+    public boolean isFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemIntervals intervals = lock(itemId);
+        try {
+            return !intervals.overlaps(start, end);
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Занятые периоды вещи, пересекающие окно [from, to), в порядке возрастания.
+     */
+    public List<BookingPeriod> busyPeriods(Long itemId, LocalDateTime from, LocalDateTime to) {
+        ItemIntervals intervals = lock(itemId);
+        try {
+            return intervals.within(from, to);
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Сбрасывает данные вещи, например после отклонения бронирования: при следующем обращении
+     * они будут перечитаны из базы. Сброс ждёт блокировку вещи, поэтому не вклинивается между
+     * проверкой и записью в {@link #reserve}.
+     */
+    public void invalidate(Long itemId) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals == null) {
+            return;
+        }
+        intervals.lock.lock();
+        try {
+            intervals.reset();
+        } finally {
+            intervals.lock.unlock();
+        }
+    }
+
+    /**
+     * Нарушено ли ограничение ex_booking_item_period (только PostgreSQL).
+     */
+    public static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        return e.getMessage() != null && e.getMessage().contains(OVERLAP_CONSTRAINT);
+    }
+
+    // Если запись выполнялась во внешней транзакции и та откатилась, занятые периоды неактуальны
+    private void invalidateOnRollback(Collection<Long> itemIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    itemIds.forEach(BookingIntervalIndex.this::invalidate);
+                }
+            }
+        });
+    }
+
+    /**
+     * Возвращает заблокированные данные вещи, при необходимости загрузив их из базы. Загрузка идёт
+     * под блокировкой самой вещи, а не внутри computeIfAbsent, и не задерживает другие вещи.
+     */
+    private ItemIntervals lock(Long itemId) {
+        while (true) {
+            ItemIntervals intervals = items.computeIfAbsent(itemId, id -> new ItemIntervals());
+            if (items.size() > maxItems) {
+                evict(itemId);
+            }
+            intervals.lock.lock();
+            // Пока ждали блокировку, вещь могли вытеснить: тогда берём новый экземпляр
+            if (items.get(itemId) != intervals) {
+                intervals.lock.unlock();
+                continue;
+            }
+            if (!intervals.loaded) {
+                try {
+                    load(itemId, intervals);
+                } catch (RuntimeException e) {
+                    intervals.lock.unlock();
+                    throw e;
+                }
+            }
+            return intervals;
+        }
+    }
+
+    private void load(Long itemId, ItemIntervals intervals) {
+        LocalDateTime now = LocalDateTime.now();
+        intervals.reset();
+        bookingRepository.findActivePeriods(itemId, ACTIVE_STATUSES, now).stream()
+                .sorted(Comparator.comparing(BookingPeriod::getStart))
+                .forEach(period -> intervals.merge(period.getStart(), period.getEnd()));
+        bookingRepository.findActiveSeries(itemId, ACTIVE_STATUSES, now)
+                .forEach(series -> intervals.add(BookingRecurrence.of(series)));
+        intervals.loaded = true;
+    }
+
+    // Вытесняет вещи, которые сейчас никто не держит, пока в памяти не останется три четверти лимита
+    private void evict(Long keep) {
+        int target = maxItems - maxItems / 4;
+        for (Map.Entry<Long, ItemIntervals> entry : items.entrySet()) {
+            if (items.size() <= target) {
+                return;
+            }
+            ItemIntervals intervals = entry.getValue();
+            // Вещи, которые держит сам вызывающий поток (withItems), тоже не трогаем: tryLock для них успешен
+            if (entry.getKey().equals(keep) || intervals.lock.isHeldByCurrentThread() || !intervals.lock.tryLock()) {
+                continue;
+            }
+            try {
+                items.remove(entry.getKey(), intervals);
+            } finally {
+                intervals.lock.unlock();
+            }
+        }
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    /**
+     * Доступ к периодам заблокированных вещей внутри {@link #withItems}.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public final class Batch {
+        private final Map<Long, ItemIntervals> locked;
+        private final List<BookingPeriod> added = new ArrayList<>();
+        private final List<Long> addedItems = new ArrayList<>();
+
+        /**
+         * Занимает период, если он свободен; пересечения внутри пакета тоже учитываются.
+         */
+        public boolean tryAdd(Long itemId, LocalDateTime start, LocalDateTime end) {
+            ItemIntervals intervals = locked.get(itemId);
+            if (intervals.overlaps(start, end)) {
+                return false;
+            }
+            intervals.add(start, end);
+            added.add(new BookingPeriod(start, end));
+            addedItems.add(itemId);
+            return true;
+        }
+
+        /**
+         * Отменяет все периоды, занятые через {@link #tryAdd}, например если запись в базу не удалась.
+         */
+        public void rollback() {
+            for (int i = 0; i < added.size(); i++) {
+                locked.get(addedItems.get(i)).remove(added.get(i).getStart());
+            }
+            added.clear();
+            addedItems.clear();
+        }
+    }
+
+    /**
+     * Непересекающиеся полуоткрытые периоды [start, end), упорядоченные по началу, и правила
+     * повторяющихся бронирований, повторы которых проверяются без разворачивания.
+     */
+    static final class ItemIntervals {
+        private final TreeMap<LocalDateTime, LocalDateTime> periods = new TreeMap<>();
+        private final List<BookingRecurrence> series = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        // Загружены ли периоды из базы; сбрасывается при инвалидации, меняется только под lock
+        private boolean loaded;
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            // Периоды не пересекаются, поэтому у последнего начавшегося до end самый поздний конец
+            Map.Entry<LocalDateTime, LocalDateTime> before = periods.lowerEntry(end);
+            if (before != null && before.getValue().isAfter(start)) {
+                return true;
+            }
+            for (BookingRecurrence recurrence : series) {
+                if (recurrence.overlaps(start, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean overlaps(BookingRecurrence recurrence) {
+            for (int k = 0; k < recurrence.getCount(); k++) {
+                if (overlaps(recurrence.startOf(k), recurrence.endOf(k))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        List<BookingPeriod> within(LocalDateTime from, LocalDateTime to) {
+            LocalDateTime first = periods.floorKey(from);
+            List<BookingPeriod> result = new ArrayList<>();
+            periods.subMap(first == null ? from : first, true, to, false).forEach((start, end) -> {
+                if (end.isAfter(from)) {
+                    result.add(new BookingPeriod(start, end));
+                }
+            });
+            if (series.isEmpty()) {
+                return result;
+            }
+            // Разворачиваются только повторы, попадающие в окно
+            for (BookingRecurrence recurrence : series) {
+                for (int k = recurrence.first(i -> recurrence.endOf(i).isAfter(from));
+                     k < recurrence.getCount() && recurrence.startOf(k).isBefore(to); k++) {
+                    result.add(new BookingPeriod(recurrence.startOf(k), recurrence.endOf(k)));
+                }
+            }
+            result.sort(Comparator.comparing(BookingPeriod::getStart));
+            return result;
+        }
+
+        void add(LocalDateTime start, LocalDateTime end) {
+            periods.put(start, end);
+        }
+
+        void add(BookingRecurrence recurrence) {
+            series.add(recurrence);
+        }
+
+        void remove(LocalDateTime start) {
+            periods.remove(start);
+        }
+
+        void reset() {
+            periods.clear();
+            series.clear();
+            loaded = false;
+        }
+
+        // Исторические данные могут пересекаться - склеиваем их при загрузке
+        private void merge(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> last = periods.lastEntry();
+            if (last != null && last.getValue().isAfter(start)) {
+                if (end.isAfter(last.getValue())) {
+                    periods.put(last.getKey(), end);
+                }
+                return;
+            }
+            periods.put(start, end);
+        }
+    }
+}
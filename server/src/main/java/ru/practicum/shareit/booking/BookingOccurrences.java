@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Повторы серий в списках бронирований. Для каждой серии разворачиваются только повторы,
+ * подходящие под состояние списка и лежащие после курсора, и не больше, чем нужно странице:
+ * границы находятся двоичным поиском, поэтому стоимость не зависит от числа повторов.
+ */
+final class BookingOccurrences {
+    // Порядок списков: (start DESC, id DESC), как в BookingRepository.ORDER
+    static final Comparator<BookingDto> ORDER = Comparator.comparing(BookingDto::getStart)
+            .thenComparing(BookingDto::getId).reversed();
+
+    private static final List<BookingStatus> ALL_STATUSES = List.of(BookingStatus.values());
+
+    private BookingOccurrences() {
+    }
+
+    static List<BookingStatus> statuses(BookingController.State state) {
+        return switch (state) {
+            case WAITING -> List.of(BookingStatus.WAITING);
+            case REJECTED -> List.of(BookingStatus.REJECTED);
+            default -> ALL_STATUSES;
+        };
+    }
+
+    /**
+     * Нижняя граница окончания серий, которые могут попасть в список.
+     */
+    static LocalDateTime from(BookingController.State state, LocalDateTime now) {
+        return state == BookingController.State.CURRENT || state == BookingController.State.FUTURE
+                ? now : BookingPartitions.NO_ARCHIVE;
+    }
+
+    /**
+     * Верхняя граница начала серий, которые могут попасть в список.
+     */
+    static LocalDateTime to(BookingController.State state, LocalDateTime now, BookingCursor after) {
+        LocalDateTime to = after.getStart();
+        if ((state == BookingController.State.CURRENT || state == BookingController.State.PAST) && now.isBefore(to)) {
+            return now;
+        }
+        return to;
+    }
+
+    /**
+     * Повторы серии для страницы списка в порядке {@link #ORDER}, не больше limit.
+     */
+    static List<BookingDto> expand(Booking series, BookingController.State state, LocalDateTime now,
+                                   BookingCursor after, int limit) {
+        BookingRecurrence recurrence = BookingRecurrence.of(series);
+        // Повторы идут по возрастанию начала, поэтому каждое условие отсекает префикс или суффикс
+        int high = recurrence.first(k -> {
+            int compared = recurrence.startOf(k).compareTo(after.getStart());
+            return compared > 0 || compared == 0 && series.getId() >= after.getId();
+        }) - 1;
+        int low = 0;
+        switch (state) {
+            case CURRENT -> {
+                high = Math.min(high, recurrence.first(k -> recurrence.startOf(k).isAfter(now)) - 1);
+                low = recurrence.first(k -> recurrence.endOf(k).isAfter(now));
+            }
+            case FUTURE -> low = recurrence.first(k -> recurrence.startOf(k).isAfter(now));
+            case PAST -> high = Math.min(high, recurrence.first(k -> !recurrence.endOf(k).isBefore(now)) - 1);
+            default -> {
+            }
+        }
+
+        List<BookingDto> occurrences = new ArrayList<>();
+        for (int k = high; k >= low && occurrences.size() < limit; k--) {
+            BookingDto occurrence = new BookingDto(series.getId(), recurrence.startOf(k), recurrence.endOf(k),
+                    series.getStatus(), series.getItem().getId(), series.getItem().getName(),
+                    series.getBooker().getId());
+            occurrence.setRepeat(series.getRepeat());
+            occurrence.setRepeatCount(series.getRepeatCount());
+            occurrence.setOccurrence(k);
+            occurrences.add(occurrence);
+        }
+        return occurrences;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.config.PostgresSchemaInitializer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Обслуживание помесячных секций bookings в PostgreSQL (см. schema-postgresql-extras.sql):
+ * заранее создаёт секции будущих месяцев и переносит в архив месяцы, закончившиеся раньше горизонта.
+ * Граница архива нужна запросам CURRENT/WAITING: всё, что начинается раньше неё, завершено и
+ * рассмотрено, поэтому условие start >= activeFrom позволяет не читать архивную секцию.
+ * В H2 таблица не секционирована и граница остаётся {@link #NO_ARCHIVE}.
+ * <p>
+ * Исключающее ограничение секционированной таблицы сравнивало бы только строки одной секции, поэтому
+ * пересечения активных бронирований вещи во всей таблице проверяет триггер booking_check_overlap.
+ * Экземпляры сервера обслуживают секции по очереди: booking_partitions_maintain берёт
+ * advisory-блокировку на время своей транзакции.
+ */
+@Slf4j
+@Component
+public class BookingPartitions implements InitializingBean {
+    static final LocalDateTime NO_ARCHIVE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresSchemaInitializer schema;
+    private final int monthsAhead;
+    private final int archiveAfterDays;
+    private volatile LocalDateTime activeFrom = NO_ARCHIVE;
+
+    public BookingPartitions(JdbcTemplate jdbcTemplate, PostgresSchemaInitializer schema,
+                             @Value("${shareit.bookings.partitions.months-ahead:12}") int monthsAhead,
+                             @Value("${shareit.bookings.partitions.archive-after-days:180}") int archiveAfterDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schema = schema;
+        this.monthsAhead = monthsAhead;
+        this.archiveAfterDays = archiveAfterDays;
+    }
+
+    /**
+     * Начало незаархивированных бронирований.
+     */
+    public LocalDateTime activeFrom() {
+        return activeFrom;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${shareit.bookings.partitions.cron:0 30 3 * * *}")
+    public void maintain() {
+        if (!schema.isPostgres()) {
+            return;
+        }
+
+        LocalDateTime archiveBefore = LocalDateTime.now().minusDays(archiveAfterDays);
+        LocalDateTime boundary = jdbcTemplate.queryForObject("SELECT booking_partitions_maintain(?, ?)",
+                LocalDateTime.class, monthsAhead, archiveBefore);
+        if (boundary != null && !boundary.equals(activeFrom)) {
+            log.info("Bookings archived before {}", boundary);
+            activeFrom = boundary;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Период бронирования [start, end) без загрузки сущности целиком.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingPeriod {
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntPredicate;
+
+/**
+ * Правило повторяющегося бронирования: count повторов периода [start, end) с шагом repeat.
+ * Повторы нигде не хранятся: k-й вычисляется по правилу, а повторы, попадающие в окно запроса,
+ * находятся двоичным поиском по номеру. Повторы не пересекаются и идут по возрастанию начала.
+ */
+@Getter
+public class BookingRecurrence {
+    public static final int MAX_COUNT = 520;
+
+    private final LocalDateTime start;
+    private final Duration duration;
+    private final BookingRepeat repeat;
+    private final int count;
+
+    public BookingRecurrence(LocalDateTime start, LocalDateTime end, BookingRepeat repeat, int count) {
+        this.start = start;
+        this.duration = Duration.between(start, end);
+        this.repeat = repeat;
+        this.count = count;
+    }
+
+    /**
+     * Правило бронирования или null, если бронирование разовое.
+     */
+    public static BookingRecurrence of(Booking booking) {
+        if (booking.getRepeat() == null) {
+            return null;
+        }
+        return new BookingRecurrence(booking.getStart(), booking.getEnd(), booking.getRepeat(),
+                booking.getRepeatCount());
+    }
+
+    public LocalDateTime startOf(int occurrence) {
+        return repeat.shift(start, occurrence);
+    }
+
+    public LocalDateTime endOf(int occurrence) {
+        return startOf(occurrence).plus(duration);
+    }
+
+    public LocalDateTime seriesEnd() {
+        return endOf(count - 1);
+    }
+
+    /**
+     * Номер первого повтора, для которого выполнено условие, или count, если такого нет.
+     * Условие должно быть монотонным: ложно для первых повторов и истинно для всех остальных.
+     */
+    public int first(IntPredicate condition) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (condition.test(mid)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Пересекает ли какой-нибудь повтор период [from, to).
+     */
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        // Единственный кандидат - первый повтор, который заканчивается после from
+        int candidate = first(k -> endOf(k).isAfter(from));
+        return candidate < count && startOf(candidate).isBefore(to);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Шаг повторения бронирования. minStep - наименьший промежуток между соседними повторами:
+ * бронирование длиннее него пересекалось бы само с собой.
+ */
+public enum BookingRepeat {
+    DAILY(ChronoUnit.DAYS, Duration.ofDays(1)),
+    WEEKLY(ChronoUnit.WEEKS, Duration.ofDays(7)),
+    // Повторы считаются от первого: 31 января, 28 февраля, 31 марта
+    MONTHLY(ChronoUnit.MONTHS, Duration.ofDays(28));
+
+    private final ChronoUnit unit;
+    private final Duration minStep;
+
+    BookingRepeat(ChronoUnit unit, Duration minStep) {
+        this.unit = unit;
+        this.minStep = minStep;
+    }
+
+    public LocalDateTime shift(LocalDateTime start, long steps) {
+        return start.plus(steps, unit);
+    }
+
+    public Duration getMinStep() {
+        return minStep;
+    }
+}
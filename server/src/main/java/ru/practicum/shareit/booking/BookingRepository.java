@@ -1,52 +1,188 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.analytics.BookingFact;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.reminder.UpcomingBooking;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = :userId AND b.start <= :now AND b.end > :now ORDER BY b.start DESC")
-    List<Booking> findCurrentBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    // Keyset-условие для сортировки (start DESC, id DESC): строки строго после курсора
+    String AFTER_CURSOR = " AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId))";
+    String ORDER = " ORDER BY b.start DESC, b.id DESC";
+    // Архивная секция содержит только завершённые и рассмотренные бронирования (см. BookingPartitions)
+    String NOT_ARCHIVED = " AND b.start >= :activeFrom";
+    // Повторяющиеся бронирования разворачиваются в повторы отдельно (см. BookingRecurrence)
+    String SINGLE = " AND b.repeat IS NULL";
+    String SERIES = "SELECT b FROM Booking b JOIN FETCH b.item i WHERE b.repeat IS NOT NULL";
+    // Проекция строки списка: item подтягивается join-ом, booker.id берётся из внешнего ключа
+    String SELECT_DTO = "SELECT new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, b.booker.id) FROM Booking b JOIN b.item i";
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = :userId AND b.start > :now ORDER BY b.start DESC")
-    List<Booking> findFutureBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    @Query(SELECT_DTO + " WHERE b.booker.id = :userId AND b.start <= :now AND b.end > :now" + NOT_ARCHIVED +
+            SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findCurrentBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                      @Param("activeFrom") LocalDateTime activeFrom,
+                                      @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                      Pageable page);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = :userId AND b.status = :status ORDER BY b.start DESC")
-    List<Booking> findBookingsByStatus(@Param("userId") Long userId, @Param("status") BookingStatus status);
+    @Query(SELECT_DTO + " WHERE b.booker.id = :userId AND b.start > :now" + SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findFutureBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                     @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                     Pageable page);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = :userId AND b.end < :now ORDER BY b.start DESC")
-    List<Booking> findPastBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    @Query(SELECT_DTO + " WHERE b.booker.id = :userId AND b.status = :status" + NOT_ARCHIVED + SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findBookingsByStatus(@Param("userId") Long userId, @Param("status") BookingStatus status,
+                                       @Param("activeFrom") LocalDateTime activeFrom,
+                                       @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                       Pageable page);
 
-    @Query("SELECT b FROM Booking b WHERE b.booker.id = :userId ORDER BY b.start DESC")
-    List<Booking> findAllBookings(@Param("userId") Long userId);
+    @Query(SELECT_DTO + " WHERE b.booker.id = :userId AND b.end < :now" + SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findPastBookings(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                   @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                   Pageable page);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :userId AND b.start <= :now AND b.end > :now ORDER BY b.start DESC")
-    List<Booking> findCurrentBookingsForOwner(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    @Query(SELECT_DTO + " WHERE b.booker.id = :userId" + SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findAllBookings(@Param("userId") Long userId,
+                                  @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                  Pageable page);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :userId AND b.start > :now ORDER BY b.start DESC")
-    List<Booking> findFutureBookingsForOwner(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    @Query(SELECT_DTO + " WHERE i.owner.id = :userId AND b.start <= :now AND b.end > :now" + NOT_ARCHIVED +
+            SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findCurrentBookingsForOwner(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                              @Param("activeFrom") LocalDateTime activeFrom,
+                                              @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                              Pageable page);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :userId AND b.end < :now ORDER BY b.start DESC")
-    List<Booking> findPastBookingsForOwner(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    @Query(SELECT_DTO + " WHERE i.owner.id = :userId AND b.start > :now" + SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findFutureBookingsForOwner(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                             @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                             Pageable page);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :userId AND b.status = :status ORDER BY b.start DESC")
-    List<Booking> findBookingsByStatusForOwner(@Param("userId") Long userId, @Param("status") BookingStatus status);
+    @Query(SELECT_DTO + " WHERE i.owner.id = :userId AND b.end < :now" + SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findPastBookingsForOwner(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                           @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                           Pageable page);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.owner.id = :userId ORDER BY b.start DESC")
-    List<Booking> findAllBookingsForOwner(@Param("userId") Long userId);
+    @Query(SELECT_DTO + " WHERE i.owner.id = :userId AND b.status = :status" + NOT_ARCHIVED + SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findBookingsByStatusForOwner(@Param("userId") Long userId, @Param("status") BookingStatus status,
+                                               @Param("activeFrom") LocalDateTime activeFrom,
+                                               @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                               Pageable page);
 
-    boolean existsByBookerIdAndItemIdAndEndBefore(Long authorId, Long itemId, LocalDateTime now);
+    @Query(SELECT_DTO + " WHERE i.owner.id = :userId" + SINGLE + AFTER_CURSOR + ORDER)
+    List<BookingDto> findAllBookingsForOwner(@Param("userId") Long userId,
+                                          @Param("cursorStart") LocalDateTime cursorStart, @Param("cursorId") Long cursorId,
+                                          Pageable page);
+
+    @Query("SELECT new ru.practicum.shareit.booking.BookingPeriod(b.start, b.end) FROM Booking b " +
+            "WHERE b.item.id = :itemId AND b.status IN :statuses AND b.end > :now" + SINGLE)
+    List<BookingPeriod> findActivePeriods(@Param("itemId") Long itemId,
+                                          @Param("statuses") Collection<BookingStatus> statuses,
+                                          @Param("now") LocalDateTime now);
+
+    // Серии, повторы которых могут попасть в [from, to]
+    @Query(SERIES + " AND b.booker.id = :userId AND b.status IN :statuses AND b.start <= :to AND b.seriesEnd >= :from")
+    List<Booking> findSeriesForBooker(@Param("userId") Long userId,
+                                      @Param("statuses") Collection<BookingStatus> statuses,
+                                      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(SERIES + " AND i.owner.id = :userId AND b.status IN :statuses AND b.start <= :to AND b.seriesEnd >= :from")
+    List<Booking> findSeriesForOwner(@Param("userId") Long userId,
+                                     @Param("statuses") Collection<BookingStatus> statuses,
+                                     @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Серии вещи, у которых остались незавершённые повторы; верхней границы нет
+    @Query(SERIES + " AND i.id = :itemId AND b.status IN :statuses AND b.seriesEnd > :now")
+    List<Booking> findActiveSeries(@Param("itemId") Long itemId,
+                                   @Param("statuses") Collection<BookingStatus> statuses,
+                                   @Param("now") LocalDateTime now);
+
+    @Query(SERIES + " AND i.id IN :itemIds AND b.status IN :statuses AND b.start < :to AND b.seriesEnd > :from")
+    List<Booking> findSeriesForItems(@Param("itemIds") Collection<Long> itemIds,
+                                     @Param("statuses") Collection<BookingStatus> statuses,
+                                     @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new ru.practicum.shareit.booking.BookingSnapshot(b.id, b.start, b.end, b.status, " +
+            "b.repeat, b.repeatCount) FROM Booking b WHERE b.booker.id = :userId")
+    List<BookingSnapshot> findSnapshotsByBooker(@Param("userId") Long userId);
+
+    @Query("SELECT new ru.practicum.shareit.booking.BookingSnapshot(b.id, b.start, b.end, b.status, " +
+            "b.repeat, b.repeatCount) FROM Booking b WHERE b.item.owner.id = :userId")
+    List<BookingSnapshot> findSnapshotsByOwner(@Param("userId") Long userId);
+
+    @Query("SELECT new ru.practicum.shareit.booking.analytics.BookingFact(b.id, b.item.id, b.start, b.end, b.status, " +
+            "b.repeat, b.repeatCount) FROM Booking b WHERE b.item.owner.id = :userId")
+    List<BookingFact> findFactsByOwner(@Param("userId") Long userId);
 
-    @Query("SELECT b.end FROM Booking b WHERE b.item.id = :itemId AND b.end <= :now ORDER BY b.end DESC LIMIT 1")
-    Optional<LocalDateTime> findLastBookingDate(@Param("itemId") Long itemId, @Param("now") LocalDateTime now);
+    // Бронирования вместе с вещами одним запросом: владельца проверяем по внешнему ключу item.owner_id
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item WHERE b.id IN :ids")
+    List<Booking> findAllWithItemByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item WHERE b.id = :id")
+    Optional<Booking> findWithItemById(@Param("id") Long id);
+
+    // Меняет статус только тем бронированиям из набора, которые всё ещё в статусе expected
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id IN :ids AND b.status = :expected")
+    int transitionStatuses(@Param("ids") Collection<Long> ids, @Param("expected") BookingStatus expected,
+                           @Param("status") BookingStatus status);
+
+    // Меняет статус, только если с момента чтения бронирование никто не изменил
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.status = :expected AND b.version = :version")
+    int transitionStatus(@Param("id") Long id, @Param("expected") BookingStatus expected,
+                         @Param("version") Long version, @Param("status") BookingStatus status);
+
+    // Заблокированные строки пропускаются (SKIP LOCKED): их сейчас рассматривает владелец
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT b.id FROM Booking b WHERE b.status = :status AND b.start < :now ORDER BY b.start, b.id")
+    List<Long> lockStartedBefore(@Param("status") BookingStatus status, @Param("now") LocalDateTime now,
+                                 Pageable page);
+
+    @Query("SELECT MIN(b.start) FROM Booking b WHERE b.status = :status AND b.start < :now")
+    Optional<LocalDateTime> findEarliestStartBefore(@Param("status") BookingStatus status,
+                                                    @Param("now") LocalDateTime now);
+
+    // Предстоящие бронирования для колеса напоминаний, постранично по id. Серия, начатая до границы архива,
+    // может продолжаться, поэтому для серий граница не применяется
+    @Query("SELECT new ru.practicum.shareit.booking.reminder.UpcomingBooking(b.id, i.id, i.owner.id, b.booker.id, " +
+            "b.start, b.end, b.status, b.repeat, b.repeatCount) FROM Booking b JOIN b.item i " +
+            "WHERE b.id > :afterId AND b.status IN :statuses AND COALESCE(b.seriesEnd, b.end) > :now " +
+            "AND (b.start >= :activeFrom OR b.repeat IS NOT NULL) ORDER BY b.id")
+    List<UpcomingBooking> findUpcoming(@Param("afterId") long afterId,
+                                       @Param("statuses") Collection<BookingStatus> statuses,
+                                       @Param("now") LocalDateTime now,
+                                       @Param("activeFrom") LocalDateTime activeFrom,
+                                       Pageable page);
+
+    boolean existsByBookerIdAndItemIdAndEndBefore(Long authorId, Long itemId, LocalDateTime now);
 
-    @Query("SELECT b.start FROM Booking b WHERE b.item.id = :itemId AND b.start >= :now ORDER BY b.start ASC LIMIT 1")
-    Optional<LocalDateTime> findNextBookingDate(@Param("itemId") Long itemId, @Param("now") LocalDateTime now);
-}
\ No newline at end of file
+    @Query("SELECT new ru.practicum.shareit.booking.BookingBounds(b.item.id, " +
+            "MAX(CASE WHEN COALESCE(b.seriesEnd, b.end) <= :now THEN COALESCE(b.seriesEnd, b.end) END), " +
+            "MIN(CASE WHEN b.start >= :now THEN b.start END), " +
+            "MIN(CASE WHEN b.end > :now THEN b.end END)) " +
+            "FROM Booking b WHERE b.item.id IN :itemIds GROUP BY b.item.id")
+    List<BookingBounds> findBounds(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now);
+}
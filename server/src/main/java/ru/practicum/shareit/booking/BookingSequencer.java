@@ -0,0 +1,225 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Приём бронирований в режиме {@link BookingIntakeMode#SEQUENCED}. У каждой вещи своя ограниченная
+ * очередь заявок и не больше одного обработчика - виртуального потока, который решает пересечения
+ * в памяти и записывает принятые бронирования пачками до batch-size. Запросы к популярной вещи
+ * не конкурируют за её блокировку и соединения с базой, а при заполненной очереди сразу получают 429.
+ */
+@Slf4j
+@Component
+public class BookingSequencer implements DisposableBean {
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingBatchRepository bookingBatchRepository;
+    private final ConcurrentMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    @Getter
+    private final boolean enabled;
+    private final int queueSize;
+    private final int batchSize;
+
+    private final Counter rejected;
+    private final DistributionSummary batches;
+
+    public BookingSequencer(BookingIntervalIndex intervalIndex, BookingBatchRepository bookingBatchRepository,
+                            MeterRegistry registry,
+                            @Value("${shareit.bookings.intake.mode:DIRECT}") BookingIntakeMode mode,
+                            @Value("${shareit.bookings.intake.queue-size:1000}") int queueSize,
+                            @Value("${shareit.bookings.intake.batch-size:100}") int batchSize) {
+        this.intervalIndex = intervalIndex;
+        this.bookingBatchRepository = bookingBatchRepository;
+        this.enabled = mode == BookingIntakeMode.SEQUENCED;
+        this.queueSize = queueSize;
+        this.batchSize = batchSize;
+        this.rejected = Counter.builder("shareit.bookings.intake.rejected")
+                .description("Заявки на бронирование, отклонённые из-за переполненной очереди вещи")
+                .register(registry);
+        this.batches = DistributionSummary.builder("shareit.bookings.intake.batch.size")
+                .description("Размер пачки заявок, обработанной за один проход")
+                .register(registry);
+    }
+
+    /**
+     * Ставит бронирование в очередь его вещи и ждёт решения. Возвращает записанное бронирование
+     * с проставленным id или бросает ConflictException, если период уже занят.
+     */
+    public Booking submit(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        Request request = new Request(booking);
+        Lane lane = lanes.computeIfAbsent(itemId, Lane::new);
+        if (!lane.queue.offer(request)) {
+            rejected.increment();
+            throw new TooManyRequestsException("Слишком много одновременных запросов на бронирование вещи с id "
+                    + itemId + ", повторите попытку позже");
+        }
+        schedule(lane);
+
+        try {
+            return request.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        writers.shutdown();
+    }
+
+    int queued(Long itemId) {
+        Lane lane = lanes.get(itemId);
+        return lane == null ? 0 : lane.queue.size();
+    }
+
+    private void schedule(Lane lane) {
+        if (lane.running.compareAndSet(false, true)) {
+            writers.execute(() -> drain(lane));
+        }
+    }
+
+    private void drain(Lane lane) {
+        List<Request> batch = new ArrayList<>(batchSize);
+        while (true) {
+            lane.queue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                lane.running.set(false);
+                // Заявка могла встать в очередь после drainTo, но до сброса флага
+                if (lane.queue.isEmpty() || !lane.running.compareAndSet(false, true)) {
+                    break;
+                }
+                continue;
+            }
+            write(lane.itemId, batch);
+            batch.clear();
+        }
+
+        // Простаивающие очереди не храним. Если заявка всё же попадёт в удалённую очередь, её обработает
+        // отдельный обработчик, а пересечения по-прежнему исключит блокировка вещи в intervalIndex
+        if (lane.queue.isEmpty()) {
+            lanes.remove(lane.itemId, lane);
+        }
+    }
+
+    private void write(Long itemId, List<Request> batch) {
+        try {
+            intervalIndex.withItems(List.of(itemId), periods -> {
+                List<Request> accepted = new ArrayList<>();
+                for (Request request : batch) {
+                    Booking booking = request.booking;
+                    if (periods.tryAdd(itemId, booking.getStart(), booking.getEnd())) {
+                        accepted.add(request);
+                    } else {
+                        request.result.completeExceptionally(overlap(itemId));
+                    }
+                }
+
+                try {
+                    bookingBatchRepository.insertAll(accepted.stream().map(request -> request.booking).toList());
+                } catch (DataIntegrityViolationException e) {
+                    periods.rollback();
+                    if (!BookingIntervalIndex.isOverlapViolation(e)) {
+                        throw e;
+                    }
+                    // Пересечение с бронированием другого экземпляра сервера: досоздаём по одному, и каждая
+                    // заявка получает ответ сразу после своей записи
+                    boolean overlapped = false;
+                    for (Request request : accepted) {
+                        overlapped |= !insertSingle(itemId, request, periods);
+                    }
+                    // Периоды вещи в памяти разошлись с базой - перечитываем их
+                    if (overlapped) {
+                        intervalIndex.invalidate(itemId);
+                    }
+                    return null;
+                } catch (RuntimeException e) {
+                    periods.rollback();
+                    throw e;
+                }
+
+                accepted.forEach(request -> request.result.complete(request.booking));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} bookings of item {}", batch.size(), itemId, e);
+            // Уже решённые заявки completeExceptionally не меняет
+            batch.forEach(request -> request.result.completeExceptionally(e));
+        }
+        batches.record(batch.size());
+    }
+
+    /**
+     * Записывает одну заявку в собственной транзакции и сразу завершает её. Ошибка записи достаётся
+     * только этой заявке. Возвращает false, если база отклонила заявку как пересекающуюся.
+     */
+    private boolean insertSingle(Long itemId, Request request, BookingIntervalIndex.Batch periods) {
+        Booking booking = request.booking;
+        try {
+            bookingBatchRepository.insertAll(List.of(booking));
+        } catch (DataIntegrityViolationException e) {
+            if (BookingIntervalIndex.isOverlapViolation(e)) {
+                request.result.completeExceptionally(overlap(itemId));
+                return false;
+            }
+            log.warn("Failed to write booking of item {}", itemId, e);
+            request.result.completeExceptionally(e);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to write booking of item {}", itemId, e);
+            request.result.completeExceptionally(e);
+            return true;
+        }
+        periods.tryAdd(itemId, booking.getStart(), booking.getEnd());
+        request.result.complete(booking);
+        return true;
+    }
+
+    private static ConflictException overlap(Long itemId) {
+        return new ConflictException("Вещь с id " + itemId + " уже забронирована на пересекающийся период");
+    }
+
+    private final class Lane {
+        private final Long itemId;
+        private final BlockingQueue<Request> queue;
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private Lane(Long itemId) {
+            this.itemId = itemId;
+            this.queue = new LinkedBlockingQueue<>(queueSize);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Request {
+        private final Booking booking;
+        private final CompletableFuture<Booking> result = new CompletableFuture<>();
+    }
+}
@@ -1,18 +1,40 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.OwnerUtilizationDto;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 public interface BookingService {
     BookingDto createBooking(BookingCreateDto bookingDto);
 
+    List<BookingBatchResultDto> createBookings(List<BookingCreateDto> bookings, Long bookerId, BookingBatchMode mode);
+
     BookingDto approveBooking(Long bookingId, boolean approved, Long userId);
 
+    List<BookingDto> approveBookings(List<Long> bookingIds, boolean approved, Long userId);
+
     BookingDto getBooking(Long bookingId, Long userId);
 
-    List<BookingDto> getBookingsForCurrentUser(BookingController.State state, Long userId);
+    List<BookingDto> getBookingsForCurrentUser(BookingController.State state, Long userId, int from, int size, String cursor);
+
+    List<BookingDto> getBookingsForOwnedItems(BookingController.State state, Long userId, int from, int size, String cursor);
+
+    BookingCountsDto getBookingCountsForCurrentUser(Long userId);
+
+    BookingCountsDto getBookingCountsForOwnedItems(Long userId);
+
+    OwnerUtilizationDto getUtilizationForOwnedItems(Long userId, YearMonth from, YearMonth to);
+
+    StreamingResponseBody exportBookingsForOwnedItems(Long userId, BookingExportFormat format,
+                                                      LocalDateTime from, LocalDateTime to);
 
-    List<BookingDto> getBookingsForOwnedItems(BookingController.State state, Long userId);
-}
\ No newline at end of file
+    SseEmitter subscribeToEvents(Long userId);
+}
@@ -1,33 +1,66 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.analytics.BookingAnalytics;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.OwnerUtilizationDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ForbiddenOperationException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    static final int MAX_APPROVE_ATTEMPTS = 3;
+    static final int MAX_UTILIZATION_MONTHS = 36;
+
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingMapper bookingMapper;
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingBatchRepository bookingBatchRepository;
+    private final BookingCounters bookingCounters;
+    private final BookingExporter bookingExporter;
+    private final BookingPartitions partitions;
+    private final BookingEventBus eventBus;
+    private final BookingSequencer sequencer;
+    private final BookingAnalytics bookingAnalytics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public BookingDto createBooking(BookingCreateDto bookingCreateDto) {
-        System.out.println("Start: " + bookingCreateDto.getStart());
         if (!userRepository.existsById(bookingCreateDto.getBookerId())) {
             throw new NotFoundException("Пользователь с id " + bookingCreateDto.getBookerId() + " не найден");
         }
@@ -39,23 +72,244 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException("Данная вещь не доступна для бронирования");
         }
 
-        return bookingMapper.toBookingDto(bookingRepository.save(bookingMapper.toBooking(bookingCreateDto)));
+        if (bookingCreateDto.getRepeat() != null) {
+            validateRecurrence(bookingCreateDto);
+        }
+
+        Booking booking = bookingMapper.toBooking(bookingCreateDto);
+        BookingRecurrence recurrence = BookingRecurrence.of(booking);
+        Booking saved;
+        if (recurrence != null) {
+            // Серия проверяется сразу по всем повторам, поэтому идёт мимо очередей вещей
+            saved = intervalIndex.reserve(item.getId(), recurrence, () -> bookingRepository.save(booking));
+        } else {
+            saved = sequencer.isEnabled()
+                    ? sequencer.submit(booking)
+                    : intervalIndex.reserve(item.getId(), booking.getStart(), booking.getEnd(),
+                            () -> bookingRepository.save(booking));
+        }
+        eventPublisher.publishEvent(BookingChangedEvent.of(saved, null));
+
+        return bookingMapper.toBookingDto(saved);
+    }
+
+    @Override
+    public List<BookingBatchResultDto> createBookings(List<BookingCreateDto> bookingCreateDtos, Long bookerId,
+                                                     BookingBatchMode mode) {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (bookingCreateDtos == null || bookingCreateDtos.isEmpty()) {
+            throw new ValidationException("Пакет бронирований не может быть пустым");
+        }
+
+        User booker = userRepository.findById(bookerId)
+                .orElseThrow(() -> new NotFoundException("Пользователь с id " + bookerId + " не найден"));
+
+        Set<Long> itemIds = bookingCreateDtos.stream()
+                .map(BookingCreateDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        Map<Booking, BookingBatchResultDto> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < bookingCreateDtos.size(); i++) {
+            BookingCreateDto dto = bookingCreateDtos.get(i);
+            BookingBatchResultDto result = new BookingBatchResultDto(i, null, validateBatchEntry(dto, items, now));
+            results.add(result);
+            if (result.getError() == null) {
+                dto.setBookerId(bookerId);
+                candidates.put(bookingMapper.toBooking(dto, items.get(dto.getItemId()), booker), result);
+            }
+        }
+
+        return intervalIndex.withItems(items.keySet(), periods -> {
+            List<Booking> accepted = new ArrayList<>();
+            candidates.forEach((booking, result) -> {
+                if (periods.tryAdd(booking.getItem().getId(), booking.getStart(), booking.getEnd())) {
+                    accepted.add(booking);
+                } else {
+                    result.setError("Вещь уже забронирована на пересекающийся период");
+                }
+            });
+
+            boolean hasErrors = results.stream().anyMatch(result -> result.getError() != null);
+            if (mode == BookingBatchMode.ALL_OR_NOTHING && hasErrors) {
+                periods.rollback();
+                accepted.forEach(booking -> candidates.get(booking).setError("Пакет отклонён из-за ошибок в других записях"));
+                return results;
+            }
+
+            try {
+                bookingBatchRepository.insertAll(accepted);
+            } catch (DataIntegrityViolationException e) {
+                periods.rollback();
+                if (!BookingIntervalIndex.isOverlapViolation(e)) {
+                    throw e;
+                }
+                if (mode == BookingBatchMode.ALL_OR_NOTHING) {
+                    throw new ConflictException("Пакет отклонён: одна из вещей уже забронирована на пересекающийся период");
+                }
+                // Пересечение с бронированием другого экземпляра сервера: досоздаём по одному
+                accepted.removeIf(booking -> !insertSingle(booking, candidates.get(booking), periods));
+            }
+
+            accepted.forEach(booking -> {
+                candidates.get(booking).setBooking(bookingMapper.toBookingDto(booking));
+                eventPublisher.publishEvent(BookingChangedEvent.of(booking, null));
+            });
+            return results;
+        });
     }
 
     @Override
     public BookingDto approveBooking(Long bookingId, boolean approved, Long userId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new NotFoundException("Бронирование с id " + bookingId + " не найдено"));
+        BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
 
-        Long ownerId = booking.getItem().getOwner().getId();
-        if (!ownerId.equals(userId)) {
+        // Статус меняется условным UPDATE по версии. Если строку изменили после чтения,
+        // перечитываем её: проигравший гонку получит 409, как только увидит чужое решение
+        for (int attempt = 0; attempt < MAX_APPROVE_ATTEMPTS; attempt++) {
+            Booking booking = bookingRepository.findWithItemById(bookingId)
+                    .orElseThrow(() -> new NotFoundException("Бронирование с id " + bookingId + " не найдено"));
+
+            Long ownerId = booking.getItem().getOwner().getId();
+            if (!ownerId.equals(userId)) {
+                throw new ForbiddenOperationException("Только владелец вещи может утвердить или отклонить бронирование");
+            }
+
+            if (booking.getStatus() == BookingStatus.CANCELED) {
+                throw new ValidationException("Бронирование с id " + bookingId + " отменено и не может быть рассмотрено");
+            }
+            if (booking.getStatus() != BookingStatus.WAITING) {
+                throw new ConflictException("Бронирование с id " + bookingId + " уже рассмотрено");
+            }
+
+            if (bookingRepository.transitionStatus(bookingId, BookingStatus.WAITING, booking.getVersion(),
+                    newStatus) == 0) {
+                continue;
+            }
+            booking.setStatus(newStatus);
+            booking.setVersion(booking.getVersion() + 1);
+
+            if (!approved) {
+                intervalIndex.invalidate(booking.getItem().getId());
+            }
+            eventPublisher.publishEvent(BookingChangedEvent.of(booking, BookingStatus.WAITING));
+
+            return bookingMapper.toBookingDto(booking);
+        }
+
+        throw new ConflictException("Бронирование с id " + bookingId
+                + " одновременно изменяется другим запросом, повторите попытку");
+    }
+
+    @Override
+    public List<BookingDto> approveBookings(List<Long> bookingIds, boolean approved, Long userId) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            throw new ValidationException("Список бронирований не может быть пустым");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        List<Booking> bookings = bookingRepository.findAllWithItemByIdIn(ids);
+        if (bookings.size() != ids.size()) {
+            bookings.forEach(booking -> ids.remove(booking.getId()));
+            throw new NotFoundException("Бронирования с id " + ids + " не найдены");
+        }
+
+        boolean foreign = bookings.stream()
+                .anyMatch(booking -> !booking.getItem().getOwner().getId().equals(userId));
+        if (foreign) {
             throw new ForbiddenOperationException("Только владелец вещи может утвердить или отклонить бронирование");
         }
+        bookings.stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.CANCELED)
+                .findFirst()
+                .ifPresent(booking -> {
+                    throw new ValidationException("Бронирование с id " + booking.getId()
+                            + " отменено и не может быть рассмотрено");
+                });
+
+        bookings.stream()
+                .filter(booking -> booking.getStatus() != BookingStatus.WAITING)
+                .findFirst()
+                .ifPresent(booking -> {
+                    throw new ConflictException("Бронирование с id " + booking.getId() + " уже рассмотрено");
+                });
 
+        // Переход WAITING -> APPROVED не освобождает и не занимает новых периодов, поэтому блокировки
+        // вещей не нужны. UPDATE меняет только ожидающие бронирования: если часть из них успели
+        // рассмотреть после чтения, транзакция откатывается целиком и запрос получает 409
         BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
-        booking.setStatus(newStatus);
+        transactionTemplate.executeWithoutResult(status -> {
+            int updated = bookingRepository.transitionStatuses(ids, BookingStatus.WAITING, newStatus);
+            if (updated != ids.size()) {
+                throw new ConflictException("Часть бронирований из " + ids
+                        + " уже рассмотрена другим запросом, повторите попытку");
+            }
+        });
 
-        return bookingMapper.toBookingDto(bookingRepository.save(booking));
+        List<BookingDto> result = new ArrayList<>();
+        for (Booking booking : bookings) {
+            if (!approved) {
+                intervalIndex.invalidate(booking.getItem().getId());
+            }
+            booking.setStatus(newStatus);
+            booking.setVersion(booking.getVersion() + 1);
+            eventPublisher.publishEvent(BookingChangedEvent.of(booking, BookingStatus.WAITING));
+            result.add(bookingMapper.toBookingDto(booking));
+        }
+        return result;
+    }
+
+    private void validateRecurrence(BookingCreateDto dto) {
+        if (dto.getRepeatCount() == null || dto.getRepeatCount() < 2
+                || dto.getRepeatCount() > BookingRecurrence.MAX_COUNT) {
+            throw new ValidationException("Число повторов должно быть от 2 до " + BookingRecurrence.MAX_COUNT);
+        }
+        if (dto.getStart() == null || dto.getEnd() == null || !dto.getEnd().isAfter(dto.getStart())) {
+            throw new ValidationException("Окончание бронирования должно быть позже начала");
+        }
+        if (Duration.between(dto.getStart(), dto.getEnd()).compareTo(dto.getRepeat().getMinStep()) > 0) {
+            throw new ValidationException("Повторы бронирования не должны пересекаться друг с другом");
+        }
+    }
+
+    private String validateBatchEntry(BookingCreateDto dto, Map<Long, Item> items, LocalDateTime now) {
+        if (dto.getRepeat() != null) {
+            return "Повторяющиеся бронирования создаются по одному";
+        }
+        Item item = dto.getItemId() == null ? null : items.get(dto.getItemId());
+        if (item == null) {
+            return "Вещь с id " + dto.getItemId() + " не найдена";
+        }
+        if (!item.getAvailable()) {
+            return "Данная вещь не доступна для бронирования";
+        }
+        if (dto.getStart() == null || dto.getEnd() == null) {
+            return "Начало и окончание бронирования должны быть указаны";
+        }
+        if (!dto.getEnd().isAfter(dto.getStart())) {
+            return "Окончание бронирования должно быть позже начала";
+        }
+        if (dto.getStart().isBefore(now)) {
+            return "Дата начала бронирования не может быть в прошлом";
+        }
+        return null;
+    }
+
+    private boolean insertSingle(Booking booking, BookingBatchResultDto result, BookingIntervalIndex.Batch periods) {
+        try {
+            bookingBatchRepository.insertAll(List.of(booking));
+        } catch (DataIntegrityViolationException e) {
+            if (!BookingIntervalIndex.isOverlapViolation(e)) {
+                throw e;
+            }
+            result.setError("Вещь уже забронирована на пересекающийся период");
+            return false;
+        }
+        periods.tryAdd(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+        return true;
     }
 
     @Override
@@ -75,72 +329,139 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingDto> getBookingsForCurrentUser(BookingController.State state, Long userId) {
-        LocalDateTime now = LocalDateTime.now();
+    public BookingCountsDto getBookingCountsForCurrentUser(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+
+        return bookingCounters.forBooker(userId, LocalDateTime.now());
+    }
 
+    @Override
+    public BookingCountsDto getBookingCountsForOwnedItems(Long userId) {
         if (!userRepository.existsById(userId)) {
             throw new NotFoundException("Пользователь с id " + userId + " не найден");
         }
 
-        List<Booking> bookings;
+        return bookingCounters.forOwner(userId, LocalDateTime.now());
+    }
 
-        switch (state) {
-            case CURRENT:
-                bookings = bookingRepository.findCurrentBookings(userId, now);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findFutureBookings(userId, now);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findBookingsByStatus(userId, BookingStatus.WAITING);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findBookingsByStatus(userId, BookingStatus.REJECTED);
-                break;
-            case PAST:
-                bookings = bookingRepository.findPastBookings(userId, now);
-                break;
-            default:
-                bookings = bookingRepository.findAllBookings(userId);
+    @Override
+    public OwnerUtilizationDto getUtilizationForOwnedItems(Long userId, YearMonth from, YearMonth to) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+        // По умолчанию - последние 12 месяцев, включая текущий
+        YearMonth last = to != null ? to : YearMonth.now();
+        YearMonth first = from != null ? from : last.minusMonths(11);
+        if (first.isAfter(last)) {
+            throw new ValidationException("Окончание периода должно быть не раньше начала");
+        }
+        if (first.plusMonths(MAX_UTILIZATION_MONTHS).isBefore(last.plusMonths(1))) {
+            throw new ValidationException("Отчёт строится не более чем за " + MAX_UTILIZATION_MONTHS + " месяцев");
         }
 
-        return bookings.stream()
-                .map(bookingMapper::toBookingDto)
-                .collect(Collectors.toList());
+        return bookingAnalytics.utilization(userId, itemRepository.findAllByOwnerId(userId), first, last);
     }
 
     @Override
-    public List<BookingDto> getBookingsForOwnedItems(BookingController.State state, Long userId) {
+    public StreamingResponseBody exportBookingsForOwnedItems(Long userId, BookingExportFormat format,
+                                                             LocalDateTime from, LocalDateTime to) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+        if (from != null && to != null && !to.isAfter(from)) {
+            throw new ValidationException("Окончание периода должно быть позже начала");
+        }
+
+        // Проверки выполнены до начала ответа, сами строки пишутся уже при отправке
+        return out -> bookingExporter.exportForOwner(userId, format, from, to, out);
+    }
+
+    @Override
+    public SseEmitter subscribeToEvents(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+
+        return eventBus.subscribe(userId);
+    }
+
+    @Override
+    public List<BookingDto> getBookingsForCurrentUser(BookingController.State state, Long userId,
+                                                      int from, int size, String cursor) {
+        LocalDateTime now = LocalDateTime.now();
+        BookingCursor after = cursor == null ? BookingCursor.first() : BookingCursor.decode(cursor);
+
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден");
+        }
+
+        Function<Pageable, List<BookingDto>> singles = switch (state) {
+            case CURRENT -> page -> bookingRepository.findCurrentBookings(userId, now, partitions.activeFrom(),
+                    after.getStart(), after.getId(), page);
+            case FUTURE -> page -> bookingRepository.findFutureBookings(userId, now, after.getStart(), after.getId(),
+                    page);
+            case WAITING -> page -> bookingRepository.findBookingsByStatus(userId, BookingStatus.WAITING,
+                    partitions.activeFrom(), after.getStart(), after.getId(), page);
+            case REJECTED -> page -> bookingRepository.findBookingsByStatus(userId, BookingStatus.REJECTED,
+                    BookingPartitions.NO_ARCHIVE, after.getStart(), after.getId(), page);
+            case PAST -> page -> bookingRepository.findPastBookings(userId, now, after.getStart(), after.getId(),
+                    page);
+            default -> page -> bookingRepository.findAllBookings(userId, after.getStart(), after.getId(), page);
+        };
+        List<Booking> series = bookingRepository.findSeriesForBooker(userId, BookingOccurrences.statuses(state),
+                BookingOccurrences.from(state, now), BookingOccurrences.to(state, now, after));
+
+        return page(state, now, after, cursor == null ? from : 0, size, singles, series);
+    }
+
+    @Override
+    public List<BookingDto> getBookingsForOwnedItems(BookingController.State state, Long userId,
+                                                     int from, int size, String cursor) {
         LocalDateTime now = LocalDateTime.now();
+        BookingCursor after = cursor == null ? BookingCursor.first() : BookingCursor.decode(cursor);
 
         if (!userRepository.existsById(userId)) {
             throw new NotFoundException("Пользователь с id " + userId + " не найден");
         }
 
-        List<Booking> bookings;
-
-        switch (state) {
-            case CURRENT:
-                bookings = bookingRepository.findCurrentBookingsForOwner(userId, now);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findFutureBookingsForOwner(userId, now);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findBookingsByStatusForOwner(userId, BookingStatus.WAITING);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findBookingsByStatusForOwner(userId, BookingStatus.REJECTED);
-                break;
-            case PAST:
-                bookings = bookingRepository.findPastBookingsForOwner(userId, now);
-                break;
-            default:
-                bookings = bookingRepository.findAllBookingsForOwner(userId);
-        }
-
-        return bookings.stream()
-                .map(bookingMapper::toBookingDto)
-                .collect(Collectors.toList());
-    }
-}
\ No newline at end of file
+        Function<Pageable, List<BookingDto>> singles = switch (state) {
+            case CURRENT -> page -> bookingRepository.findCurrentBookingsForOwner(userId, now, partitions.activeFrom(),
+                    after.getStart(), after.getId(), page);
+            case FUTURE -> page -> bookingRepository.findFutureBookingsForOwner(userId, now, after.getStart(),
+                    after.getId(), page);
+            case WAITING -> page -> bookingRepository.findBookingsByStatusForOwner(userId, BookingStatus.WAITING,
+                    partitions.activeFrom(), after.getStart(), after.getId(), page);
+            case REJECTED -> page -> bookingRepository.findBookingsByStatusForOwner(userId, BookingStatus.REJECTED,
+                    BookingPartitions.NO_ARCHIVE, after.getStart(), after.getId(), page);
+            case PAST -> page -> bookingRepository.findPastBookingsForOwner(userId, now, after.getStart(),
+                    after.getId(), page);
+            default -> page -> bookingRepository.findAllBookingsForOwner(userId, after.getStart(), after.getId(),
+                    page);
+        };
+        List<Booking> series = bookingRepository.findSeriesForOwner(userId, BookingOccurrences.statuses(state),
+                BookingOccurrences.from(state, now), BookingOccurrences.to(state, now, after));
+
+        return page(state, now, after, cursor == null ? from : 0, size, singles, series);
+    }
+
+    /**
+     * Страница списка: разовые бронирования из запроса и повторы серий, слитые в общем порядке.
+     * Без серий страница читается как раньше; с ними обе части читаются с начала до конца страницы.
+     * При листании по курсору смещение уже учтено в самом курсоре и skip равен нулю.
+     */
+    private List<BookingDto> page(BookingController.State state, LocalDateTime now, BookingCursor after,
+                                  int skip, int size, Function<Pageable, List<BookingDto>> singles,
+                                  List<Booking> series) {
+        if (series.isEmpty()) {
+            return singles.apply(OffsetPageRequest.of(skip, size));
+        }
+
+        int limit = skip + size;
+        List<BookingDto> merged = new ArrayList<>(singles.apply(OffsetPageRequest.of(0, limit)));
+        series.forEach(booking -> merged.addAll(BookingOccurrences.expand(booking, state, now, after, limit)));
+        merged.sort(BookingOccurrences.ORDER);
+        return new ArrayList<>(merged.subList(Math.min(skip, merged.size()), Math.min(limit, merged.size())));
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Период, правило серии и статус бронирования без загрузки сущности целиком.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingSnapshot {
+    private final Long id;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final BookingStatus status;
+    private final BookingRepeat repeat;
+    private final Integer repeatCount;
+
+    /**
+     * Правило серии или null, если бронирование разовое.
+     */
+    public BookingRecurrence recurrence() {
+        return repeat == null ? null : new BookingRecurrence(start, end, repeat, repeatCount);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking;
+
+import lombok.EqualsAndHashCode;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.exception.ValidationException;
+
+/**
+ * PageRequest со смещением, не кратным размеру страницы (контракт from/size).
+ */
+@EqualsAndHashCode(callSuper = true)
+public class OffsetPageRequest extends PageRequest {
+    private final long offset;
+
+    private OffsetPageRequest(long offset, int size) {
+        super((int) (offset / size), size, Sort.unsorted());
+        this.offset = offset;
+    }
+
+    public static OffsetPageRequest of(int from, int size) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации: from=" + from + ", size=" + size);
+        }
+        return new OffsetPageRequest(from, size);
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,189 @@
+package ru.practicum.shareit.booking.analytics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.booking.BookingRecurrence;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.ItemUtilizationDto;
+import ru.practicum.shareit.booking.dto.MonthUtilizationDto;
+import ru.practicum.shareit.booking.dto.OwnerUtilizationDto;
+import ru.practicum.shareit.booking.dto.PeakDemandDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Загрузка вещей владельца по месяцам и пики спроса. Бронирования владельца читаются из bookings
+ * один раз при первом отчёте в колонки {@link OwnerBookingColumns}, дальше колонки дополняются
+ * по {@link BookingChangedEvent}. Занятыми считаются только подтверждённые бронирования;
+ * серия занимает вещь каждым своим повтором, попадающим в отчёт.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingAnalytics {
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Long, OwnerBookingColumns> owners = new ConcurrentHashMap<>();
+
+    public OwnerUtilizationDto utilization(Long ownerId, List<Item> items, YearMonth from, YearMonth to) {
+        OwnerBookingColumns.Snapshot columns = owners.computeIfAbsent(ownerId,
+                id -> OwnerBookingColumns.of(bookingRepository.findFactsByOwner(id))).snapshot();
+
+        int months = (int) from.until(to, ChronoUnit.MONTHS) + 1;
+        long[] bounds = new long[months + 1];
+        for (int m = 0; m <= months; m++) {
+            bounds[m] = OwnerBookingColumns.epochSecond(from.plusMonths(m).atDay(1).atStartOfDay());
+        }
+
+        List<Item> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing(Item::getId));
+        Map<Long, Integer> itemIndex = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            itemIndex.put(sorted.get(i).getId(), i);
+        }
+
+        // Повторы подтверждённых бронирований, пересекающие отчёт, сгруппированные по вещам подсчётом.
+        // У разового бронирования один повтор, у серии - повторы с номерами от firstOccurrence
+        int[] rowItem = new int[columns.size()];
+        int[] firstOccurrence = new int[columns.size()];
+        int[] occurrences = new int[columns.size()];
+        int[] offsets = new int[sorted.size() + 1];
+        int periods = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            Integer item = itemIndex.get(columns.itemIds[row]);
+            rowItem[row] = -1;
+            if (item == null || columns.status(row) != BookingStatus.APPROVED
+                    || columns.starts[row] >= columns.ends[row]) {
+                continue;
+            }
+            BookingRecurrence recurrence = columns.recurrence(row);
+            if (recurrence == null) {
+                occurrences[row] = columns.starts[row] < bounds[months] && columns.ends[row] > bounds[0] ? 1 : 0;
+            } else {
+                firstOccurrence[row] = recurrence.first(
+                        k -> OwnerBookingColumns.epochSecond(recurrence.endOf(k)) > bounds[0]);
+                occurrences[row] = recurrence.first(
+                        k -> OwnerBookingColumns.epochSecond(recurrence.startOf(k)) >= bounds[months])
+                        - firstOccurrence[row];
+            }
+            if (occurrences[row] > 0) {
+                rowItem[row] = item;
+                offsets[item + 1] += occurrences[row];
+                periods += occurrences[row];
+            }
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        long[] starts = new long[periods];
+        long[] ends = new long[periods];
+        int[] next = Arrays.copyOf(offsets, sorted.size());
+        for (int row = 0; row < columns.size(); row++) {
+            if (rowItem[row] < 0) {
+                continue;
+            }
+            BookingRecurrence recurrence = columns.recurrence(row);
+            for (int k = firstOccurrence[row]; k < firstOccurrence[row] + occurrences[row]; k++) {
+                int period = next[rowItem[row]]++;
+                starts[period] = recurrence == null ? columns.starts[row]
+                        : OwnerBookingColumns.epochSecond(recurrence.startOf(k));
+                ends[period] = recurrence == null ? columns.ends[row]
+                        : OwnerBookingColumns.epochSecond(recurrence.endOf(k));
+            }
+        }
+
+        long[][] booked = new long[sorted.size()][months];
+        ForkJoinPool.commonPool().invoke(new UtilizationSweep(starts, ends, offsets, bounds, booked, 0,
+                sorted.size()));
+
+        List<ItemUtilizationDto> itemDtos = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            List<MonthUtilizationDto> monthDtos = new ArrayList<>(months);
+            for (int m = 0; m < months; m++) {
+                long monthSeconds = bounds[m + 1] - bounds[m];
+                monthDtos.add(new MonthUtilizationDto(from.plusMonths(m), booked[i][m],
+                        Math.round(booked[i][m] * 10_000.0 / monthSeconds) / 100.0));
+            }
+            itemDtos.add(new ItemUtilizationDto(sorted.get(i).getId(), sorted.get(i).getName(), monthDtos));
+        }
+        return new OwnerUtilizationDto(from, to, itemDtos, peaks(starts, ends, bounds, from));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        // Колонки ещё не запрашивавшихся владельцев не заводим: они загрузятся из базы.
+        // computeIfPresent дожидается параллельной загрузки, а повторное применение события безвредно
+        owners.computeIfPresent(event.getOwnerId(), (id, columns) -> {
+            columns.apply(event.getBookingId(), event.getItemId(), event.getStart(), event.getEnd(),
+                    event.getRepeat(), event.getRepeatCount(), event.getNewStatus());
+            return columns;
+        });
+    }
+
+    /**
+     * Наибольшее число одновременно занятых вещей в каждом месяце: проход по всем началам и окончаниям,
+     * отсортированным параллельно. При совпадении моментов окончание обрабатывается раньше начала.
+     * Массивы сортируются на месте: проход по вещам к этому моменту уже закончен.
+     */
+    private static List<PeakDemandDto> peaks(long[] starts, long[] ends, long[] bounds, YearMonth from) {
+        Arrays.parallelSort(starts);
+        Arrays.parallelSort(ends);
+
+        int months = bounds.length - 1;
+        int[] peak = new int[months];
+        long[] peakAt = new long[months];
+        int open = 0;
+        int month = -1;
+        int j = 0;
+        for (long start : starts) {
+            while (ends[j] <= start) {
+                month = enterMonths(bounds, ends[j], month, open, peak, peakAt);
+                open--;
+                j++;
+            }
+            month = enterMonths(bounds, start, month, open, peak, peakAt);
+            open++;
+            if (month >= 0 && month < months && open > peak[month]) {
+                peak[month] = open;
+                peakAt[month] = start;
+            }
+        }
+        // Месяцы, которые проходят под уже начатыми бронированиями
+        for (; j < ends.length; j++) {
+            month = enterMonths(bounds, ends[j], month, open, peak, peakAt);
+            open--;
+        }
+
+        List<PeakDemandDto> result = new ArrayList<>(months);
+        for (int m = 0; m < months; m++) {
+            result.add(new PeakDemandDto(from.plusMonths(m), peak[m],
+                    peak[m] == 0 ? null : OwnerBookingColumns.fromEpochSecond(peakAt[m])));
+        }
+        return result;
+    }
+
+    // Месяцы, начавшиеся до момента time, открываются с числом вещей, занятых на их начало
+    private static int enterMonths(long[] bounds, long time, int month, int open, int[] peak, long[] peakAt) {
+        int months = bounds.length - 1;
+        while (month < months && time >= bounds[month + 1]) {
+            month++;
+            if (month < months && open > peak[month]) {
+                peak[month] = open;
+                peakAt[month] = bounds[month];
+            }
+        }
+        return month;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.BookingRepeat;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка бронирования для аналитики: только то, что попадает в колонки {@link OwnerBookingColumns}.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingFact {
+    private final Long id;
+    private final Long itemId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final BookingStatus status;
+    // Правило серии; у разового бронирования null
+    private final BookingRepeat repeat;
+    private final Integer repeatCount;
+}
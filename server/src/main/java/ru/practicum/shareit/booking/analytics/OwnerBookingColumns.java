@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking.analytics;
+
+import ru.practicum.shareit.booking.BookingRecurrence;
+import ru.practicum.shareit.booking.BookingRepeat;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Бронирования вещей одного владельца по колонкам примитивных массивов: вещь, начало и окончание
+ * в секундах эпохи, статус и правило серии (у серии начало и окончание - период первого повтора).
+ * Новые бронирования дописываются в конец, смена статуса правит одну ячейку. Расчёты идут
+ * по копии колонок ({@link #snapshot()}), поэтому запись не ждёт отчётов.
+ */
+final class OwnerBookingColumns {
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+    private static final BookingRepeat[] REPEATS = BookingRepeat.values();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<Long, Integer> rowsByBooking = new HashMap<>();
+    private long[] itemIds = new long[INITIAL_CAPACITY];
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    // Порядковый номер правила плюс один; 0 у разового бронирования
+    private byte[] repeats = new byte[INITIAL_CAPACITY];
+    private int[] repeatCounts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    static OwnerBookingColumns of(List<BookingFact> loaded) {
+        OwnerBookingColumns columns = new OwnerBookingColumns();
+        loaded.forEach(booking -> columns.apply(booking.getId(), booking.getItemId(), booking.getStart(),
+                booking.getEnd(), booking.getRepeat(), booking.getRepeatCount(), booking.getStatus()));
+        return columns;
+    }
+
+    synchronized void apply(Long bookingId, Long itemId, LocalDateTime start, LocalDateTime end,
+                            BookingRepeat repeat, Integer repeatCount, BookingStatus status) {
+        Integer row = rowsByBooking.get(bookingId);
+        if (row != null) {
+            // Период бронирования не меняется, меняется только статус
+            statuses[row] = (byte) status.ordinal();
+            return;
+        }
+
+        if (size == itemIds.length) {
+            int capacity = size * 2;
+            itemIds = Arrays.copyOf(itemIds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            repeats = Arrays.copyOf(repeats, capacity);
+            repeatCounts = Arrays.copyOf(repeatCounts, capacity);
+        }
+        itemIds[size] = itemId;
+        starts[size] = epochSecond(start);
+        ends[size] = epochSecond(end);
+        statuses[size] = (byte) status.ordinal();
+        repeats[size] = repeat == null ? 0 : (byte) (repeat.ordinal() + 1);
+        repeatCounts[size] = repeat == null ? 1 : repeatCount;
+        rowsByBooking.put(bookingId, size);
+        size++;
+    }
+
+    synchronized Snapshot snapshot() {
+        return new Snapshot(Arrays.copyOf(itemIds, size), Arrays.copyOf(starts, size), Arrays.copyOf(ends, size),
+                Arrays.copyOf(statuses, size), Arrays.copyOf(repeats, size), Arrays.copyOf(repeatCounts, size));
+    }
+
+    static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Неизменяемая копия колонок; строки с одинаковым индексом относятся к одному бронированию.
+     */
+    static final class Snapshot {
+        final long[] itemIds;
+        final long[] starts;
+        final long[] ends;
+        final byte[] statuses;
+        final byte[] repeats;
+        final int[] repeatCounts;
+
+        Snapshot(long[] itemIds, long[] starts, long[] ends, byte[] statuses, byte[] repeats, int[] repeatCounts) {
+            this.itemIds = itemIds;
+            this.starts = starts;
+            this.ends = ends;
+            this.statuses = statuses;
+            this.repeats = repeats;
+            this.repeatCounts = repeatCounts;
+        }
+
+        int size() {
+            return itemIds.length;
+        }
+
+        BookingStatus status(int row) {
+            return STATUSES[statuses[row]];
+        }
+
+        /**
+         * Правило серии строки или null, если бронирование разовое.
+         */
+        BookingRecurrence recurrence(int row) {
+            if (repeats[row] == 0) {
+                return null;
+            }
+            return new BookingRecurrence(fromEpochSecond(starts[row]), fromEpochSecond(ends[row]),
+                    REPEATS[repeats[row] - 1], repeatCounts[row]);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking.analytics;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Занятое время вещей по месяцам. Вещи делятся между задачами fork/join, пока на задачу приходится
+ * больше {@link #ROWS_PER_TASK} периодов занятости; каждая вещь обрабатывается проходом по отсортированным
+ * началам и окончаниям, поэтому пересекающиеся бронирования не считаются дважды.
+ */
+final class UtilizationSweep extends RecursiveAction {
+    static final int ROWS_PER_TASK = 4096;
+
+    // Периоды вещи item - [offsets[item], offsets[item + 1])
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] offsets;
+    // Границы месяцев: месяц m - [bounds[m], bounds[m + 1])
+    private final long[] bounds;
+    private final long[][] booked;
+    private final int fromItem;
+    private final int toItem;
+
+    UtilizationSweep(long[] starts, long[] ends, int[] offsets, long[] bounds, long[][] booked,
+                     int fromItem, int toItem) {
+        this.starts = starts;
+        this.ends = ends;
+        this.offsets = offsets;
+        this.bounds = bounds;
+        this.booked = booked;
+        this.fromItem = fromItem;
+        this.toItem = toItem;
+    }
+
+    @Override
+    protected void compute() {
+        if (toItem - fromItem > 1 && offsets[toItem] - offsets[fromItem] > ROWS_PER_TASK) {
+            int middle = (fromItem + toItem) >>> 1;
+            invokeAll(new UtilizationSweep(starts, ends, offsets, bounds, booked, fromItem, middle),
+                    new UtilizationSweep(starts, ends, offsets, bounds, booked, middle, toItem));
+            return;
+        }
+        for (int item = fromItem; item < toItem; item++) {
+            sweep(item);
+        }
+    }
+
+    private void sweep(int item) {
+        int count = offsets[item + 1] - offsets[item];
+        if (count == 0) {
+            return;
+        }
+        long[] itemStarts = Arrays.copyOfRange(starts, offsets[item], offsets[item + 1]);
+        long[] itemEnds = Arrays.copyOfRange(ends, offsets[item], offsets[item + 1]);
+        Arrays.sort(itemStarts);
+        Arrays.sort(itemEnds);
+
+        // Вещь занята, пока начавшихся бронирований больше, чем закончившихся
+        int open = 0;
+        long busyFrom = 0;
+        int j = 0;
+        for (long start : itemStarts) {
+            while (itemEnds[j] < start) {
+                if (--open == 0) {
+                    add(item, busyFrom, itemEnds[j]);
+                }
+                j++;
+            }
+            if (open++ == 0) {
+                busyFrom = start;
+            }
+        }
+        add(item, busyFrom, itemEnds[count - 1]);
+    }
+
+    private void add(int item, long from, long to) {
+        long start = Math.max(from, bounds[0]);
+        long end = Math.min(to, bounds[bounds.length - 1]);
+        int month = monthOf(bounds, start);
+        while (start < end) {
+            long monthEnd = Math.min(end, bounds[month + 1]);
+            booked[item][month] += monthEnd - start;
+            start = monthEnd;
+            month++;
+        }
+    }
+
+    /**
+     * Месяц, в который попадает момент time; для моментов вне отчёта результат не определён.
+     */
+    static int monthOf(long[] bounds, long time) {
+        int index = Arrays.binarySearch(bounds, time);
+        return index >= 0 ? index : -index - 2;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Количество бронирований по каждому состоянию списка (см. BookingController.State).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingCountsDto {
+    private long all;
+    private long current;
+    private long past;
+    private long future;
+    private long waiting;
+    private long rejected;
+}
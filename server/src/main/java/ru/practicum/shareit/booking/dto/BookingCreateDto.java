@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.dto;
 
 import lombok.Data;
+import ru.practicum.shareit.booking.BookingRepeat;
 
 import java.time.LocalDateTime;
 
@@ -10,4 +11,7 @@ public class BookingCreateDto {
     private Long itemId;
     private LocalDateTime start;
     private LocalDateTime end;
+    // Для повторяющегося бронирования: шаг и общее число повторов
+    private BookingRepeat repeat;
+    private Integer repeatCount;
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingRepeat;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -22,4 +23,24 @@ public class BookingDto {
     private ItemDto item;
     private UserDto booker;
     private BookingStatus status;
+    // Только у повторяющегося бронирования; occurrence - номер повтора с нуля, id общий для всех повторов
+    private BookingRepeat repeat;
+    private Integer repeatCount;
+    private Integer occurrence;
+
+    /**
+     * Конструктор для JPQL-проекций: бронирование, id и название вещи, id арендатора одним запросом.
+     */
+    public BookingDto(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                      Long itemId, String itemName, Long bookerId) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.status = status;
+        this.item = new ItemDto();
+        this.item.setId(itemId);
+        this.item.setName(itemName);
+        this.booker = new UserDto();
+        this.booker.setId(bookerId);
+    }
 }
\ No newline at end of file
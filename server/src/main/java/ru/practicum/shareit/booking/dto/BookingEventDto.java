@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Изменение бронирования в потоке GET /bookings/events.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingEventDto {
+    private Long bookingId;
+    private Long itemId;
+    private Long bookerId;
+    private Long ownerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    // null для только что созданного бронирования
+    private BookingStatus oldStatus;
+    private BookingStatus status;
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Загрузка одной вещи по месяцам отчёта.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemUtilizationDto {
+    private Long itemId;
+    private String name;
+    private List<MonthUtilizationDto> months;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+/**
+ * Сколько времени вещь была занята подтверждёнными бронированиями в течение месяца.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthUtilizationDto {
+    private YearMonth month;
+    private long bookedSeconds;
+    // Доля месяца в процентах, с точностью до сотых
+    private double utilization;
+}
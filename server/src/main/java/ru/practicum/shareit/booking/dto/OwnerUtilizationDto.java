@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Отчёт о загрузке вещей владельца за месяцы from..to включительно.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OwnerUtilizationDto {
+    private YearMonth from;
+    private YearMonth to;
+    private List<ItemUtilizationDto> items;
+    // Наибольшее число одновременно занятых вещей владельца в каждом месяце
+    private List<PeakDemandDto> peaks;
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Пик спроса за месяц: сколько вещей владельца были заняты одновременно и когда это случилось впервые.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PeakDemandDto {
+    private YearMonth month;
+    private int bookedItems;
+    // null, если за месяц не было ни одного бронирования
+    private LocalDateTime at;
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.mapper;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingRecurrence;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
@@ -34,6 +35,8 @@ public class BookingMapper {
         bookingDto.setStatus(booking.getStatus());
         bookingDto.setItem(item);
         bookingDto.setBooker(booker);
+        bookingDto.setRepeat(booking.getRepeat());
+        bookingDto.setRepeatCount(booking.getRepeatCount());
 
         return bookingDto;
     }
@@ -42,12 +45,21 @@ public class BookingMapper {
         Item item = itemRepository.findById(bookingDto.getItemId()).get();
         User booker = userRepository.findById(bookingDto.getBookerId()).get();
 
+        return toBooking(bookingDto, item, booker);
+    }
+
+    public Booking toBooking(BookingCreateDto bookingDto, Item item, User booker) {
         Booking booking = new Booking();
         booking.setStart(bookingDto.getStart());
         booking.setEnd(bookingDto.getEnd());
         booking.setItem(item);
         booking.setBooker(booker);
         booking.setStatus(BookingStatus.WAITING);
+        if (bookingDto.getRepeat() != null) {
+            booking.setRepeat(bookingDto.getRepeat());
+            booking.setRepeatCount(bookingDto.getRepeatCount());
+            booking.setSeriesEnd(BookingRecurrence.of(booking).seriesEnd());
+        }
 
         return booking;
     }
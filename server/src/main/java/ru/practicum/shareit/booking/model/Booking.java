@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import ru.practicum.shareit.booking.BookingRepeat;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
@@ -39,4 +40,20 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     private BookingStatus status;
+
+    // Правило повторения; null у разового бронирования (см. BookingRecurrence)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "repeat_rule")
+    private BookingRepeat repeat;
+
+    @Column(name = "repeat_count")
+    private Integer repeatCount;
+
+    // Окончание последнего повтора, для отбора серий по периоду
+    @Column(name = "series_end")
+    private LocalDateTime seriesEnd;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.reminder;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BookingReminder {
+    Type type;
+    Long bookingId;
+    Long itemId;
+    // Арендатор для START, владелец вещи для END
+    Long recipientId;
+    // Период повтора, о котором напоминание
+    LocalDateTime start;
+    LocalDateTime end;
+    // Номер повтора серии; null у разового бронирования
+    Integer occurrence;
+    BookingStatus status;
+
+    public enum Type {
+        // Незадолго до начала бронирования
+        START,
+        // В момент окончания бронирования
+        END
+    }
+}
@@ -0,0 +1,227 @@
+package ru.practicum.shareit.booking.reminder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingPartitions;
+import ru.practicum.shareit.booking.BookingRecurrence;
+import ru.practicum.shareit.booking.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Напоминания арендатору за start-lead до начала бронирования и владельцу в момент его окончания.
+ * Сроки хранятся в иерархическом колесе таймеров, поэтому миллионы будущих бронирований не требуют
+ * ни опроса базы, ни задачи на каждое бронирование: раз в tick колесо поворачивается и отдаёт
+ * наступившие напоминания всем {@link BookingReminderSink}. При старте колесо заполняется предстоящими
+ * бронированиями постранично, дальше обновляется по {@link BookingChangedEvent}.
+ * <p>
+ * У серии в колесе не больше одного напоминания каждого типа - о ближайшем повторе; когда оно
+ * срабатывает, ставится напоминание о следующем повторе.
+ */
+@Slf4j
+@Component
+public class BookingReminderScheduler {
+    private final BookingRepository bookingRepository;
+    private final BookingPartitions partitions;
+    private final List<BookingReminderSink> sinks;
+    private final long tickMillis;
+    private final Duration startLead;
+    private final int pageSize;
+
+    // Колесо и таймеры бронирований меняются только под блокировкой wheel
+    private final TimingWheel<BookingReminder> wheel;
+    private final Map<Long, List<TimingWheel.Timer<BookingReminder>>> timersByBooking = new HashMap<>();
+    // Серии, у которых в колесе остались напоминания
+    private final Map<Long, UpcomingBooking> series = new HashMap<>();
+    private final AtomicInteger timers = new AtomicInteger();
+    private final AtomicLong tickLagMillis = new AtomicLong();
+
+    public BookingReminderScheduler(BookingRepository bookingRepository, BookingPartitions partitions,
+                                    List<BookingReminderSink> sinks, MeterRegistry registry,
+                                    @Value("${shareit.reminders.tick:PT1S}") Duration tick,
+                                    @Value("${shareit.reminders.wheel-size:64}") int wheelSize,
+                                    @Value("${shareit.reminders.start-lead:PT1H}") Duration startLead,
+                                    @Value("${shareit.reminders.load-page-size:1000}") int pageSize) {
+        this.bookingRepository = bookingRepository;
+        this.partitions = partitions;
+        this.sinks = sinks;
+        this.tickMillis = tick.toMillis();
+        this.startLead = startLead;
+        this.pageSize = pageSize;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        Gauge.builder("shareit.reminders.timers", timers, AtomicInteger::get)
+                .description("Запланированные напоминания")
+                .register(registry);
+        Gauge.builder("shareit.reminders.tick.lag", tickLagMillis, AtomicLong::get)
+                .description("На сколько очередной поворот колеса напоминаний отстал от расписания")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+        long afterId = 0;
+        int loaded = 0;
+        while (true) {
+            List<UpcomingBooking> page = bookingRepository.findUpcoming(afterId, BookingIntervalIndex.ACTIVE_STATUSES,
+                    now, partitions.activeFrom(), PageRequest.of(0, pageSize));
+            page.forEach(this::schedule);
+            loaded += page.size();
+            if (page.size() < pageSize) {
+                break;
+            }
+            afterId = page.getLast().getId();
+        }
+        log.info("Scheduled reminders for {} upcoming bookings", loaded);
+    }
+
+    // Откатившиеся изменения напоминаний не порождают
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (BookingIntervalIndex.ACTIVE_STATUSES.contains(event.getNewStatus())) {
+            schedule(new UpcomingBooking(event.getBookingId(), event.getItemId(), event.getOwnerId(),
+                    event.getBookerId(), event.getStart(), event.getEnd(), event.getNewStatus(), event.getRepeat(),
+                    event.getRepeatCount()));
+        } else {
+            synchronized (wheel) {
+                cancel(event.getBookingId());
+                timers.set(wheel.size());
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${shareit.reminders.tick:PT1S}")
+    public void tick() {
+        tick(System.currentTimeMillis());
+    }
+
+    void tick(long nowMillis) {
+        List<BookingReminder> due = new ArrayList<>();
+        synchronized (wheel) {
+            tickLagMillis.set(Math.max(0, nowMillis - wheel.currentMillis() - tickMillis));
+            wheel.advance(nowMillis, timer -> {
+                BookingReminder reminder = timer.payload();
+                List<TimingWheel.Timer<BookingReminder>> pending = timersByBooking.get(reminder.getBookingId());
+                if (pending != null && pending.remove(timer) && pending.isEmpty()) {
+                    timersByBooking.remove(reminder.getBookingId());
+                }
+                due.add(reminder);
+            });
+            due.forEach(this::scheduleNextOccurrence);
+            timers.set(wheel.size());
+        }
+
+        // Отправка идёт вне блокировки: медленный получатель не задерживает планирование
+        for (BookingReminder reminder : due) {
+            for (BookingReminderSink sink : sinks) {
+                try {
+                    sink.deliver(reminder);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to deliver reminder {} for booking {}", reminder.getType(),
+                            reminder.getBookingId(), e);
+                }
+            }
+        }
+    }
+
+    int scheduled() {
+        return timers.get();
+    }
+
+    /**
+     * Заменяет напоминания бронирования. Напоминания, чьё время уже прошло, не ставятся.
+     */
+    private void schedule(UpcomingBooking booking) {
+        synchronized (wheel) {
+            cancel(booking.getId());
+            List<TimingWheel.Timer<BookingReminder>> pending = new ArrayList<>(2);
+            for (BookingReminder.Type type : BookingReminder.Type.values()) {
+                TimingWheel.Timer<BookingReminder> timer = timer(booking, type);
+                if (timer != null && wheel.add(timer)) {
+                    pending.add(timer);
+                }
+            }
+            if (!pending.isEmpty()) {
+                timersByBooking.put(booking.getId(), pending);
+                if (booking.getRepeat() != null) {
+                    series.put(booking.getId(), booking);
+                }
+            }
+            timers.set(wheel.size());
+        }
+    }
+
+    // Вызывается под блокировкой wheel после поворота колеса
+    private void scheduleNextOccurrence(BookingReminder reminder) {
+        UpcomingBooking booking = series.get(reminder.getBookingId());
+        if (booking == null) {
+            return;
+        }
+        TimingWheel.Timer<BookingReminder> timer = timer(booking, reminder.getType());
+        if (timer != null && wheel.add(timer)) {
+            timersByBooking.computeIfAbsent(booking.getId(), id -> new ArrayList<>(2)).add(timer);
+        } else if (!timersByBooking.containsKey(booking.getId())) {
+            series.remove(booking.getId());
+        }
+    }
+
+    private void cancel(Long bookingId) {
+        series.remove(bookingId);
+        List<TimingWheel.Timer<BookingReminder>> pending = timersByBooking.remove(bookingId);
+        if (pending != null) {
+            pending.forEach(wheel::cancel);
+        }
+    }
+
+    /**
+     * Напоминание о ближайшем повторе, срок которого ещё не наступил, или null, если все прошли.
+     * У разового бронирования повтор один. Вызывается под блокировкой wheel.
+     */
+    private TimingWheel.Timer<BookingReminder> timer(UpcomingBooking booking, BookingReminder.Type type) {
+        BookingRecurrence recurrence = booking.recurrence();
+        if (recurrence == null) {
+            return timer(booking, type, null, booking.getStart(), booking.getEnd());
+        }
+        long after = wheel.currentMillis() + tickMillis;
+        int occurrence = recurrence.first(
+                k -> millis(deadline(type, recurrence.startOf(k), recurrence.endOf(k))) >= after);
+        if (occurrence == recurrence.getCount()) {
+            return null;
+        }
+        return timer(booking, type, occurrence, recurrence.startOf(occurrence), recurrence.endOf(occurrence));
+    }
+
+    private TimingWheel.Timer<BookingReminder> timer(UpcomingBooking booking, BookingReminder.Type type,
+                                                     Integer occurrence, LocalDateTime start, LocalDateTime end) {
+        Long recipientId = type == BookingReminder.Type.START ? booking.getBookerId() : booking.getOwnerId();
+        return new TimingWheel.Timer<>(millis(deadline(type, start, end)), new BookingReminder(type, booking.getId(),
+                booking.getItemId(), recipientId, start, end, occurrence, booking.getStatus()));
+    }
+
+    private LocalDateTime deadline(BookingReminder.Type type, LocalDateTime start, LocalDateTime end) {
+        return type == BookingReminder.Type.START ? start.minus(startLead) : end;
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
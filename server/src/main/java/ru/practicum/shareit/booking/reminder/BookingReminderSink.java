@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.reminder;
+
+/**
+ * Получатель напоминаний. Планировщик отдаёт каждое напоминание всем бинам этого типа,
+ * поэтому отправку почты или push-уведомлений можно добавить отдельным бином.
+ */
+public interface BookingReminderSink {
+    void deliver(BookingReminder reminder);
+}
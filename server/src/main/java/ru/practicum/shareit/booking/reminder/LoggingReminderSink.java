@@ -0,0 +1,38 @@
+package ru.practicum.shareit.booking.reminder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Получатель по умолчанию: пишет напоминание в лог и хранит последние из них в памяти.
+ */
+@Slf4j
+@Component
+public class LoggingReminderSink implements BookingReminderSink {
+    static final int RECENT_SIZE = 100;
+
+    private final Deque<BookingReminder> recent = new ArrayDeque<>(RECENT_SIZE);
+
+    @Override
+    public void deliver(BookingReminder reminder) {
+        log.info("Booking reminder {} for user {}: booking {} of item {} from {} to {}", reminder.getType(),
+                reminder.getRecipientId(), reminder.getBookingId(), reminder.getItemId(), reminder.getStart(),
+                reminder.getEnd());
+        synchronized (recent) {
+            if (recent.size() == RECENT_SIZE) {
+                recent.removeFirst();
+            }
+            recent.addLast(reminder);
+        }
+    }
+
+    public List<BookingReminder> recent() {
+        synchronized (recent) {
+            return List.copyOf(recent);
+        }
+    }
+}
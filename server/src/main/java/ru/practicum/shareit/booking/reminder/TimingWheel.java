@@ -0,0 +1,140 @@
+package ru.practicum.shareit.booking.reminder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Иерархическое колесо таймеров. Уровень 0 - wheelSize ячеек по одному тику, ячейка каждого следующего
+ * уровня охватывает весь предыдущий. Таймер кладётся на нижний уровень, куда помещается его срок, а когда
+ * время доходит до ячейки старшего уровня, её таймеры переносятся ниже. Добавление, отмена и срабатывание
+ * стоят O(1) на таймер независимо от их числа; уровни добавляются по мере надобности.
+ * Класс не потокобезопасен.
+ */
+final class TimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    // levels.get(level).get(slot); ticksPerSlot.get(level) = wheelSize^level
+    private final List<List<ArrayDeque<Timer<T>>>> levels = new ArrayList<>();
+    private final List<Long> ticksPerSlot = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        addLevel();
+    }
+
+    /**
+     * Ставит таймер. Возвращает false, если его срок уже наступил: такой таймер не добавляется.
+     */
+    boolean add(Timer<T> timer) {
+        if (Math.floorDiv(timer.deadlineMillis, tickMillis) <= currentTick) {
+            return false;
+        }
+        place(timer);
+        size++;
+        return true;
+    }
+
+    void cancel(Timer<T> timer) {
+        if (!timer.cancelled) {
+            timer.cancelled = true;
+            size--;
+        }
+    }
+
+    /**
+     * Поворачивает колесо до nowMillis и передаёт expired все таймеры, чей тик наступил.
+     */
+    void advance(long nowMillis, Consumer<Timer<T>> expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < target) {
+            currentTick++;
+            // Сначала спускаем таймеры старших уровней, чья ячейка начинается с этого тика
+            for (int level = levels.size() - 1; level > 0; level--) {
+                long ticks = ticksPerSlot.get(level);
+                if (currentTick % ticks == 0) {
+                    cascade(slot(level, currentTick / ticks));
+                }
+            }
+
+            ArrayDeque<Timer<T>> due = slot(0, currentTick);
+            while (!due.isEmpty()) {
+                Timer<T> timer = due.poll();
+                if (!timer.cancelled) {
+                    size--;
+                    expired.accept(timer);
+                }
+            }
+        }
+    }
+
+    long currentMillis() {
+        return currentTick * tickMillis;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(ArrayDeque<Timer<T>> slot) {
+        List<Timer<T>> timers = new ArrayList<>(slot);
+        slot.clear();
+        for (Timer<T> timer : timers) {
+            if (!timer.cancelled) {
+                place(timer);
+            }
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long tick = Math.floorDiv(timer.deadlineMillis, tickMillis);
+        long delta = tick - currentTick;
+        int level = 0;
+        long ticks = 1;
+        while (delta / ticks >= wheelSize) {
+            level++;
+            if (level == levels.size()) {
+                addLevel();
+            }
+            ticks = ticksPerSlot.get(level);
+        }
+        slot(level, tick / ticks).add(timer);
+    }
+
+    private ArrayDeque<Timer<T>> slot(int level, long position) {
+        return levels.get(level).get((int) (position % wheelSize));
+    }
+
+    private void addLevel() {
+        List<ArrayDeque<Timer<T>>> slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        ticksPerSlot.add(levels.isEmpty() ? 1L : ticksPerSlot.getLast() * wheelSize);
+        levels.add(slots);
+    }
+
+    static final class Timer<T> {
+        private final long deadlineMillis;
+        private final T payload;
+        private boolean cancelled;
+
+        Timer(long deadlineMillis, T payload) {
+            this.deadlineMillis = deadlineMillis;
+            this.payload = payload;
+        }
+
+        long deadlineMillis() {
+            return deadlineMillis;
+        }
+
+        T payload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.booking.reminder;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.BookingRecurrence;
+import ru.practicum.shareit.booking.BookingRepeat;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Всё, что нужно для напоминаний о бронировании, без загрузки сущностей.
+ */
+@Getter
+@AllArgsConstructor
+public class UpcomingBooking {
+    private final Long id;
+    private final Long itemId;
+    private final Long ownerId;
+    private final Long bookerId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final BookingStatus status;
+    // Правило серии; у разового бронирования null, start и end - период первого повтора серии
+    private final BookingRepeat repeat;
+    private final Integer repeatCount;
+
+    /**
+     * Правило серии или null, если бронирование разовое.
+     */
+    public BookingRecurrence recurrence() {
+        return repeat == null ? null : new BookingRecurrence(start, end, repeat, repeatCount);
+    }
+}
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.config;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Ответы на создающие запросы с заголовком Idempotency-Key. Повтор с тем же ключом получает
+ * сохранённый ответ без повторного выполнения, а одновременный дубликат ждёт, пока закончится
+ * первый запрос. Ключ действует в пределах пользователя и операции, ответ хранится ttl после
+ * выполнения; сверх max-entries вытесняются ключи, выполненные раньше остальных. Выполняющиеся
+ * запросы не вытесняются: если ими занято всё место, новый ключ получает 429. Ошибки не
+ * сохраняются: после неё запрос с тем же ключом выполнится заново.
+ */
+@Component
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 255;
+
+    // Доступ к обеим коллекциям только под блокировкой entries
+    private final Map<Scope, Entry> entries = new HashMap<>();
+    // Выполненные ключи в порядке выполнения. ttl у всех одинаковый, поэтому это и порядок устаревания
+    private final Deque<Scope> completed = new ArrayDeque<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public IdempotencyStore(@Value("${shareit.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${shareit.idempotency.max-entries:10000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Выполняет action или возвращает результат, уже полученный для этого ключа. Без ключа
+     * просто выполняет action. Тот же ключ с другим телом запроса - ошибка клиента (409).
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Long userId, String operation, @Nullable String key, Object request, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Заголовок " + HEADER + " должен содержать от 1 до " + MAX_KEY_LENGTH
+                    + " символов");
+        }
+
+        Scope scope = new Scope(userId, operation, key);
+        Entry entry;
+        boolean first = false;
+        synchronized (entries) {
+            prune(System.nanoTime());
+            entry = entries.get(scope);
+            if (entry == null) {
+                if (entries.size() >= maxEntries) {
+                    throw new TooManyRequestsException("Слишком много одновременных запросов с заголовком "
+                            + HEADER + ", повторите попытку позже");
+                }
+                entry = new Entry(request);
+                entries.put(scope, entry);
+                first = true;
+            }
+        }
+
+        if (!entry.request.equals(request)) {
+            throw new ConflictException("Ключ " + HEADER + " уже использован для другого запроса");
+        }
+        if (!first) {
+            try {
+                return (T) entry.result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(scope, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (entries) {
+            entry.expiresAt = System.nanoTime() + ttlNanos;
+            completed.addLast(scope);
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Удаляет устаревшие ключи и при переполнении - самые давно выполненные. Выполняющиеся не трогает
+    private void prune(long now) {
+        while (!completed.isEmpty()) {
+            Entry oldest = entries.get(completed.peekFirst());
+            if (oldest.expiresAt - now > 0 && entries.size() < maxEntries) {
+                return;
+            }
+            entries.remove(completed.pollFirst());
+        }
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Scope {
+        private final Long userId;
+        private final String operation;
+        private final String key;
+    }
+
+    private static final class Entry {
+        private final Object request;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private long expiresAt;
+
+        private Entry(Object request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Выполняет schema-postgresql-extras.sql после schema.sql, если сервер работает на PostgreSQL.
+ * В H2 (профиль test) эти объекты не создаются. Экземпляры, стартующие одновременно, применяют
+ * скрипт по очереди под advisory-блокировкой сеанса.
+ */
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@RequiredArgsConstructor
+public class PostgresSchemaInitializer implements InitializingBean {
+    private static final String SCRIPT = "schema-postgresql-extras.sql";
+    private static final long LOCK_KEY = 7_301_009L;
+
+    private final DataSource dataSource;
+    @Getter
+    private boolean postgres;
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            if (!postgres) {
+                return;
+            }
+            log.info("Applying {}", SCRIPT);
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(SCRIPT));
+            populator.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+            advisoryLock(connection, "pg_advisory_lock");
+            try {
+                populator.populate(connection);
+            } finally {
+                advisoryLock(connection, "pg_advisory_unlock");
+            }
+        }
+    }
+
+    private static void advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            statement.execute();
+        }
+    }
+}
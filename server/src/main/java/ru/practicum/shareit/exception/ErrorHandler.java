@@ -32,6 +32,14 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    // Обработчик ConflictException
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT) // Код ответа 409
+    public ErrorResponse handleConflictException(final ConflictException e) {
+        log.warn("Error", e);
+        return new ErrorResponse(e.getMessage());
+    }
+
     // Обработчик ForbiddenOperationException
     @ExceptionHandler(ForbiddenOperationException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN) // Код ответа 403
@@ -40,6 +48,14 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
+    // Обработчик TooManyRequestsException
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS) // Код ответа 429
+    public ErrorResponse handleTooManyRequestsException(final TooManyRequestsException e) {
+        log.warn("Error", e);
+        return new ErrorResponse(e.getMessage());
+    }
+
     // Обработчик любых других исключений
     @ExceptionHandler(Throwable.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR) // Код ответа 500
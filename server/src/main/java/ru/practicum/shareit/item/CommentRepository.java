@@ -1,12 +1,20 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItem_Id(Long itemId);
-}
\ No newline at end of file
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.item.id = :itemId ORDER BY c.id")
+    List<Comment> findAllByItem_Id(@Param("itemId") Long itemId);
+
+    // Комментарии всех вещей с авторами одним запросом, без отдельного SELECT на вещь или автора
+    @Query("SELECT c FROM Comment c JOIN FETCH c.author WHERE c.item.id IN :itemIds ORDER BY c.id")
+    List<Comment> findAllByItemIds(@Param("itemIds") Collection<Long> itemIds);
+}
@@ -0,0 +1,146 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingBounds;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.booking.BookingRecurrence;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Последнее и ближайшее бронирование вещи хранятся в items (last_booking, next_booking), чтобы
+ * вещи владельца читались без запросов к bookings. booking_dates_until - момент, когда значения
+ * устареют: начало next_booking или ближайшее окончание бронирования. Новое бронирование сдвигает
+ * границы сразу, устаревшие строки пересчитываются при чтении и фоновой задачей. От статуса
+ * бронирования границы не зависят, поэтому подтверждение и отклонение их не меняют.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBookingDates {
+    // booking_dates_until для вещи без предстоящих изменений
+    public static final LocalDateTime NEVER = LocalDateTime.of(9999, 12, 31, 0, 0);
+    static final int REFRESH_BATCH_SIZE = 500;
+    // Границы, как и раньше, считаются по бронированиям в любом статусе
+    private static final List<BookingStatus> ALL_STATUSES = List.of(BookingStatus.values());
+    static final int MAX_REFRESH_BATCHES = 20;
+
+    // Новое бронирование начинается в будущем: last_booking не меняется, next_booking и момент
+    // пересчёта могут только приблизиться. Ещё не рассчитанные строки (NULL) посчитаются целиком
+    private static final String SHIFT_NEXT = "UPDATE items SET " +
+            "next_booking = CASE WHEN next_booking IS NULL OR next_booking > ? THEN ? ELSE next_booking END, " +
+            "booking_dates_until = CASE WHEN booking_dates_until > ? THEN ? ELSE booking_dates_until END " +
+            "WHERE id = ? AND booking_dates_until IS NOT NULL";
+    // Бронирование, созданное между чтением bookings и этой записью, уже сдвинуло next_booking
+    // в строке: будущие значения из строки раньше рассчитанных не теряем
+    private static final String STORE = "UPDATE items SET last_booking = CAST(? AS TIMESTAMP), " +
+            "next_booking = CASE WHEN next_booking > ? AND next_booking < ? THEN next_booking " +
+            "ELSE CAST(? AS TIMESTAMP) END, " +
+            "booking_dates_until = CASE WHEN booking_dates_until > ? AND booking_dates_until < ? " +
+            "THEN booking_dates_until ELSE ? END " +
+            "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getOldStatus() != null) {
+            return;
+        }
+        Timestamp start = Timestamp.valueOf(event.getStart());
+        jdbcTemplate.update(SHIFT_NEXT, start, start, start, start, event.getItemId());
+    }
+
+    /**
+     * Пересчитывает устаревшие на момент now границы вещей одним запросом к bookings
+     * и обновляет их и в базе, и в переданных сущностях.
+     */
+    public void refresh(Collection<Item> items, LocalDateTime now) {
+        List<Item> stale = items.stream()
+                .filter(item -> item.getBookingDatesUntil() == null || !item.getBookingDatesUntil().isAfter(now))
+                .toList();
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        List<Long> staleIds = stale.stream().map(Item::getId).toList();
+        Map<Long, BookingBounds> bounds = bookingRepository.findBounds(staleIds, now)
+                .stream()
+                .collect(Collectors.toMap(BookingBounds::getItemId, Function.identity()));
+        // Запрос видит серию целиком; повторы идущих сейчас серий считаются по правилу
+        for (Booking series : bookingRepository.findSeriesForItems(staleIds, ALL_STATUSES, now, now)) {
+            bounds.computeIfPresent(series.getItem().getId(),
+                    (id, itemBounds) -> itemBounds.with(BookingRecurrence.of(series), now));
+        }
+        Timestamp at = Timestamp.valueOf(now);
+        List<Object[]> rows = new ArrayList<>(stale.size());
+        for (Item item : stale) {
+            BookingBounds itemBounds = bounds.get(item.getId());
+            LocalDateTime last = itemBounds == null ? null : itemBounds.getLastEnd();
+            LocalDateTime next = itemBounds == null ? null : itemBounds.getNextStart();
+            LocalDateTime until = earliest(next, itemBounds == null ? null : itemBounds.getNextEnd());
+            item.setLastBooking(last);
+            item.setNextBooking(next);
+            item.setBookingDatesUntil(until);
+
+            Timestamp nextOrNever = Timestamp.valueOf(next == null ? NEVER : next);
+            rows.add(new Object[]{timestamp(last), at, nextOrNever, timestamp(next),
+                    at, Timestamp.valueOf(until), Timestamp.valueOf(until), item.getId()});
+        }
+        jdbcTemplate.batchUpdate(STORE, rows);
+    }
+
+    @Scheduled(initialDelayString = "${shareit.items.booking-dates.refresh-delay:PT1M}",
+            fixedDelayString = "${shareit.items.booking-dates.refresh-delay:PT1M}")
+    public void refreshStale() {
+        LocalDateTime now = LocalDateTime.now();
+        int refreshed = 0;
+        // Число пачек ограничено: вещь с бронированием, начинающимся ровно в now, остаётся устаревшей
+        for (int i = 0; i < MAX_REFRESH_BATCHES; i++) {
+            List<Item> batch = new ArrayList<>(itemRepository.findWithoutBookingDates(
+                    PageRequest.of(0, REFRESH_BATCH_SIZE)));
+            if (batch.size() < REFRESH_BATCH_SIZE) {
+                batch.addAll(itemRepository.findWithStaleBookingDates(now,
+                        PageRequest.of(0, REFRESH_BATCH_SIZE - batch.size())));
+            }
+            refresh(batch, now);
+            refreshed += batch.size();
+            if (batch.size() < REFRESH_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (refreshed > 0) {
+            log.debug("Refreshed booking dates of {} items", refreshed);
+        }
+    }
+
+    private static LocalDateTime earliest(LocalDateTime first, LocalDateTime second) {
+        if (first == null || second == null) {
+            return first != null ? first : second != null ? second : NEVER;
+        }
+        return first.isBefore(second) ? first : second;
+    }
+
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+}
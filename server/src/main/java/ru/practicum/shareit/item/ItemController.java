@@ -1,9 +1,12 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.config.IdempotencyStore;
 import ru.practicum.shareit.item.dto.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -14,12 +17,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService service;
+    private final IdempotencyStore idempotencyStore;
     private static final String xSharerUserId = "X-Sharer-User-Id";
 
     @PostMapping
-    public ItemDto add(@RequestBody ItemCreateDto item, @RequestHeader(xSharerUserId) long userId) {
+    public ItemDto add(@RequestBody ItemCreateDto item, @RequestHeader(xSharerUserId) long userId,
+                       @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         item.setOwner(userId);
-        return service.addItem(item);
+        return idempotencyStore.execute(userId, "POST /items", idempotencyKey, item, () -> service.addItem(item));
     }
 
     @PatchMapping("/{itemId}")
@@ -41,15 +46,37 @@ public class ItemController {
     }
 
     @GetMapping("/search")
-    public List<ItemDto> searchItems(@RequestParam String text) {
-        return service.searchItems(text);
+    public List<ItemDto> searchItems(@RequestParam String text,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (from == null && to == null) {
+            return service.searchItems(text);
+        }
+        return service.searchAvailableItems(text, from, to);
+    }
+
+    @GetMapping("/suggest")
+    public List<ItemSuggestionDto> suggestItems(@RequestParam String prefix,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        return service.suggestItems(prefix, limit);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable Long itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                               @RequestParam(defaultValue = "DAY") AvailabilityGranularity granularity) {
+        return service.getAvailability(itemId, from, to, granularity);
     }
 
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(@RequestBody CommentCreateDto comment,
-                                 @PathVariable long itemId, @RequestHeader(xSharerUserId) long userId) {
+                                 @PathVariable long itemId, @RequestHeader(xSharerUserId) long userId,
+                                 @RequestHeader(value = IdempotencyStore.HEADER, required = false)
+                                 String idempotencyKey) {
         comment.setItemId(itemId);
         comment.setAuthorId(userId);
-        return service.addComment(comment);
+        return idempotencyStore.execute(userId, "POST /items/comment", idempotencyKey, comment,
+                () -> service.addComment(comment));
     }
 }
\ No newline at end of file
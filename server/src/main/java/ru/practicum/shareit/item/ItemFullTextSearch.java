@@ -0,0 +1,63 @@
+package ru.practicum.shareit.item;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.config.PostgresSchemaInitializer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Полнотекстовый поиск доступных вещей по колонкам search_* (см. schema-postgresql-extras.sql).
+ * Каждое слово запроса ищется как префикс, чтобы поиск по мере набора находил вещи и по
+ * недописанному слову; результат упорядочен по ts_rank. Включается shareit.items.search.mode=FULL_TEXT
+ * и только в PostgreSQL, иначе сервис ищет через LIKE.
+ */
+@Slf4j
+@Repository
+public class ItemFullTextSearch {
+    private final JdbcTemplate jdbcTemplate;
+    @Getter
+    private final boolean enabled;
+    private final String sql;
+
+    public ItemFullTextSearch(JdbcTemplate jdbcTemplate, PostgresSchemaInitializer schema,
+                              @Value("${shareit.items.search.mode:LIKE}") ItemSearchMode mode,
+                              @Value("${shareit.items.search.language:RUSSIAN}") ItemSearchLanguage language) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = mode == ItemSearchMode.FULL_TEXT && schema.isPostgres();
+        if (mode == ItemSearchMode.FULL_TEXT && !enabled) {
+            log.warn("Full-text item search requires PostgreSQL, falling back to LIKE");
+        }
+        // Имя колонки и конфигурация берутся из перечисления, а не из пользовательского ввода
+        this.sql = "SELECT id FROM items, to_tsquery('" + language.getConfig() + "', ?) query " +
+                "WHERE available AND " + language.getColumn() + " @@ query " +
+                "ORDER BY ts_rank(" + language.getColumn() + ", query) DESC, id";
+    }
+
+    /**
+     * Id доступных вещей, подходящих под text, от более релевантных к менее.
+     */
+    public List<Long> findAvailableIds(String text) {
+        String query = toPrefixQuery(text);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(sql, Long.class, query);
+    }
+
+    /**
+     * Запрос to_tsquery из слов текста: каждое слово - префикс, все слова обязательны.
+     * Знаки препинания и операторы tsquery отбрасываются.
+     */
+    static String toPrefixQuery(String text) {
+        return Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> "'" + word + "':*")
+                .collect(Collectors.joining(" & "));
+    }
+}
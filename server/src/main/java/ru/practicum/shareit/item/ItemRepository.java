@@ -1,11 +1,16 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemPopularity;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,5 +21,40 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             "LIKE CONCAT('%', LOWER(:text), '%')) AND i.available = true")
     List<Item> findAllByNameContainsIgnoreCaseOrDescriptionContainsIgnoreCaseAndAvailableIsTrue(@Param("text") String text);
 
+    // Анти-соединение с bookings: вещь подходит, если ни одно активное бронирование не пересекает [from, to).
+    // Повторяющиеся бронирования здесь не учитываются - их повторы проверяет ItemServiceImpl
+    @Query("SELECT i FROM Item i WHERE (LOWER(i.name) LIKE CONCAT('%', LOWER(:text), '%') OR LOWER(i.description) " +
+            "LIKE CONCAT('%', LOWER(:text), '%')) AND i.available = true " +
+            "AND NOT EXISTS (SELECT b.id FROM Booking b WHERE b.item = i AND b.status IN :statuses " +
+            "AND b.start < :to AND b.end > :from AND b.repeat IS NULL)")
+    List<Item> findAvailableByTextInPeriod(@Param("text") String text,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("statuses") Collection<BookingStatus> statuses);
+
+    // То же анти-соединение для вещей, уже найденных полнотекстовым поиском
+    @Query("SELECT i FROM Item i WHERE i.id IN :ids " +
+            "AND NOT EXISTS (SELECT b.id FROM Booking b WHERE b.item = i AND b.status IN :statuses " +
+            "AND b.start < :to AND b.end > :from AND b.repeat IS NULL)")
+    List<Item> findAvailableInPeriod(@Param("ids") Collection<Long> ids,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     @Param("statuses") Collection<BookingStatus> statuses);
+
     List<Item> findAllByRequestId(Long id);
+
+    @Query("SELECT i FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    List<Item> findPageAfter(@Param("afterId") long afterId, Pageable page);
+
+    @Query("SELECT new ru.practicum.shareit.item.search.ItemPopularity(i.id, i.name, i.available, COUNT(b.id)) " +
+            "FROM Item i LEFT JOIN Booking b ON b.item = i WHERE i.id > :afterId " +
+            "GROUP BY i.id, i.name, i.available ORDER BY i.id")
+    List<ItemPopularity> findPopularityPageAfter(@Param("afterId") long afterId, Pageable page);
+
+    // Нерассчитанные и устаревшие строки читаются раздельно: условие с OR не идёт по индексу в H2
+    @Query("SELECT i FROM Item i WHERE i.bookingDatesUntil IS NULL")
+    List<Item> findWithoutBookingDates(Pageable page);
+
+    @Query("SELECT i FROM Item i WHERE i.bookingDatesUntil <= :now")
+    List<Item> findWithStaleBookingDates(@Param("now") LocalDateTime now, Pageable page);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Конфигурация полнотекстового поиска PostgreSQL и колонка items, построенная по ней.
+ */
+@Getter
+@AllArgsConstructor
+public enum ItemSearchLanguage {
+    RUSSIAN("russian", "search_russian"),
+    ENGLISH("english", "search_english");
+
+    private final String config;
+    private final String column;
+}
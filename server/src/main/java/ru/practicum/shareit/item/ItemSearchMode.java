@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item;
+
+public enum ItemSearchMode {
+    // Подстрока в названии или описании (LIKE), работает в любой базе, но читает всю таблицу
+    LIKE,
+    // Полнотекстовый поиск PostgreSQL по индексу с ранжированием; в H2 используется LIKE
+    FULL_TEXT,
+    // Инвертированный индекс в памяти сервера с ранжированием BM25 (см. ItemSearchIndex), без запросов к базе
+    INDEX,
+    // То же, но слова запроса с одной-двумя опечатками заменяются ближайшими словами индекса
+    FUZZY
+}
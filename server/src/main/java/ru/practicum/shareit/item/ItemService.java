@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.dto.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -15,6 +16,13 @@ public interface ItemService {
 
     public List<ItemDto> searchItems(String text);
 
+    public List<ItemDto> searchAvailableItems(String text, LocalDateTime from, LocalDateTime to);
+
+    public List<ItemSuggestionDto> suggestItems(String prefix, int limit);
+
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to,
+                                               AvailabilityGranularity granularity);
+
     boolean existsUserById(long userId);
 
     public CommentDto addComment(CommentCreateDto comment);
@@ -7,22 +7,35 @@ import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingPeriod;
+import ru.practicum.shareit.booking.BookingRecurrence;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.exception.ForbiddenOperationException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSuggestions;
 import ru.practicum.shareit.request.ItemRequestRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    static final int MAX_AVAILABILITY_SLOTS = 1000;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
@@ -30,6 +43,11 @@ public class ItemServiceImpl implements ItemService {
     private final ItemRequestRepository itemRequestRepository;
     private final ItemMapper itemMapper;
     private final CommentMapper commentMapper;
+    private final BookingIntervalIndex intervalIndex;
+    private final ItemBookingDates itemBookingDates;
+    private final ItemFullTextSearch fullTextSearch;
+    private final ItemSearchIndex searchIndex;
+    private final ItemSuggestions itemSuggestions;
 
     @Override
     public ItemDto addItem(ItemCreateDto itemCreateDto) {
@@ -38,6 +56,8 @@ public class ItemServiceImpl implements ItemService {
         }
 
         Item newItem = itemMapper.toItem(itemCreateDto);
+        // У новой вещи бронирований нет, пересчитывать границы не нужно
+        newItem.setBookingDatesUntil(ItemBookingDates.NEVER);
 
         if (itemCreateDto.getRequestId() != null) {
             ItemRequest itemRequest = itemRequestRepository.findById(itemCreateDto.getRequestId())
@@ -46,7 +66,10 @@ public class ItemServiceImpl implements ItemService {
             newItem.setRequest(itemRequest);
         }
 
-        return itemMapper.toItemDto(itemRepository.save(newItem));
+        Item savedItem = itemRepository.save(newItem);
+        searchIndex.put(savedItem);
+        itemSuggestions.put(savedItem);
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Override
@@ -68,7 +91,10 @@ public class ItemServiceImpl implements ItemService {
             existingItem.setAvailable(patchItem.getAvailable());
         }
 
-        return itemMapper.toItemDto(itemRepository.save(existingItem));
+        Item savedItem = itemRepository.save(existingItem);
+        searchIndex.put(savedItem);
+        itemSuggestions.put(savedItem);
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Override
@@ -83,13 +109,9 @@ public class ItemServiceImpl implements ItemService {
         ItemDto itemDto = itemMapper.toItemDto(item);
 
         if (item.getOwner().getId().equals(userId)) {
-            LocalDateTime lastBooking = bookingRepository.findLastBookingDate(itemId, LocalDateTime.now())
-                    .orElse(null);
-            itemDto.setLastBooking(lastBooking);
-
-            LocalDateTime nextBooking = bookingRepository.findNextBookingDate(itemId, LocalDateTime.now())
-                    .orElse(null);
-            itemDto.setNextBooking(nextBooking);
+            itemBookingDates.refresh(List.of(item), LocalDateTime.now());
+            itemDto.setLastBooking(item.getLastBooking());
+            itemDto.setNextBooking(item.getNextBooking());
         }
 
         List<Comment> comments = commentRepository.findAllByItem_Id(itemId);
@@ -108,24 +130,24 @@ public class ItemServiceImpl implements ItemService {
         }
 
         List<Item> items = itemRepository.findAllByOwnerId(userId);
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        itemBookingDates.refresh(items, LocalDateTime.now());
+        // Число запросов не зависит от числа вещей: даты бронирований хранятся в items,
+        // комментарии с авторами читаются одним запросом и раскладываются по вещам в памяти
+        Map<Long, List<CommentDto>> comments = commentRepository.findAllByItemIds(items.stream()
+                        .map(Item::getId)
+                        .toList()).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(commentMapper::toCommentDto, Collectors.toList())));
 
         return items.stream()
                 .map(item -> {
                     ItemDto itemDto = itemMapper.toItemDto(item);
-
-                    LocalDateTime lastBooking = bookingRepository.findLastBookingDate(item.getId(), LocalDateTime.now())
-                            .orElse(null);
-                    itemDto.setLastBooking(lastBooking);
-
-                    LocalDateTime nextBooking = bookingRepository.findNextBookingDate(item.getId(), LocalDateTime.now())
-                            .orElse(null);
-                    itemDto.setNextBooking(nextBooking);
-
-                    List<Comment> comments = commentRepository.findAllByItem_Id(item.getId());
-                    List<CommentDto> commentDtos = comments.stream()
-                            .map(commentMapper::toCommentDto)
-                            .collect(Collectors.toList());
-                    itemDto.setComments(commentDtos);
+                    itemDto.setLastBooking(item.getLastBooking());
+                    itemDto.setNextBooking(item.getNextBooking());
+                    itemDto.setComments(comments.getOrDefault(item.getId(), Collections.emptyList()));
 
                     return itemDto;
                 })
@@ -138,12 +160,91 @@ public class ItemServiceImpl implements ItemService {
             return Collections.emptyList();
         }
 
-        List<Item> items = itemRepository.findAllByNameContainsIgnoreCaseOrDescriptionContainsIgnoreCaseAndAvailableIsTrue(text);
+        if (searchIndex.isEnabled()) {
+            return searchIndex.search(text);
+        }
+        List<Item> items = fullTextSearch.isEnabled()
+                ? ranked(fullTextSearch.findAvailableIds(text), itemRepository::findAllById)
+                : itemRepository.findAllByNameContainsIgnoreCaseOrDescriptionContainsIgnoreCaseAndAvailableIsTrue(text);
+        return items.stream()
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ItemDto> searchAvailableItems(String text, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new ValidationException("Окончание периода должно быть позже начала");
+        }
+        if (text == null || text.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Item> items;
+        if (searchIndex.isEnabled() || fullTextSearch.isEnabled()) {
+            List<Long> ids = searchIndex.isEnabled() ? searchIndex.searchIds(text) : fullTextSearch.findAvailableIds(text);
+            items = ranked(ids, found -> itemRepository.findAvailableInPeriod(found, from, to,
+                    BookingIntervalIndex.ACTIVE_STATUSES));
+        } else {
+            items = itemRepository.findAvailableByTextInPeriod(text, from, to, BookingIntervalIndex.ACTIVE_STATUSES);
+        }
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Повторы серий, идущих в это окно, проверяем без разворачивания
+        Set<Long> busy = bookingRepository.findSeriesForItems(items.stream().map(Item::getId).toList(),
+                        BookingIntervalIndex.ACTIVE_STATUSES, from, to).stream()
+                .filter(series -> BookingRecurrence.of(series).overlaps(from, to))
+                .map(series -> series.getItem().getId())
+                .collect(Collectors.toSet());
         return items.stream()
+                .filter(item -> !busy.contains(item.getId()))
                 .map(itemMapper::toItemDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<ItemSuggestionDto> suggestItems(String prefix, int limit) {
+        if (limit < 1 || limit > ItemSuggestions.TOP_K) {
+            throw new ValidationException("Число подсказок должно быть от 1 до " + ItemSuggestions.TOP_K);
+        }
+        return itemSuggestions.suggest(prefix, limit);
+    }
+
+    @Override
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to,
+                                               AvailabilityGranularity granularity) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new ValidationException("Окончание периода должно быть позже начала");
+        }
+
+        LocalDateTime start = from.truncatedTo(granularity.getUnit());
+        if (granularity.getUnit().between(start, to) >= MAX_AVAILABILITY_SLOTS) {
+            throw new ValidationException("Период календаря не может содержать больше " + MAX_AVAILABILITY_SLOTS + " слотов");
+        }
+
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Вещь с id " + itemId + " не найдена.");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingPeriod> busy = intervalIndex.busyPeriods(itemId, start, to);
+        List<AvailabilitySlotDto> slots = new ArrayList<>();
+        int next = 0;
+        for (LocalDateTime slotStart = start; slotStart.isBefore(to); slotStart = slotStart.plus(1, granularity.getUnit())) {
+            LocalDateTime slotEnd = slotStart.plus(1, granularity.getUnit());
+            // Периоды отсортированы и не пересекаются: пропускаем закончившиеся до начала слота
+            while (next < busy.size() && !busy.get(next).getEnd().isAfter(slotStart)) {
+                next++;
+            }
+            boolean occupied = next < busy.size() && busy.get(next).getStart().isBefore(slotEnd);
+            // Прошедшие слоты забронировать уже нельзя
+            slots.add(new AvailabilitySlotDto(slotStart, slotEnd, !occupied && slotEnd.isAfter(now)));
+        }
+
+        return new ItemAvailabilityDto(itemId, granularity, slots);
+    }
+
     @Override
     public boolean existsUserById(long userId) {
         return userRepository.existsById(userId);
@@ -168,4 +269,20 @@ public class ItemServiceImpl implements ItemService {
 
         return commentMapper.toCommentDto(commentRepository.save(commentMapper.toComment(commentCreateDto, now)));
     }
-}
\ No newline at end of file
+
+    /**
+     * Загружает вещи по id и возвращает их в порядке ids (по релевантности поиска).
+     */
+    private static List<Item> ranked(List<Long> ids, Function<List<Long>, List<Item>> loader) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Integer> rank = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        return loader.apply(ids).stream()
+                .sorted(Comparator.comparing(item -> rank.get(item.getId())))
+                .toList();
+    }
+}
@@ -6,6 +6,8 @@ import lombok.Setter;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+
 /**
  * TODO Sprint add-controllers.
  */
@@ -35,4 +37,14 @@ public class Item {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private ItemRequest request;
+
+    // Поддерживаются ItemBookingDates через JDBC, поэтому JPA их не пишет
+    @Column(name = "last_booking", insertable = false, updatable = false)
+    private LocalDateTime lastBooking;
+
+    @Column(name = "next_booking", insertable = false, updatable = false)
+    private LocalDateTime nextBooking;
+
+    @Column(name = "booking_dates_until", updatable = false)
+    private LocalDateTime bookingDatesUntil;
 }
\ No newline at end of file
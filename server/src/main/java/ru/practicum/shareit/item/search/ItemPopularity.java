@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Вещь для подсказок: название, доступность и сколько раз её бронировали.
+ */
+@Getter
+@AllArgsConstructor
+public class ItemPopularity {
+    private final Long id;
+    private final String name;
+    private final Boolean available;
+    private final Long bookings;
+}
@@ -0,0 +1,355 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchMode;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс вещей в памяти для shareit.items.search.mode=INDEX и FUZZY. Названия и описания
+ * разбиваются на основы слов ({@link ItemTokenizer}), для каждой основы хранится список документов
+ * с частотами в примитивных массивах. Запрос находит вещи хотя бы с одним словом и ранжирует их по BM25;
+ * слова названия считаются NAME_WEIGHT раз. Индекс хранит и сами поля вещи, поэтому поиск
+ * не обращается к базе. В режиме FUZZY слово запроса, которого нет в индексе, заменяется ближайшими
+ * словами индекса на расстоянии до MAX_EDIT_DISTANCE правок ({@link SpellingDictionary}).
+ * Индекс заполняется при старте и обновляется сервисом после сохранения вещи. Изменённая вещь
+ * получает новый документ, старый помечается удалённым; когда удалённых становится больше живых,
+ * индекс перестраивается.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    static final int NAME_WEIGHT = 2;
+    // Перестройка не запускается ради нескольких удалённых документов
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+    static final int MAX_EDIT_DISTANCE = 2;
+    // Вклад слова, найденного с опечаткой, умножается на FUZZY_WEIGHT за каждую правку
+    static final double FUZZY_WEIGHT = 0.5;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final boolean fuzzy;
+    private final int loadPageSize;
+    private volatile boolean loaded;
+
+    // Всё ниже читается под lock.readLock(), меняется под lock.writeLock()
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, TermPostings> terms = new HashMap<>();
+    private final Map<Long, Integer> docByItem = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet available = new BitSet();
+    // Только в режиме FUZZY: основы всех проиндексированных слов
+    private SpellingDictionary dictionary;
+    private long[] itemIds = new long[16];
+    private String[] names = new String[16];
+    private String[] descriptions = new String[16];
+    private int[] lengths = new int[16];
+    private int docCount;
+    private int liveCount;
+    private long totalLength;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.items.search.mode:LIKE}") ItemSearchMode mode,
+                           @Value("${shareit.items.search.index.load-page-size:1000}") int loadPageSize) {
+        this.itemRepository = itemRepository;
+        this.enabled = mode == ItemSearchMode.INDEX || mode == ItemSearchMode.FUZZY;
+        this.fuzzy = mode == ItemSearchMode.FUZZY;
+        this.dictionary = fuzzy ? new SpellingDictionary(MAX_EDIT_DISTANCE) : null;
+        this.loadPageSize = loadPageSize;
+    }
+
+    /**
+     * Индекс включён и уже заполнен. До окончания загрузки сервис ищет через базу.
+     */
+    public boolean isEnabled() {
+        return enabled && loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long afterId = 0;
+        int loadedItems = 0;
+        while (true) {
+            List<Item> page = itemRepository.findPageAfter(afterId, PageRequest.of(0, loadPageSize));
+            lock.writeLock().lock();
+            try {
+                // Вещь, сохранённая во время загрузки, уже проиндексирована в свежем виде
+                page.stream()
+                        .filter(item -> !docByItem.containsKey(item.getId()))
+                        .forEach(this::add);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loadedItems += page.size();
+            if (page.size() < loadPageSize) {
+                break;
+            }
+            afterId = page.getLast().getId();
+        }
+        loaded = true;
+        log.info("Indexed {} items for search", loadedItems);
+    }
+
+    /**
+     * Добавляет вещь или заменяет её прежнюю версию. Смена только available не переиндексирует текст.
+     */
+    public void put(Item item) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByItem.get(item.getId());
+            if (doc != null && names[doc].equals(item.getName()) && descriptions[doc].equals(item.getDescription())) {
+                available.set(doc, Boolean.TRUE.equals(item.getAvailable()));
+                return;
+            }
+            if (doc != null) {
+                remove(doc);
+            }
+            add(item);
+            if (docCount - liveCount > Math.max(MIN_DEAD_TO_COMPACT, liveCount)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Доступные вещи, в названии или описании которых есть хотя бы одно слово text, от более
+     * релевантных к менее.
+     */
+    public List<ItemDto> search(String text) {
+        lock.readLock().lock();
+        try {
+            int[] docs = rank(text);
+            List<ItemDto> items = new ArrayList<>(docs.length);
+            for (int doc : docs) {
+                items.add(new ItemDto(itemIds[doc], names[doc], descriptions[doc], true, null, null, null));
+            }
+            return items;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * То же, что {@link #search}, но только id вещей.
+     */
+    public List<Long> searchIds(String text) {
+        lock.readLock().lock();
+        try {
+            int[] docs = rank(text);
+            List<Long> ids = new ArrayList<>(docs.length);
+            for (int doc : docs) {
+                ids.add(itemIds[doc]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int documents() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Документы, отсортированные по убыванию BM25, при равенстве - по порядку индексации.
+     * Списки слов запроса обходятся одновременно по возрастанию номера документа, поэтому
+     * оценка не требует ни массива на все документы, ни коллекций с упаковкой.
+     */
+    private int[] rank(String text) {
+        List<TermPostings> lists = new ArrayList<>();
+        List<Integer> edits = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(ItemTokenizer.tokenize(text))) {
+            TermPostings postings = terms.get(term);
+            if (postings != null && postings.liveDocs() > 0) {
+                lists.add(postings);
+                edits.add(0);
+            } else if (dictionary != null) {
+                // Слова нет в индексе: берём ближайшие по числу правок слова словаря
+                for (String correction : dictionary.lookup(term)) {
+                    TermPostings corrected = terms.get(correction);
+                    if (corrected.liveDocs() > 0) {
+                        lists.add(corrected);
+                        edits.add(SpellingDictionary.distance(term, correction, MAX_EDIT_DISTANCE));
+                    }
+                }
+            }
+        }
+        if (lists.isEmpty() || liveCount == 0) {
+            return new int[0];
+        }
+
+        double averageLength = (double) totalLength / liveCount;
+        double[] idf = new double[lists.size()];
+        for (int t = 0; t < lists.size(); t++) {
+            int df = lists.get(t).liveDocs();
+            idf[t] = Math.log(1 + (liveCount - df + 0.5) / (df + 0.5)) * Math.pow(FUZZY_WEIGHT, edits.get(t));
+        }
+
+        int[] positions = new int[lists.size()];
+        int[] docs = new int[16];
+        float[] scores = new float[16];
+        int found = 0;
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (int t = 0; t < lists.size(); t++) {
+                if (positions[t] < lists.get(t).size()) {
+                    doc = Math.min(doc, lists.get(t).doc(positions[t]));
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+
+            boolean matches = live.get(doc) && available.get(doc);
+            double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+            double score = 0;
+            for (int t = 0; t < lists.size(); t++) {
+                TermPostings postings = lists.get(t);
+                if (positions[t] < postings.size() && postings.doc(positions[t]) == doc) {
+                    int tf = postings.freq(positions[t]);
+                    score += idf[t] * tf * (K1 + 1) / (tf + norm);
+                    positions[t]++;
+                }
+            }
+            if (matches) {
+                if (found == docs.length) {
+                    docs = Arrays.copyOf(docs, found * 2);
+                    scores = Arrays.copyOf(scores, found * 2);
+                }
+                docs[found] = doc;
+                scores[found] = (float) score;
+                found++;
+            }
+        }
+
+        // Оценки положительны, поэтому биты float упорядочены как сами числа: сортируем ключи
+        // "оценка, обратный номер документа" и читаем с конца
+        long[] keys = new long[found];
+        for (int i = 0; i < found; i++) {
+            keys[i] = ((long) Float.floatToIntBits(scores[i]) << 32) | (Integer.MAX_VALUE - docs[i]);
+        }
+        Arrays.sort(keys);
+        int[] ranked = new int[found];
+        for (int i = 0; i < found; i++) {
+            ranked[i] = Integer.MAX_VALUE - (int) keys[found - 1 - i];
+        }
+        return ranked;
+    }
+
+    private void add(Item item) {
+        int doc = docCount++;
+        if (doc == itemIds.length) {
+            int capacity = doc * 2;
+            itemIds = Arrays.copyOf(itemIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        itemIds[doc] = item.getId();
+        names[doc] = item.getName();
+        descriptions[doc] = item.getDescription();
+        live.set(doc);
+        available.set(doc, Boolean.TRUE.equals(item.getAvailable()));
+        docByItem.put(item.getId(), doc);
+
+        Map<String, Integer> freqs = frequencies(item.getName(), item.getDescription());
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), term -> new TermPostings()).add(doc, entry.getValue());
+            length += entry.getValue();
+            if (dictionary != null) {
+                dictionary.add(entry.getKey());
+            }
+        }
+        lengths[doc] = length;
+        totalLength += length;
+        liveCount++;
+    }
+
+    private void remove(int doc) {
+        for (String term : frequencies(names[doc], descriptions[doc]).keySet()) {
+            terms.get(term).removeLive();
+        }
+        live.clear(doc);
+        available.clear(doc);
+        docByItem.remove(itemIds[doc]);
+        totalLength -= lengths[doc];
+        liveCount--;
+    }
+
+    private void compact() {
+        List<Item> items = new ArrayList<>(liveCount);
+        for (int doc = live.nextSetBit(0); doc >= 0; doc = live.nextSetBit(doc + 1)) {
+            Item item = new Item();
+            item.setId(itemIds[doc]);
+            item.setName(names[doc]);
+            item.setDescription(descriptions[doc]);
+            item.setAvailable(available.get(doc));
+            items.add(item);
+        }
+        terms.clear();
+        // Словарь собирается заново, чтобы в нём не остались слова только удалённых документов
+        dictionary = fuzzy ? new SpellingDictionary(MAX_EDIT_DISTANCE) : null;
+        docByItem.clear();
+        live.clear();
+        available.clear();
+        Arrays.fill(names, null);
+        Arrays.fill(descriptions, null);
+        docCount = 0;
+        liveCount = 0;
+        totalLength = 0;
+        items.forEach(this::add);
+        log.debug("Compacted item search index to {} documents", docCount);
+    }
+
+    private static Map<String, Integer> frequencies(String name, String description) {
+        Map<String, Integer> freqs = new HashMap<>();
+        for (String token : ItemTokenizer.tokenize(name)) {
+            freqs.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : ItemTokenizer.tokenize(description)) {
+            freqs.merge(token, 1, Integer::sum);
+        }
+        return freqs;
+    }
+}
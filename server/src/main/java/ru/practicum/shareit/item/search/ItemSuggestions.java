@@ -0,0 +1,388 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Подсказки по началу названия доступных вещей. Названия лежат в префиксном дереве с начала каждого
+ * слова, так что "дре" находит и "Дрель", и "Ударная дрель". В каждом узле заранее хранятся TOP_K самых
+ * популярных (чаще всего бронируемых) вещей его поддерева, поэтому ответ - это спуск по буквам
+ * префикса без обхода поддерева. Дети узла хранятся в отсортированных массивах, а не в таблицах.
+ * Дерево заполняется при старте, обновляется сервисом после сохранения вещи и по новым бронированиям.
+ */
+@Slf4j
+@Component
+public class ItemSuggestions {
+    public static final int TOP_K = 10;
+    // Дальше этой длины ключи не ветвятся: подсказки по более длинному префиксу ищутся по его началу
+    static final int MAX_KEY_LENGTH = 64;
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong((Entry entry) -> -entry.popularity)
+            .thenComparingLong(entry -> entry.itemId);
+
+    private final ItemRepository itemRepository;
+    private final int loadPageSize;
+
+    // Всё ниже читается под lock.readLock(), меняется под lock.writeLock()
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node();
+    // Все известные вещи, в том числе недоступные: их популярность нужна, когда вещь снова станет доступной
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    public ItemSuggestions(ItemRepository itemRepository,
+                           @Value("${shareit.items.suggest.load-page-size:1000}") int loadPageSize) {
+        this.itemRepository = itemRepository;
+        this.loadPageSize = loadPageSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = 0;
+        int loaded = 0;
+        while (true) {
+            List<ItemPopularity> page = itemRepository.findPopularityPageAfter(afterId,
+                    PageRequest.of(0, loadPageSize));
+            lock.writeLock().lock();
+            try {
+                for (ItemPopularity item : page) {
+                    merge(item);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded += page.size();
+            if (page.size() < loadPageSize) {
+                break;
+            }
+            afterId = page.getLast().getId();
+        }
+        log.info("Loaded {} items for suggestions", loaded);
+    }
+
+    /**
+     * Вещь, которую до загрузки уже сохранили или забронировали, остаётся в дереве, но получает
+     * популярность из базы. Изменения из событий и из страницы могут пересекаться, поэтому берётся
+     * максимум, а не сумма: счётчик может ненадолго отстать, но не удвоится.
+     */
+    private void merge(ItemPopularity item) {
+        Entry entry = entries.get(item.getId());
+        if (entry == null) {
+            entry = new Entry(item.getId(), item.getName(), item.getBookings());
+            entries.put(entry.itemId, entry);
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                insert(entry);
+            }
+            return;
+        }
+        entry.popularity = Math.max(entry.popularity, item.getBookings());
+        if (entry.name == null) {
+            // Заготовка из onBookingChanged: название и доступность известны только из базы
+            entry.name = item.getName();
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                insert(entry);
+            }
+        } else if (entry.indexed) {
+            raise(entry);
+        }
+    }
+
+    /**
+     * Добавляет вещь или обновляет её название и доступность; популярность сохраняется.
+     */
+    public void put(Item item) {
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(item.getId());
+            if (entry == null) {
+                entry = new Entry(item.getId(), item.getName(), 0);
+                entries.put(entry.itemId, entry);
+            } else if (entry.indexed && (!available || !entry.name.equals(item.getName()))) {
+                remove(entry);
+            }
+            entry.name = item.getName();
+            if (available && !entry.indexed) {
+                insert(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Откатившееся бронирование популярность не меняет
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getOldStatus() != null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(event.getItemId());
+            if (entry == null) {
+                // Загрузка до вещи ещё не дошла: бронирование запоминается в заготовке без названия,
+                // которую load() дополнит данными из базы
+                entry = new Entry(event.getItemId(), null, 0);
+                entries.put(entry.itemId, entry);
+            }
+            entry.popularity++;
+            if (entry.indexed) {
+                raise(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * До limit (не больше TOP_K) доступных вещей, в названии которых есть слово, начинающееся
+     * с prefix, от более популярных к менее.
+     */
+    public List<ItemSuggestionDto> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        key = key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            List<ItemSuggestionDto> suggestions = new ArrayList<>(Math.min(limit, node.topCount));
+            for (int i = 0; i < Math.min(limit, node.topCount); i++) {
+                suggestions.add(new ItemSuggestionDto(node.top[i].itemId, node.top[i].name));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int nodes() {
+        lock.readLock().lock();
+        try {
+            return root.count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Популярность только растёт: вещь может лишь подняться в узлах своих путей
+    private void raise(Entry entry) {
+        for (String key : keys(entry.name)) {
+            Node node = root;
+            offer(node, entry);
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+                if (node != null) {
+                    offer(node, entry);
+                }
+            }
+        }
+    }
+
+    private void insert(Entry entry) {
+        for (String key : keys(entry.name)) {
+            Node node = root;
+            offer(node, entry);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+                offer(node, entry);
+            }
+            node.addOwn(entry);
+        }
+        entry.indexed = true;
+    }
+
+    private void remove(Entry entry) {
+        entry.indexed = false;
+        for (String key : keys(entry.name)) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = path[i].child(key.charAt(i));
+            }
+            path[key.length()].removeOwn(entry);
+            // Снизу вверх: узел без своих вещей и детей удаляется, освободившееся место в top
+            // заполняется из детей
+            for (int depth = key.length(); depth >= 0; depth--) {
+                Node node = path[depth];
+                if (depth > 0 && node.ownCount == 0 && node.childCount == 0) {
+                    path[depth - 1].removeChild(key.charAt(depth - 1));
+                } else if (node.topIndexOf(entry) >= 0) {
+                    recompute(node);
+                }
+            }
+        }
+    }
+
+    private static void offer(Node node, Entry entry) {
+        int i = node.topIndexOf(entry);
+        if (i < 0) {
+            if (node.topCount < TOP_K) {
+                if (node.top.length == node.topCount) {
+                    node.top = Arrays.copyOf(node.top, Math.min(TOP_K, Math.max(2, node.topCount * 2)));
+                }
+                i = node.topCount++;
+            } else if (ORDER.compare(entry, node.top[TOP_K - 1]) < 0) {
+                i = TOP_K - 1;
+            } else {
+                return;
+            }
+            node.top[i] = entry;
+        }
+        while (i > 0 && ORDER.compare(node.top[i], node.top[i - 1]) < 0) {
+            Entry previous = node.top[i - 1];
+            node.top[i - 1] = node.top[i];
+            node.top[i] = previous;
+            i--;
+        }
+    }
+
+    private static void recompute(Node node) {
+        List<Entry> candidates = new ArrayList<>(node.ownCount + node.childCount * TOP_K);
+        candidates.addAll(Arrays.asList(node.own).subList(0, node.ownCount));
+        for (int c = 0; c < node.childCount; c++) {
+            Node child = node.children[c];
+            candidates.addAll(Arrays.asList(child.top).subList(0, child.topCount));
+        }
+        // Одна вещь может попасть в несколько поддеревьев
+        List<Entry> best = new LinkedHashSet<>(candidates).stream().sorted(ORDER).limit(TOP_K).toList();
+        node.top = best.toArray(new Entry[0]);
+        node.topCount = node.top.length;
+    }
+
+    static List<String> keys(String name) {
+        String normalized = normalize(name);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1)))) {
+                keys.add(normalized.substring(i, Math.min(normalized.length(), i + MAX_KEY_LENGTH)));
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replace('ё', 'е').replaceAll("\\s+", " ").stripLeading();
+    }
+
+    private static final class Entry {
+        private final long itemId;
+        private String name;
+        private long popularity;
+        // Вещь доступна и лежит в дереве
+        private boolean indexed;
+
+        private Entry(long itemId, String name, long popularity) {
+            this.itemId = itemId;
+            this.name = name;
+            this.popularity = popularity;
+        }
+    }
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+        // Вещи, у которых ключ заканчивается в этом узле
+        private Entry[] own = NO_ENTRIES;
+        private int ownCount;
+        private Entry[] top = NO_ENTRIES;
+        private int topCount;
+
+        private Node child(char key) {
+            int i = Arrays.binarySearch(keys, 0, childCount, key);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private Node childOrCreate(char key) {
+            int i = Arrays.binarySearch(keys, 0, childCount, key);
+            if (i >= 0) {
+                return children[i];
+            }
+            i = -i - 1;
+            if (childCount == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(2, childCount * 2));
+                children = Arrays.copyOf(children, keys.length);
+            }
+            System.arraycopy(keys, i, keys, i + 1, childCount - i);
+            System.arraycopy(children, i, children, i + 1, childCount - i);
+            keys[i] = key;
+            children[i] = new Node();
+            childCount++;
+            return children[i];
+        }
+
+        private void removeChild(char key) {
+            int i = Arrays.binarySearch(keys, 0, childCount, key);
+            System.arraycopy(keys, i + 1, keys, i, childCount - i - 1);
+            System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+            childCount--;
+            children[childCount] = null;
+        }
+
+        private void addOwn(Entry entry) {
+            if (ownCount == own.length) {
+                own = Arrays.copyOf(own, Math.max(1, ownCount * 2));
+            }
+            own[ownCount++] = entry;
+        }
+
+        private void removeOwn(Entry entry) {
+            for (int i = 0; i < ownCount; i++) {
+                if (own[i] == entry) {
+                    own[i] = own[--ownCount];
+                    own[ownCount] = null;
+                    return;
+                }
+            }
+        }
+
+        private int topIndexOf(Entry entry) {
+            for (int i = 0; i < topCount; i++) {
+                if (top[i] == entry) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int count() {
+            int count = 1;
+            for (int i = 0; i < childCount; i++) {
+                count += children[i].count();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбивает текст на слова и приводит их к основе. Слова кириллицей и латиницей обрабатываются
+ * упрощёнными правилами русского и английского стемминга: отбрасываются типичные окончания,
+ * так что "дрель", "дрели" и "дрелью" или "drill", "drills" и "drilling" дают одну основу.
+ * Правила одинаковы для индексации и запроса, поэтому неточность основы на поиск не влияет.
+ */
+final class ItemTokenizer {
+    // Основа короче не обрезается, чтобы короткие слова не сливались друг с другом
+    private static final int MIN_STEM = 3;
+    // От длинных окончаний к коротким: срезается самое длинное подходящее
+    private static final String[] RUSSIAN_ENDINGS = {
+            "остями", "остью", "иями", "ости", "ость", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими",
+            "ией", "ать", "ять", "ить", "ешь", "ете", "ишь", "ите", "ует", "уют", "ют", "ая", "яя", "ое", "ее",
+            "ые", "ие", "ый", "ий", "ой", "ей", "ом", "ем", "ам", "ям", "ах", "ях", "ую", "юю", "ов", "ев", "ью",
+            "ы", "и", "а", "я", "о", "е", "у", "ю", "ь", "й"
+    };
+
+    private ItemTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                tokens.add(stem(word));
+            }
+        }
+        return tokens;
+    }
+
+    static String stem(String word) {
+        if (word.length() <= MIN_STEM) {
+            return word;
+        }
+        char first = word.charAt(0);
+        if (Character.UnicodeScript.of(first) == Character.UnicodeScript.CYRILLIC) {
+            return stemRussian(word);
+        }
+        if (first >= 'a' && first <= 'z') {
+            return stemEnglish(word);
+        }
+        return word;
+    }
+
+    private static String stemRussian(String word) {
+        for (String ending : RUSSIAN_ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static String stemEnglish(String word) {
+        String stem = word;
+        if (stem.endsWith("sses")) {
+            stem = stem.substring(0, stem.length() - 2);
+        } else if (stem.endsWith("ies")) {
+            stem = stem.substring(0, stem.length() - 2);
+        } else if (stem.endsWith("s") && !stem.endsWith("ss") && !stem.endsWith("us")) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+
+        for (String suffix : new String[]{"ing", "ed"}) {
+            if (stem.endsWith(suffix) && stem.length() - suffix.length() >= MIN_STEM) {
+                stem = stem.substring(0, stem.length() - suffix.length());
+                // cutting -> cutt -> cut
+                int n = stem.length();
+                if (stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0) {
+                    stem = stem.substring(0, n - 1);
+                }
+                break;
+            }
+        }
+
+        if (stem.length() > MIN_STEM && (stem.endsWith("y") || stem.endsWith("e"))) {
+            // battery/batteries -> batteri, drive/driving -> driv
+            stem = stem.endsWith("y") ? stem.substring(0, stem.length() - 1) + "i" : stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+}
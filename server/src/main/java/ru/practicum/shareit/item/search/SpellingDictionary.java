@@ -0,0 +1,162 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Словарь для поиска с опечатками по схеме SymSpell. Для каждого слова заранее записываются все
+ * варианты его начала (первые PREFIX_LENGTH символов) без одного и двух символов. Для запроса
+ * строятся такие же варианты, и слова словаря, у которых хотя бы один вариант совпал, проверяются
+ * точным расстоянием Дамерау-Левенштейна. Поиск стоит несколько десятков обращений к хеш-таблице
+ * независимо от размера словаря. Не потокобезопасен.
+ */
+final class SpellingDictionary {
+    // Варианты строятся только по началу слова: так их число не растёт с длиной слова
+    static final int PREFIX_LENGTH = 7;
+
+    private final int maxDistance;
+    private final Set<String> words = new HashSet<>();
+    private final Map<String, Bucket> deletes = new HashMap<>();
+
+    SpellingDictionary(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    void add(String word) {
+        if (!words.add(word)) {
+            return;
+        }
+        for (String delete : deletes(word, maxDistance)) {
+            deletes.computeIfAbsent(delete, key -> new Bucket()).add(word);
+        }
+    }
+
+    int size() {
+        return words.size();
+    }
+
+    /**
+     * Слова словаря, ближайшие к word, если до них не больше допустимого для длины word числа правок.
+     * Само word, если оно есть в словаре, не возвращается.
+     */
+    List<String> lookup(String word) {
+        int allowed = Math.min(maxDistance, allowedDistance(word));
+        List<String> closest = new ArrayList<>();
+        if (allowed == 0) {
+            return closest;
+        }
+        int best = allowed + 1;
+        Set<String> checked = new HashSet<>();
+        for (String delete : deletes(word, allowed)) {
+            Bucket bucket = deletes.get(delete);
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                String candidate = bucket.words[i];
+                if (candidate.equals(word) || Math.abs(candidate.length() - word.length()) > allowed
+                        || !checked.add(candidate)) {
+                    continue;
+                }
+                int distance = distance(word, candidate, Math.min(best, allowed));
+                if (distance > allowed) {
+                    continue;
+                }
+                if (distance < best) {
+                    best = distance;
+                    closest.clear();
+                }
+                if (distance == best) {
+                    closest.add(candidate);
+                }
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Допустимое число опечаток: в коротком слове одна правка слишком сильно меняет смысл.
+     */
+    static int allowedDistance(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Расстояние Дамерау-Левенштейна (с перестановкой соседних символов) или max + 1, если оно больше max.
+     */
+    static int distance(String first, String second, int max) {
+        int n = first.length();
+        int m = second.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] previousPrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    private static Set<String> deletes(String word, int distance) {
+        Set<String> result = new HashSet<>();
+        String prefix = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+        result.add(prefix);
+        List<String> level = List.of(prefix);
+        for (int d = 0; d < distance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String variant : level) {
+                for (int i = 0; i < variant.length(); i++) {
+                    String delete = variant.substring(0, i) + variant.substring(i + 1);
+                    if (result.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            level = next;
+        }
+        return result;
+    }
+
+    private static final class Bucket {
+        private String[] words = new String[2];
+        private int size;
+
+        private void add(String word) {
+            if (size == words.length) {
+                words = Arrays.copyOf(words, size * 2);
+            }
+            words[size++] = word;
+        }
+    }
+}
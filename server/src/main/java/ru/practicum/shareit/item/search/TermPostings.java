@@ -0,0 +1,49 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+/**
+ * Список вхождений слова: номера документов по возрастанию и взвешенная частота слова в каждом.
+ * Хранится в примитивных массивах, растущих удвоением. Не потокобезопасен.
+ */
+final class TermPostings {
+    private int[] docs = new int[4];
+    private int[] freqs = new int[4];
+    private int size;
+    // Число живых документов со словом (для idf): удалённые документы остаются в списке до перестройки
+    private int liveDocs;
+
+    /**
+     * Добавляет документ. Документы добавляются в порядке возрастания номера.
+     */
+    void add(int doc, int freq) {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            freqs = Arrays.copyOf(freqs, size * 2);
+        }
+        docs[size] = doc;
+        freqs[size] = freq;
+        size++;
+        liveDocs++;
+    }
+
+    void removeLive() {
+        liveDocs--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int doc(int position) {
+        return docs[position];
+    }
+
+    int freq(int position) {
+        return freqs[position];
+    }
+
+    int liveDocs() {
+        return liveDocs;
+    }
+}
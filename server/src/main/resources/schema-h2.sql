@@ -0,0 +1,15 @@
+-- Только для H2 (профиль test). H2 заводит под внешний ключ свой индекс, если нет индекса ровно
+-- из тех же колонок, и при поиске по первой колонке предпочитает его составному индексу из
+-- schema.sql. В PostgreSQL таких индексов нет, поэтому приводим H2 к тому же набору индексов:
+-- ключи, для которых в schema.sql есть индекс из тех же колонок, пересоздаются и используют его,
+-- а ключи, закрытые только составным индексом, удаляются - существование пользователя, вещи
+-- и запроса проверяют сервисы
+ALTER TABLE item_requests DROP CONSTRAINT IF EXISTS fk_request_requester;
+ALTER TABLE items DROP CONSTRAINT IF EXISTS fk_items_owner;
+ALTER TABLE bookings DROP CONSTRAINT IF EXISTS fk_booking_item;
+ALTER TABLE bookings DROP CONSTRAINT IF EXISTS fk_booking_booker;
+
+ALTER TABLE items DROP CONSTRAINT IF EXISTS fk_items_request;
+ALTER TABLE items ADD CONSTRAINT fk_items_request FOREIGN KEY (request_id) REFERENCES item_requests(id);
+ALTER TABLE comments DROP CONSTRAINT IF EXISTS fk_comment_item;
+ALTER TABLE comments ADD CONSTRAINT fk_comment_item FOREIGN KEY (item_id) REFERENCES items(id);
@@ -0,0 +1,211 @@
+-- Объекты, которые есть только в PostgreSQL. Скрипт выполняется одним запросом
+-- (см. PostgresSchemaInitializer), поэтому внутри DO-блоков и функций допустимы ';'.
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- bookings секционирована по месяцам start_date. Завершённые месяцы старше горизонта
+-- переносятся в секцию bookings_archive (MINVALUE .. boundary), даты вне созданных
+-- месяцев попадают в bookings_default. Граница архива хранится здесь:
+CREATE TABLE IF NOT EXISTS booking_archive_state (
+    boundary TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+-- Страховка для BookingIntervalIndex: активные бронирования одной вещи не пересекаются во всей
+-- таблице. Исключающее ограничение секционированной таблицы сравнивало бы только строки одной секции,
+-- поэтому проверяет триггер: он берёт advisory-блокировку вещи до конца транзакции (записи одной вещи
+-- идут по очереди, а каждый запрос функции видит уже зафиксированные чужие строки) и ищет пересечение
+-- во всех секциях. Серия хранится одной строкой, поэтому сравниваются её повторы (booking_occurrences):
+-- сначала отбираются бронирования, чей охват start_date .. series_end пересекается с новым.
+-- Ошибка повторяет ошибку ограничения ex_booking_item_period (SQLSTATE 23P01)
+CREATE OR REPLACE FUNCTION booking_occurrences(first_start TIMESTAMP, first_end TIMESTAMP, rule VARCHAR,
+                                               occurrences INTEGER)
+    RETURNS TABLE (occurrence_start TIMESTAMP, occurrence_end TIMESTAMP) AS $fn$
+    -- Шаг отсчитывается от первого повтора, как в BookingRepeat.shift; у разового бронирования повтор один
+    SELECT first_start + step, first_start + step + (first_end - first_start)
+    FROM generate_series(0, COALESCE(occurrences, 1) - 1) AS k,
+         LATERAL (SELECT CASE rule WHEN 'DAILY' THEN make_interval(days => k)
+                                   WHEN 'WEEKLY' THEN make_interval(weeks => k)
+                                   WHEN 'MONTHLY' THEN make_interval(months => k)
+                                   ELSE INTERVAL '0' END AS step) AS s
+$fn$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION booking_check_overlap() RETURNS TRIGGER AS $fn$
+BEGIN
+    IF NEW.status NOT IN ('WAITING', 'APPROVED') THEN
+        RETURN NEW;
+    END IF;
+    PERFORM pg_advisory_xact_lock(7301013, hashint8(NEW.item_id));
+    IF EXISTS (SELECT 1 FROM bookings b
+               WHERE b.item_id = NEW.item_id AND b.id <> NEW.id AND b.status IN ('WAITING', 'APPROVED')
+                 AND tsrange(b.start_date, COALESCE(b.series_end, b.end_date))
+                     && tsrange(NEW.start_date, COALESCE(NEW.series_end, NEW.end_date))
+                 AND EXISTS (SELECT 1
+                             FROM booking_occurrences(b.start_date, b.end_date, b.repeat_rule, b.repeat_count) o
+                             JOIN booking_occurrences(NEW.start_date, NEW.end_date, NEW.repeat_rule,
+                                                      NEW.repeat_count) n
+                               ON tsrange(o.occurrence_start, o.occurrence_end)
+                                  && tsrange(n.occurrence_start, n.occurrence_end))) THEN
+        RAISE EXCEPTION 'conflicting key value violates exclusion constraint "ex_booking_item_period"'
+            USING ERRCODE = 'exclusion_violation', CONSTRAINT = 'ex_booking_item_period',
+                  DETAIL = format('Key (item_id)=(%s) period [%s, %s) overlaps an active booking',
+                                  NEW.item_id, NEW.start_date, NEW.end_date);
+    END IF;
+    RETURN NEW;
+END
+$fn$ LANGUAGE plpgsql;
+
+-- Создаёт секцию месяца и переносит в неё подходящие строки из bookings_default
+CREATE OR REPLACE FUNCTION booking_partition_create(month_start TIMESTAMP) RETURNS VOID AS $fn$
+DECLARE
+    lo TIMESTAMP := date_trunc('month', month_start);
+    hi TIMESTAMP := date_trunc('month', month_start) + INTERVAL '1 month';
+    part TEXT := 'bookings_p' || to_char(month_start, 'YYYYMM');
+BEGIN
+    IF to_regclass(part) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE bookings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part);
+    EXECUTE format('WITH moved AS (DELETE FROM bookings_default WHERE start_date >= %L AND start_date < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', lo, hi, part);
+    EXECUTE format('ALTER TABLE bookings ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', part, lo, hi);
+END
+$fn$ LANGUAGE plpgsql;
+
+-- Создаёт секции на months_ahead месяцев вперёд и переносит в архив месяцы, которые целиком
+-- закончились до archive_before. Возвращает границу архива: всё, что начинается раньше неё,
+-- уже завершено и рассмотрено, поэтому запросы CURRENT/WAITING могут эту секцию не читать
+CREATE OR REPLACE FUNCTION booking_partitions_maintain(months_ahead INT, archive_before TIMESTAMP) RETURNS TIMESTAMP AS $fn$
+DECLARE
+    archive_boundary TIMESTAMP;
+    next_month TIMESTAMP := date_trunc('month', now()::TIMESTAMP);
+    part RECORD;
+BEGIN
+    -- Экземпляры сервера обслуживают секции по очереди; блокировка снимается с концом транзакции
+    PERFORM pg_advisory_xact_lock(7301012);
+    archive_boundary := (SELECT boundary FROM booking_archive_state);
+
+    WHILE next_month <= date_trunc('month', now()::TIMESTAMP) + make_interval(months => months_ahead) LOOP
+        PERFORM booking_partition_create(next_month);
+        next_month := next_month + INTERVAL '1 month';
+    END LOOP;
+
+    FOR part IN
+        SELECT c.relname, to_timestamp(substring(c.relname FROM 11), 'YYYYMM')::TIMESTAMP AS lo
+        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'bookings'::regclass AND c.relname ~ '^bookings_p[0-9]{6}$'
+        ORDER BY c.relname
+    LOOP
+        -- Архив растёт только подряд идущими месяцами
+        EXIT WHEN part.lo <> archive_boundary OR part.lo + INTERVAL '1 month' > archive_before;
+        -- Незавершённые и нерассмотренные бронирования держат месяц вне архива
+        EXIT WHEN EXISTS (SELECT 1 FROM bookings b
+                          WHERE b.start_date >= part.lo AND b.start_date < part.lo + INTERVAL '1 month'
+                            AND (b.end_date >= archive_before OR b.status = 'WAITING'));
+
+        -- Проверка границы при ATTACH читает архив целиком, поэтому задача запускается ночью
+        ALTER TABLE bookings DETACH PARTITION bookings_archive;
+        EXECUTE format('ALTER TABLE bookings DETACH PARTITION %I', part.relname);
+        EXECUTE format('INSERT INTO bookings_archive SELECT * FROM %I', part.relname);
+        EXECUTE format('DROP TABLE %I', part.relname);
+        archive_boundary := part.lo + INTERVAL '1 month';
+        EXECUTE format('ALTER TABLE bookings ATTACH PARTITION bookings_archive FOR VALUES FROM (MINVALUE) TO (%L)',
+                       archive_boundary);
+        UPDATE booking_archive_state SET boundary = archive_boundary;
+    END LOOP;
+
+    RETURN archive_boundary;
+END
+$fn$ LANGUAGE plpgsql;
+
+-- Однократное преобразование bookings из schema.sql в секционированную таблицу
+DO $$
+DECLARE
+    first_month TIMESTAMP;
+    next_month TIMESTAMP;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = 'bookings'::regclass) = 'p' THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE bookings RENAME TO bookings_legacy;
+    ALTER TABLE bookings_legacy RENAME CONSTRAINT pk_booking TO pk_booking_legacy;
+
+    -- Ключ секционирования обязан входить в первичный ключ
+    CREATE TABLE bookings (
+        id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+        start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+        end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+        item_id BIGINT NOT NULL,
+        booker_id BIGINT NOT NULL,
+        status VARCHAR(20) CHECK(status IN ('WAITING', 'APPROVED', 'REJECTED', 'CANCELED')) NOT NULL,
+        version BIGINT DEFAULT 0 NOT NULL,
+        repeat_rule VARCHAR(10),
+        repeat_count INTEGER,
+        series_end TIMESTAMP WITHOUT TIME ZONE,
+
+        CONSTRAINT pk_booking PRIMARY KEY (id, start_date),
+        CONSTRAINT fk_booking_item FOREIGN KEY (item_id) REFERENCES items(id),
+        CONSTRAINT fk_booking_booker FOREIGN KEY (booker_id) REFERENCES users(id)
+    ) PARTITION BY RANGE (start_date);
+
+    first_month := date_trunc('month', COALESCE((SELECT min(start_date) FROM bookings_legacy), now()::TIMESTAMP));
+    CREATE TABLE bookings_default PARTITION OF bookings DEFAULT;
+    EXECUTE format('CREATE TABLE bookings_archive PARTITION OF bookings FOR VALUES FROM (MINVALUE) TO (%L)', first_month);
+    DELETE FROM booking_archive_state;
+    INSERT INTO booking_archive_state (boundary) VALUES (first_month);
+
+    INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status, version,
+                          repeat_rule, repeat_count, series_end)
+    SELECT id, start_date, end_date, item_id, booker_id, status, version,
+           repeat_rule, repeat_count, series_end FROM bookings_legacy;
+    PERFORM setval(pg_get_serial_sequence('bookings', 'id'), COALESCE((SELECT max(id) FROM bookings), 0) + 1, false);
+    DROP TABLE bookings_legacy;
+
+    -- Строки пока лежат в bookings_default и расходятся по месяцам при создании секций;
+    -- будущие месяцы создаст booking_partitions_maintain
+    next_month := first_month;
+    WHILE next_month <= date_trunc('month', now()::TIMESTAMP) LOOP
+        PERFORM booking_partition_create(next_month);
+        next_month := next_month + INTERVAL '1 month';
+    END LOOP;
+END
+$$;
+
+-- Индексы bookings из schema.sql удаляются вместе с bookings_legacy. На секционированной
+-- таблице они создаются заново и наследуются всеми секциями, включая создаваемые позже
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status_start ON bookings (booker_id, status, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date DESC);
+-- Поиск пересечений для booking_check_overlap: у серии охват - от первого до последнего повтора
+DROP INDEX IF EXISTS idx_bookings_item_period;
+CREATE INDEX IF NOT EXISTS idx_bookings_item_span ON bookings
+    USING gist (item_id, tsrange(start_date, COALESCE(series_end, end_date)))
+    WHERE status IN ('WAITING', 'APPROVED');
+
+-- Прежние ограничения ex_booking_item_period_* действовали только внутри своей секции
+DO $$
+DECLARE
+    c RECORD;
+BEGIN
+    FOR c IN SELECT conrelid::regclass AS part, conname FROM pg_constraint
+             WHERE contype = 'x' AND conname LIKE 'ex_booking_item_period_%' LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', c.part, c.conname);
+    END LOOP;
+END
+$$;
+DROP FUNCTION IF EXISTS booking_partition_add_overlap_constraint(TEXT, TEXT);
+
+CREATE OR REPLACE TRIGGER trg_bookings_overlap
+    BEFORE INSERT OR UPDATE OF item_id, start_date, end_date, status, repeat_rule, repeat_count, series_end
+    ON bookings FOR EACH ROW EXECUTE FUNCTION booking_check_overlap();
+
+-- Полнотекстовый поиск вещей (shareit.items.search.mode=FULL_TEXT, см. ItemFullTextSearch): по колонке
+-- на каждую конфигурацию языка, название весит больше описания
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_russian TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', name), 'A') || setweight(to_tsvector('russian', description), 'B')) STORED;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_english TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', name), 'A') || setweight(to_tsvector('english', description), 'B')) STORED;
+CREATE INDEX IF NOT EXISTS idx_items_search_russian ON items USING GIN (search_russian);
+CREATE INDEX IF NOT EXISTS idx_items_search_english ON items USING GIN (search_english);
@@ -28,6 +28,12 @@ CREATE TABLE IF NOT EXISTS items (
     CONSTRAINT fk_items_request FOREIGN KEY (request_id) REFERENCES item_requests(id)
  );
 
+-- Границы последнего и ближайшего бронирования вещи (см. ItemBookingDates). Колонки добавляются
+-- отдельно, чтобы появиться и в уже созданной таблице; NULL в booking_dates_until - ещё не рассчитаны
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking TIMESTAMP WITHOUT TIME ZONE;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking TIMESTAMP WITHOUT TIME ZONE;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS booking_dates_until TIMESTAMP WITHOUT TIME ZONE;
+
 CREATE TABLE IF NOT EXISTS bookings (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
@@ -41,6 +47,13 @@ CREATE TABLE IF NOT EXISTS bookings (
     CONSTRAINT fk_booking_booker FOREIGN KEY (booker_id) REFERENCES users(id)
 );
 
+-- Номер версии строки: рассмотрение бронирования меняет статус только при совпадении версии
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+-- Повторяющееся бронирование - одна строка с правилом; у разовых колонки пустые
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS repeat_rule VARCHAR(10);
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS repeat_count INTEGER;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS series_end TIMESTAMP WITHOUT TIME ZONE;
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     text TEXT NOT NULL,
@@ -51,4 +64,21 @@ CREATE TABLE IF NOT EXISTS comments (
     CONSTRAINT pk_comment PRIMARY KEY (id),
     CONSTRAINT fk_comment_item FOREIGN KEY (item_id) REFERENCES items(id),
     CONSTRAINT fk_comment_author FOREIGN KEY (author_id) REFERENCES users(id)
-);
\ No newline at end of file
+);
+
+-- Индексы под фильтр и сортировку запросов репозиториев
+CREATE INDEX IF NOT EXISTS idx_item_requests_requester_created ON item_requests (requester_id, created DESC);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+CREATE INDEX IF NOT EXISTS idx_items_booking_dates_until ON items (booking_dates_until);
+
+-- Списки арендатора: WHERE booker_id [AND status] ORDER BY start_date DESC, id DESC. Из индексов
+-- равной стоимости H2 берёт созданный раньше, поэтому индекс со status идёт первым
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status_start ON bookings (booker_id, status, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+-- Списки владельца (через items.owner_id), занятые периоды и границы бронирований вещи
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date DESC);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
@@ -1,18 +1,33 @@
 package ru.practicum.shareit;
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.BookingBatchMode;
 import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.booking.BookingCursor;
+import ru.practicum.shareit.booking.BookingExpiryJob;
+import ru.practicum.shareit.booking.BookingExportFormat;
+import ru.practicum.shareit.booking.BookingRepeat;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingServiceImpl;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.ForbiddenOperationException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.AvailabilityGranularity;
 import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemBookingDates;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.ItemServiceImpl;
 import ru.practicum.shareit.item.dto.*;
@@ -30,12 +45,17 @@ import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserPatchDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(
@@ -53,6 +73,9 @@ class IntegrationTest {
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final BookingExpiryJob bookingExpiryJob;
+    private final ItemBookingDates itemBookingDates;
+    private final EntityManager entityManager;
 
     @Test
     public void testGetItemsFromUser() {
@@ -74,6 +97,51 @@ class IntegrationTest {
         assertThat(items.get(0).getName()).isEqualTo("Test Item");
     }
 
+    @Test
+    public void integrationTest_getItemsFromUser_ReadsBookingDatesFromItemRow() {
+        User owner = new User();
+        owner.setName("Вера Сорокина");
+        owner.setEmail("sorokina@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Глеб Носов");
+        client.setEmail("nosov@example.com");
+        userRepository.save(client);
+
+        ItemCreateDto itemCreateDto = new ItemCreateDto();
+        itemCreateDto.setName("Байдарка");
+        itemCreateDto.setDescription("Двухместная байдарка");
+        itemCreateDto.setAvailable(true);
+        itemCreateDto.setOwner(owner.getId());
+        Long itemId = itemService.addItem(itemCreateDto).getId();
+        Item item = itemRepository.findById(itemId).orElseThrow();
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        BookingDto first = bookingService.createBooking(bookingOf(client, item, now.plusDays(1), now.plusDays(2)));
+        BookingDto second = bookingService.createBooking(bookingOf(client, item, now.plusDays(3), now.plusDays(4)));
+        // Границы обновлены в items через JDBC, сущности из контекста устарели
+        entityManager.clear();
+
+        Item stored = itemRepository.findById(itemId).orElseThrow();
+        assertThat(stored.getNextBooking()).isEqualTo(first.getStart());
+        assertThat(stored.getBookingDatesUntil()).isEqualTo(first.getStart());
+
+        List<ItemDto> items = itemService.getItemsFromUser(owner.getId());
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).getLastBooking()).isNull();
+        assertThat(items.get(0).getNextBooking()).isEqualTo(first.getStart());
+
+        // Через два дня с небольшим первое бронирование закончилось, ближайшим стало второе
+        itemBookingDates.refresh(List.of(stored), now.plusDays(2).plusHours(1));
+        entityManager.clear();
+
+        Item refreshed = itemRepository.findById(itemId).orElseThrow();
+        assertThat(refreshed.getLastBooking()).isEqualTo(first.getEnd());
+        assertThat(refreshed.getNextBooking()).isEqualTo(second.getStart());
+        assertThat(refreshed.getBookingDatesUntil()).isEqualTo(second.getStart());
+    }
+
     @Test
     public void integrationTest_addComment_SuccessfulCommentAdded() {
         User user = new User();
@@ -249,6 +317,87 @@ class IntegrationTest {
         assertThat(searchResults.get(0).isAvailable()).isTrue();
     }
 
+    @Test
+    public void integrationTest_searchAvailableItems_SkipsItemsBookedInWindow() {
+        User owner = new User();
+        owner.setName("Илья Федоров");
+        owner.setEmail("fedorov@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Ольга Белова");
+        client.setEmail("belova@example.com");
+        userRepository.save(client);
+
+        Item approved = itemOf(owner, "Дрель ударная", true);
+        Item waiting = itemOf(owner, "Дрель угловая", true);
+        Item rejected = itemOf(owner, "Дрель аккумуляторная", true);
+        Item adjacent = itemOf(owner, "Дрель-шуруповерт", true);
+        itemOf(owner, "Дрель сетевая", false);
+
+        LocalDateTime from = LocalDateTime.now().plusDays(5).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime to = from.plusDays(2);
+        BookingDto accepted = bookingService.createBooking(bookingOf(client, approved, from.plusDays(1), to.plusDays(1)));
+        bookingService.approveBooking(accepted.getId(), true, owner.getId());
+        bookingService.createBooking(bookingOf(client, waiting, from.minusDays(1), from.plusHours(1)));
+        BookingDto declined = bookingService.createBooking(bookingOf(client, rejected, from, to));
+        bookingService.approveBooking(declined.getId(), false, owner.getId());
+        // Окончание совпадает с началом окна - пересечения нет
+        bookingService.createBooking(bookingOf(client, adjacent, from.minusDays(1), from));
+
+        assertThat(itemService.searchAvailableItems("дрель", from, to))
+                .extracting(ItemDto::getId)
+                .containsExactlyInAnyOrder(rejected.getId(), adjacent.getId());
+        assertThat(itemService.searchItems("дрель")).hasSize(4);
+        assertThrows(ValidationException.class, () -> itemService.searchAvailableItems("дрель", to, from));
+    }
+
+    @Test
+    public void integrationTest_suggestItems_FollowsItemWrites() {
+        User owner = new User();
+        owner.setName("Вера Жукова");
+        owner.setEmail("zhukova@example.com");
+        userRepository.save(owner);
+        User client = new User();
+        client.setName("Пётр Зуев");
+        client.setEmail("zuev@example.com");
+        userRepository.save(client);
+
+        ItemCreateDto create = new ItemCreateDto();
+        create.setName("Секатор садовый");
+        create.setDescription("Для веток");
+        create.setAvailable(true);
+        create.setOwner(owner.getId());
+        ItemDto pruner = itemService.addItem(create);
+        create.setName("Садовая пила");
+        ItemDto saw = itemService.addItem(create);
+
+        assertThat(itemService.suggestItems("сад", 10)).extracting(ItemSuggestionDto::getId)
+                .containsExactly(pruner.getId(), saw.getId());
+        assertThat(itemService.suggestItems("Секатор С", 10)).extracting(ItemSuggestionDto::getName)
+                .containsExactly("Секатор садовый");
+
+        ItemPatchDto unavailable = new ItemPatchDto();
+        unavailable.setId(pruner.getId());
+        unavailable.setOwner(owner.getId());
+        unavailable.setAvailable(false);
+        itemService.patchItem(unavailable);
+        assertThat(itemService.suggestItems("сад", 10)).extracting(ItemSuggestionDto::getId)
+                .containsExactly(saw.getId());
+        assertThrows(ValidationException.class, () -> itemService.suggestItems("сад", 0));
+
+        // Популярность при загрузке - число бронирований вещи
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.createBooking(bookingOf(client, itemRepository.findById(saw.getId()).get(), start,
+                start.plusDays(1)));
+        assertThat(itemRepository.findPopularityPageAfter(saw.getId() - 1, PageRequest.of(0, 1)))
+                .singleElement()
+                .satisfies(item -> {
+                    assertThat(item.getId()).isEqualTo(saw.getId());
+                    assertThat(item.getBookings()).isEqualTo(1L);
+                });
+    }
+
     @Test
     public void testGetBookingsForOwnedItems() {
         User user = new User();
@@ -271,13 +420,136 @@ class IntegrationTest {
         booking.setStatus(BookingStatus.APPROVED);
         bookingRepository.save(booking);
 
-        List<BookingDto> bookings = bookingService.getBookingsForOwnedItems(BookingController.State.ALL, user.getId());
+        List<BookingDto> bookings = bookingService.getBookingsForOwnedItems(BookingController.State.ALL, user.getId(), 0, 10, null);
 
         assertThat(bookings).isNotEmpty();
         assertThat(bookings.get(0).getItem().getId()).isEqualTo(item.getId());
         assertThat(bookings.get(0).getBooker().getId()).isEqualTo(user.getId());
     }
 
+    @Test
+    public void integrationTest_getBookingsForOwnedItems_PagesByOffsetAndCursor() {
+        User owner = new User();
+        owner.setName("Олег Смирнов");
+        owner.setEmail("smirnov@example.com");
+        userRepository.save(owner);
+
+        Item item = new Item();
+        item.setName("Перфоратор");
+        item.setDescription("Мощный перфоратор");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 0; i < 5; i++) {
+            Booking booking = new Booking();
+            booking.setStart(start.plusDays(i % 3)); // часть бронирований с одинаковым началом
+            booking.setEnd(start.plusDays(10));
+            booking.setItem(item);
+            booking.setBooker(owner);
+            booking.setStatus(BookingStatus.WAITING);
+            bookingRepository.save(booking);
+        }
+
+        List<BookingDto> all = bookingService.getBookingsForOwnedItems(BookingController.State.ALL, owner.getId(), 0, 10, null);
+        assertThat(all).hasSize(5);
+
+        List<BookingDto> byOffset = bookingService.getBookingsForOwnedItems(BookingController.State.ALL, owner.getId(), 1, 3, null);
+        assertThat(byOffset).extracting(BookingDto::getId)
+                .containsExactly(all.get(1).getId(), all.get(2).getId(), all.get(3).getId());
+
+        List<BookingDto> firstPage = bookingService.getBookingsForOwnedItems(BookingController.State.ALL, owner.getId(), 0, 2, null);
+        String cursor = BookingCursor.next(firstPage, 2);
+        List<BookingDto> secondPage = bookingService.getBookingsForOwnedItems(BookingController.State.ALL, owner.getId(), 0, 2, cursor);
+        String lastCursor = BookingCursor.next(secondPage, 2);
+        List<BookingDto> lastPage = bookingService.getBookingsForOwnedItems(BookingController.State.ALL, owner.getId(), 0, 2, lastCursor);
+
+        assertThat(secondPage).extracting(BookingDto::getId).containsExactly(all.get(2).getId(), all.get(3).getId());
+        assertThat(lastPage).extracting(BookingDto::getId).containsExactly(all.get(4).getId());
+        assertThat(BookingCursor.next(lastPage, 2)).isNull();
+    }
+
+    @Test
+    public void integrationTest_recurringBooking_ExpandsOccurrencesLazily() {
+        User owner = new User(null, "Инна Белова", "belova@example.com");
+        userRepository.save(owner);
+        User client = new User(null, "Пётр Ершов", "ershov@example.com");
+        userRepository.save(client);
+        Item item = itemOf(owner, "Велосипед", true);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        BookingCreateDto weekly = bookingOf(client, item, start, start.plusHours(2));
+        weekly.setRepeat(BookingRepeat.WEEKLY);
+        weekly.setRepeatCount(52);
+        BookingDto series = bookingService.createBooking(weekly);
+        BookingDto single = bookingService.createBooking(bookingOf(client, item, start.plusDays(3),
+                start.plusDays(3).plusHours(2)));
+
+        // Хранится одна строка, а занятыми считаются все повторы
+        assertThat(bookingRepository.findAll()).filteredOn(booking -> booking.getItem().getId().equals(item.getId()))
+                .hasSize(2);
+        assertThrows(ConflictException.class, () -> bookingService.createBooking(bookingOf(client, item,
+                start.plusDays(14).plusHours(1), start.plusDays(14).plusHours(3))));
+
+        List<BookingDto> firstPage = bookingService.getBookingsForCurrentUser(BookingController.State.FUTURE,
+                client.getId(), 0, 3, null);
+        assertThat(firstPage).extracting(BookingDto::getOccurrence).containsExactly(51, 50, 49);
+        assertThat(firstPage.get(0).getStart()).isEqualTo(start.plusWeeks(51));
+
+        List<BookingDto> walked = new ArrayList<>(firstPage);
+        String cursor = BookingCursor.next(firstPage, 3);
+        while (cursor != null) {
+            List<BookingDto> page = bookingService.getBookingsForCurrentUser(BookingController.State.FUTURE,
+                    client.getId(), 0, 10, cursor);
+            walked.addAll(page);
+            cursor = BookingCursor.next(page, 10);
+        }
+        assertThat(walked).hasSize(53);
+
+        List<BookingDto> byOffset = bookingService.getBookingsForOwnedItems(BookingController.State.ALL,
+                owner.getId(), 50, 3, null);
+        assertThat(byOffset).extracting(BookingDto::getId).containsExactly(series.getId(), single.getId(),
+                series.getId());
+        assertThat(byOffset).extracting(BookingDto::getOccurrence).containsExactly(1, null, 0);
+
+        // Идёт второй повтор: последним завершилось разовое бронирование, следующим будет третий повтор
+        itemBookingDates.refresh(List.of(item), start.plusDays(7).plusHours(1));
+        assertThat(item.getLastBooking()).isEqualTo(single.getEnd());
+        assertThat(item.getNextBooking()).isEqualTo(start.plusWeeks(2));
+        assertThat(item.getBookingDatesUntil()).isEqualTo(start.plusDays(7).plusHours(2));
+
+        assertThat(itemService.searchAvailableItems("велосипед", start.plusWeeks(3), start.plusWeeks(3).plusHours(1)))
+                .isEmpty();
+        assertThat(itemService.searchAvailableItems("велосипед", start.plusWeeks(3).plusHours(2),
+                start.plusWeeks(3).plusHours(4))).extracting(ItemDto::getId).containsExactly(item.getId());
+    }
+
+    @Test
+    public void integrationTest_approveBookings_RejectedSeriesCannotBeReapproved() {
+        User owner = new User(null, "Лидия Орлова", "orlova@example.com");
+        userRepository.save(owner);
+        User client = new User(null, "Глеб Сомов", "somov@example.com");
+        userRepository.save(client);
+        Item item = itemOf(owner, "Байдарка", true);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        BookingCreateDto weekly = bookingOf(client, item, start, start.plusHours(2));
+        weekly.setRepeat(BookingRepeat.WEEKLY);
+        weekly.setRepeatCount(4);
+        BookingDto series = bookingService.createBooking(weekly);
+
+        bookingService.approveBookings(List.of(series.getId()), false, owner.getId());
+        // Отклонение освобождает все повторы, а не только первый
+        bookingService.createBooking(bookingOf(client, item, start.plusWeeks(2), start.plusWeeks(2).plusHours(1)));
+
+        // Повторное подтверждение заняло бы повторы заново, поэтому пакетный путь его не допускает
+        assertThrows(ConflictException.class,
+                () -> bookingService.approveBookings(List.of(series.getId()), true, owner.getId()));
+        assertThat(bookingRepository.findById(series.getId()).orElseThrow().getStatus())
+                .isEqualTo(BookingStatus.REJECTED);
+    }
+
     @Test
     public void integrationTest_createBooking_SuccessfullyCreatesBooking() {
         User user = new User();
@@ -312,6 +584,253 @@ class IntegrationTest {
         assertThat(savedBooking.getItem().getId()).isEqualTo(item.getId());
     }
 
+    @Test
+    public void integrationTest_createBooking_RejectsOverlappingPeriod() {
+        User owner = new User();
+        owner.setName("Елена Морозова");
+        owner.setEmail("morozova@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Павел Волков");
+        client.setEmail("volkov@example.com");
+        userRepository.save(client);
+
+        Item item = new Item();
+        item.setName("Палатка");
+        item.setDescription("Трёхместная туристическая палатка");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto first = bookingService.createBooking(bookingOf(client, item, start, start.plusDays(2)));
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.createBooking(bookingOf(client, item, start.plusDays(1), start.plusDays(3))));
+
+        // Смежный период свободен
+        bookingService.createBooking(bookingOf(client, item, start.plusDays(2), start.plusDays(3)));
+
+        // После отклонения период снова можно забронировать
+        bookingService.approveBooking(first.getId(), false, owner.getId());
+        BookingDto retry = bookingService.createBooking(bookingOf(client, item, start.plusDays(1), start.plusDays(2)));
+        assertThat(retry.getStatus()).isEqualTo(BookingStatus.WAITING);
+    }
+
+    @Test
+    public void integrationTest_getBookingCounts_FollowCreateAndApprove() {
+        User owner = new User();
+        owner.setName("Степан Орлов");
+        owner.setEmail("orlov@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Вера Никитина");
+        client.setEmail("nikitina@example.com");
+        userRepository.save(client);
+
+        Item item = new Item();
+        item.setName("Генератор");
+        item.setDescription("Бензиновый генератор");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        Booking past = new Booking();
+        past.setStart(LocalDateTime.now().minusDays(3));
+        past.setEnd(LocalDateTime.now().minusDays(2));
+        past.setItem(item);
+        past.setBooker(client);
+        past.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(past);
+
+        // Первый запрос загружает счётчики из базы
+        assertThat(bookingService.getBookingCountsForCurrentUser(client.getId()))
+                .isEqualTo(new BookingCountsDto(1, 0, 1, 0, 0, 0));
+        assertThat(bookingService.getBookingCountsForOwnedItems(owner.getId()))
+                .isEqualTo(new BookingCountsDto(1, 0, 1, 0, 0, 0));
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto first = bookingService.createBooking(bookingOf(client, item, start, start.plusDays(1)));
+        bookingService.createBooking(bookingOf(client, item, start.plusDays(1), start.plusDays(2)));
+        bookingService.approveBooking(first.getId(), false, owner.getId());
+
+        assertThat(bookingService.getBookingCountsForCurrentUser(client.getId()))
+                .isEqualTo(new BookingCountsDto(3, 0, 1, 2, 1, 1));
+        assertThat(bookingService.getBookingCountsForOwnedItems(owner.getId()))
+                .isEqualTo(new BookingCountsDto(3, 0, 1, 2, 1, 1));
+        assertThat(bookingService.getBookingCountsForCurrentUser(owner.getId()))
+                .isEqualTo(new BookingCountsDto(0, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void integrationTest_exportBookingsForOwnedItems_WritesRowsInRange() throws Exception {
+        User owner = new User();
+        owner.setName("Аркадий Фомин");
+        owner.setEmail("fomin@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Лидия Егорова");
+        client.setEmail("egorova@example.com");
+        userRepository.save(client);
+
+        Item item = new Item();
+        item.setName("Стол, складной \"Турист\"");
+        item.setDescription("Складной стол");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        LocalDateTime start = LocalDateTime.of(2030, 3, 1, 10, 0);
+        BookingDto march = bookingService.createBooking(bookingOf(client, item, start, start.plusDays(1)));
+        BookingDto april = bookingService.createBooking(bookingOf(client, item, start.plusMonths(1), start.plusMonths(1).plusDays(1)));
+        bookingService.createBooking(bookingOf(client, item, start.plusMonths(2), start.plusMonths(2).plusDays(1)));
+        // Повторы серии встают между разовыми бронированиями по своему началу
+        BookingCreateDto weekly = bookingOf(client, item, LocalDateTime.of(2030, 2, 16, 12, 0),
+                LocalDateTime.of(2030, 2, 16, 14, 0));
+        weekly.setRepeat(BookingRepeat.WEEKLY);
+        weekly.setRepeatCount(4);
+        BookingDto series = bookingService.createBooking(weekly);
+        String itemColumns = ",WAITING," + item.getId() + ",\"Стол, складной \"\"Турист\"\"\"," + client.getId() + ",";
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        bookingService.exportBookingsForOwnedItems(owner.getId(), BookingExportFormat.CSV, null, start.plusMonths(2))
+                .writeTo(csv);
+        assertThat(csv.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "id,start,end,status,itemId,itemName,bookerId,occurrence",
+                series.getId() + ",2030-02-16T12:00,2030-02-16T14:00" + itemColumns + "0",
+                series.getId() + ",2030-02-23T12:00,2030-02-23T14:00" + itemColumns + "1",
+                march.getId() + ",2030-03-01T10:00,2030-03-02T10:00" + itemColumns,
+                series.getId() + ",2030-03-02T12:00,2030-03-02T14:00" + itemColumns + "2",
+                series.getId() + ",2030-03-09T12:00,2030-03-09T14:00" + itemColumns + "3",
+                april.getId() + ",2030-04-01T10:00,2030-04-02T10:00" + itemColumns);
+
+        // Серия, начатая до from, попадает в выгрузку повторами внутри периода
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+        bookingService.exportBookingsForOwnedItems(owner.getId(), BookingExportFormat.CSV, start, start.plusDays(5))
+                .writeTo(range);
+        assertThat(range.toString(StandardCharsets.UTF_8).split("\n")).extracting(line -> line.split(",")[0])
+                .containsExactly("id", march.getId().toString(), series.getId().toString());
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        bookingService.exportBookingsForOwnedItems(owner.getId(), BookingExportFormat.NDJSON, start.plusMonths(1), null)
+                .writeTo(ndjson);
+        String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{\"id\":" + april.getId() + ",\"start\":\"2030-04-01T10:00\"");
+
+        assertThrows(NotFoundException.class,
+                () -> bookingService.exportBookingsForOwnedItems(-1L, BookingExportFormat.CSV, null, null));
+    }
+
+    @Test
+    public void integrationTest_getAvailability_MarksBookedSlotsBusy() {
+        User owner = new User();
+        owner.setName("Григорий Белов");
+        owner.setEmail("belov@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Алиса Котова");
+        client.setEmail("kotova@example.com");
+        userRepository.save(client);
+
+        Item item = new Item();
+        item.setName("Проектор");
+        item.setDescription("Проектор для презентаций");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        LocalDateTime day = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.DAYS);
+        // Бронь с полудня первого дня до полудня второго занимает оба дня
+        bookingService.createBooking(bookingOf(client, item, day.plusHours(12), day.plusDays(1).plusHours(12)));
+
+        ItemAvailabilityDto byDay = itemService.getAvailability(item.getId(), day, day.plusDays(3), AvailabilityGranularity.DAY);
+        assertThat(byDay.getSlots()).extracting(AvailabilitySlotDto::isFree).containsExactly(false, false, true);
+
+        // Новое бронирование сразу видно в календаре
+        bookingService.createBooking(bookingOf(client, item, day.plusDays(2).plusHours(3), day.plusDays(2).plusHours(4)));
+        ItemAvailabilityDto byHour = itemService.getAvailability(item.getId(), day.plusDays(2), day.plusDays(2).plusHours(5),
+                AvailabilityGranularity.HOUR);
+        assertThat(byHour.getSlots()).extracting(AvailabilitySlotDto::isFree).containsExactly(true, true, true, false, true);
+
+        assertThrows(ValidationException.class,
+                () -> itemService.getAvailability(item.getId(), day, day.plusYears(5), AvailabilityGranularity.DAY));
+    }
+
+    @Test
+    public void integrationTest_createBookings_BestEffortReportsEachEntry() {
+        User owner = new User();
+        owner.setName("Игорь Соколов");
+        owner.setEmail("sokolov@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Мария Лебедева");
+        client.setEmail("lebedeva@example.com");
+        userRepository.save(client);
+
+        Item item = new Item();
+        item.setName("Велосипед");
+        item.setDescription("Горный велосипед");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<BookingCreateDto> batch = List.of(
+                bookingOf(client, item, start, start.plusDays(1)),
+                bookingOf(client, item, start.plusHours(12), start.plusDays(2)), // пересекается с первой
+                bookingOf(client, item, start.plusDays(2), start.plusDays(3)),
+                bookingOf(client, item, start.plusDays(5), start.plusDays(4))); // окончание раньше начала
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(batch, client.getId(), BookingBatchMode.BEST_EFFORT);
+
+        assertThat(results).hasSize(4);
+        assertThat(results.get(0).getBooking().getId()).isNotNull();
+        assertThat(results.get(1).getError()).isNotNull();
+        assertThat(results.get(2).getBooking().getItem().getName()).isEqualTo("Велосипед");
+        assertThat(results.get(3).getError()).isNotNull();
+
+        Booking saved = bookingRepository.findById(results.get(2).getBooking().getId()).orElseThrow();
+        assertThat(saved.getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThat(saved.getBooker().getId()).isEqualTo(client.getId());
+    }
+
+    @Test
+    public void integrationTest_createBookings_AllOrNothingCreatesNothingOnError() {
+        User owner = new User();
+        owner.setName("Наталья Ковалёва");
+        owner.setEmail("kovaleva@example.com");
+        userRepository.save(owner);
+
+        Item item = new Item();
+        item.setName("Байдарка");
+        item.setDescription("Двухместная байдарка");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        long before = bookingRepository.count();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingCreateDto missingItem = bookingOf(owner, item, start.plusDays(3), start.plusDays(4));
+        missingItem.setItemId(-1L);
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(
+                List.of(bookingOf(owner, item, start, start.plusDays(1)), missingItem),
+                owner.getId(), BookingBatchMode.ALL_OR_NOTHING);
+
+        assertThat(results).allMatch(result -> result.getBooking() == null && result.getError() != null);
+        assertThat(bookingRepository.count()).isEqualTo(before);
+
+        // Откатились и периоды в индексе: тот же период можно забронировать
+        BookingDto booked = bookingService.createBooking(bookingOf(owner, item, start, start.plusDays(1)));
+        assertThat(booked.getId()).isNotNull();
+    }
+
     @Test
     public void integrationTest_approveBooking_SucceedsWhenApprovedByOwner() {
         User owner = new User();
@@ -349,6 +868,140 @@ class IntegrationTest {
         assertThat(savedBooking.getStatus()).isEqualTo(BookingStatus.APPROVED);
     }
 
+    @Test
+    public void integrationTest_approveBookings_UpdatesWholeSetForOwner() {
+        User owner = new User();
+        owner.setName("Павел Журавлёв");
+        owner.setEmail("zhuravlev@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Елена Зайцева");
+        client.setEmail("zaitseva@example.com");
+        userRepository.save(client);
+
+        Item tent = new Item();
+        tent.setName("Палатка");
+        tent.setDescription("Трёхместная палатка");
+        tent.setAvailable(true);
+        tent.setOwner(owner);
+        itemRepository.save(tent);
+
+        Item stove = new Item();
+        stove.setName("Горелка");
+        stove.setDescription("Газовая горелка");
+        stove.setAvailable(true);
+        stove.setOwner(owner);
+        itemRepository.save(stove);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto first = bookingService.createBooking(bookingOf(client, tent, start, start.plusDays(1)));
+        BookingDto second = bookingService.createBooking(bookingOf(client, stove, start, start.plusDays(1)));
+        BookingDto untouched = bookingService.createBooking(bookingOf(client, tent, start.plusDays(2), start.plusDays(3)));
+
+        List<BookingDto> rejected = bookingService.approveBookings(List.of(first.getId(), second.getId()), false, owner.getId());
+
+        assertThat(rejected).extracting(BookingDto::getStatus).containsOnly(BookingStatus.REJECTED);
+        assertThat(bookingRepository.findById(first.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.REJECTED);
+        assertThat(bookingRepository.findById(second.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.REJECTED);
+        assertThat(bookingRepository.findById(untouched.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.WAITING);
+
+        // Отклонённый период освободился для новых бронирований, а рассмотренное повторно подтвердить нельзя
+        bookingService.createBooking(bookingOf(client, tent, start, start.plusDays(1)));
+        assertThrows(ConflictException.class,
+                () -> bookingService.approveBookings(List.of(first.getId(), untouched.getId()), true, owner.getId()));
+        assertThat(bookingRepository.findById(untouched.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThrows(ConflictException.class,
+                () -> bookingService.approveBookings(List.of(first.getId()), true, owner.getId()));
+        assertThat(bookingRepository.findById(first.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.REJECTED);
+    }
+
+    @Test
+    public void integrationTest_approveBookings_ForbiddenWhenAnyBookingIsForeign() {
+        User owner = new User();
+        owner.setName("Олег Морозов");
+        owner.setEmail("morozov@example.com");
+        userRepository.save(owner);
+
+        User stranger = new User();
+        stranger.setName("Ирина Волкова");
+        stranger.setEmail("volkova@example.com");
+        userRepository.save(stranger);
+
+        Item ownItem = new Item();
+        ownItem.setName("Самокат");
+        ownItem.setDescription("Электросамокат");
+        ownItem.setAvailable(true);
+        ownItem.setOwner(owner);
+        itemRepository.save(ownItem);
+
+        Item foreignItem = new Item();
+        foreignItem.setName("Лодка");
+        foreignItem.setDescription("Надувная лодка");
+        foreignItem.setAvailable(true);
+        foreignItem.setOwner(stranger);
+        itemRepository.save(foreignItem);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto own = bookingService.createBooking(bookingOf(stranger, ownItem, start, start.plusDays(1)));
+        BookingDto foreign = bookingService.createBooking(bookingOf(owner, foreignItem, start, start.plusDays(1)));
+
+        assertThrows(ForbiddenOperationException.class,
+                () -> bookingService.approveBookings(List.of(own.getId(), foreign.getId()), true, owner.getId()));
+        assertThrows(NotFoundException.class,
+                () -> bookingService.approveBookings(List.of(own.getId(), -1L), true, owner.getId()));
+        assertThat(bookingRepository.findById(own.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.WAITING);
+    }
+
+    @Test
+    public void integrationTest_expireWaiting_CancelsOnlyStartedWaitingBookings() {
+        User owner = new User();
+        owner.setName("Антон Беляев");
+        owner.setEmail("belyaev@example.com");
+        userRepository.save(owner);
+
+        User client = new User();
+        client.setName("Мария Белова");
+        client.setEmail("belova@example.com");
+        userRepository.save(client);
+
+        Item item = new Item();
+        item.setName("Шуруповёрт");
+        item.setDescription("Аккумуляторный шуруповёрт");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking stale = new Booking();
+        stale.setStart(now.minusHours(2));
+        stale.setEnd(now.plusHours(2));
+        stale.setItem(item);
+        stale.setBooker(client);
+        stale.setStatus(BookingStatus.WAITING);
+        bookingRepository.save(stale);
+
+        Booking approved = new Booking();
+        approved.setStart(now.minusDays(3));
+        approved.setEnd(now.minusDays(2));
+        approved.setItem(item);
+        approved.setBooker(client);
+        approved.setStatus(BookingStatus.APPROVED);
+        bookingRepository.save(approved);
+
+        BookingDto future = bookingService.createBooking(bookingOf(client, item, now.plusDays(1), now.plusDays(2)));
+
+        bookingExpiryJob.expireWaiting();
+
+        assertThat(bookingRepository.findById(stale.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(bookingRepository.findById(approved.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.APPROVED);
+        assertThat(bookingRepository.findById(future.getId()).orElseThrow().getStatus()).isEqualTo(BookingStatus.WAITING);
+        assertThrows(ValidationException.class,
+                () -> bookingService.approveBooking(stale.getId(), true, owner.getId()));
+        // Отменённый период освободился
+        bookingService.createBooking(bookingOf(client, item, now.plusHours(1), now.plusHours(2)));
+    }
+
     @Test
     public void integrationTest_getBooking_AccessibleByOwnerAndBooker() {
         User owner = new User();
@@ -420,7 +1073,7 @@ class IntegrationTest {
         futureBooking.setStatus(BookingStatus.APPROVED);
         bookingRepository.save(futureBooking);
 
-        List<BookingDto> currentBookings = bookingService.getBookingsForCurrentUser(BookingController.State.CURRENT, client.getId());
+        List<BookingDto> currentBookings = bookingService.getBookingsForCurrentUser(BookingController.State.CURRENT, client.getId(), 0, 10, null);
 
         assertThat(currentBookings).hasSize(1); // Должно быть только текущее бронирование
         assertThat(currentBookings.get(0).getItem().getId()).isEqualTo(item.getId());
@@ -619,4 +1272,23 @@ class IntegrationTest {
         Optional<User> deletedUserOpt = userRepository.findById(user.getId());
         assertFalse(deletedUserOpt.isPresent());
     }
+
+    private Item itemOf(User owner, String name, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(name + " для дома");
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return itemRepository.save(item);
+    }
+
+    private static BookingCreateDto bookingOf(User booker, Item item, LocalDateTime start, LocalDateTime end) {
+        BookingCreateDto dto = new BookingCreateDto();
+        dto.setBookerId(booker.getId());
+        dto.setItemId(item.getId());
+        // Как и в API, время с точностью до секунд: база округляет доли секунды
+        dto.setStart(start.truncatedTo(ChronoUnit.SECONDS));
+        dto.setEnd(end.truncatedTo(ChronoUnit.SECONDS));
+        return dto;
+    }
 }
\ No newline at end of file
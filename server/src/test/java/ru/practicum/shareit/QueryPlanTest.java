@@ -0,0 +1,220 @@
+package ru.practicum.shareit;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingCursor;
+import ru.practicum.shareit.booking.BookingPartitions;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.OffsetPageRequest;
+import ru.practicum.shareit.config.PostgresSchemaInitializer;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что горячие запросы репозиториев читают таблицы по индексам из schema.sql.
+ * План строится по SQL, который Hibernate отправляет при вызове самих методов репозиториев.
+ * По умолчанию план строит H2 (профиль test, набор индексов выровнен с PostgreSQL скриптом
+ * schema-h2.sql). На PostgreSQL в контейнере тест запускается профилем сборки:
+ * {@code mvn -P postgres test -pl server}.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import(SqlCapture.class)
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class QueryPlanTest {
+    private static final int USERS = 50;
+    private static final int ITEMS = 500;
+    private static final int BOOKINGS = 10_000;
+    private static final int COMMENTS = 2_000;
+    // Пустые секции bookings планировщик вправе читать целиком, поэтому шаблон их не задевает:
+    // для bookings достаточно того, что секции с данными читаются по индексу
+    private static final Pattern PG_FULL_SCAN = Pattern.compile("Seq Scan on (items|comments|item_requests)\\b");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresSchemaInitializer schema;
+    private final SqlCapture sqlCapture;
+    private final BookingRepository bookingRepository;
+    private final BookingPartitions partitions;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final ItemRequestRepository itemRequestRepository;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private long userId;
+    private long itemId;
+    private long requestId;
+
+    @BeforeEach
+    public void setUp() {
+        List<Long> users = insertUsers();
+        List<Long> requests = insertRequests(users);
+        List<Long> items = insertItems(users, requests);
+        insertBookings(users, items);
+        insertComments(users, items);
+        userId = users.get(1);
+        requestId = requests.get(1);
+        itemId = items.get(1);
+
+        if (schema.isPostgres()) {
+            jdbcTemplate.execute("ANALYZE users, item_requests, items, bookings, comments");
+        }
+    }
+
+    @Test
+    public void bookerQueries_UseIndexes() {
+        BookingCursor first = BookingCursor.first();
+        Pageable page = OffsetPageRequest.of(0, 10);
+
+        assertIndexed("idx_bookings_booker_start", () -> bookingRepository.findAllBookings(userId,
+                first.getStart(), first.getId(), page));
+        assertIndexed("idx_bookings_booker_status_start", () -> bookingRepository.findBookingsByStatus(userId,
+                BookingStatus.WAITING, partitions.activeFrom(), first.getStart(), first.getId(), page));
+        assertIndexed("idx_bookings_booker_start", () -> bookingRepository.findFutureBookings(userId, now,
+                first.getStart(), first.getId(), page));
+        assertIndexed("idx_bookings_booker_start", () -> bookingRepository.findPastBookings(userId, now,
+                first.getStart(), first.getId(), page));
+    }
+
+    @Test
+    public void ownerQueries_UseIndexes() {
+        BookingCursor first = BookingCursor.first();
+        Pageable page = OffsetPageRequest.of(0, 10);
+
+        // Без условия на даты обе выборки по item_id одинаково годятся для соединения с вещами владельца
+        assertIndexed(List.of("idx_bookings_item_start", "idx_bookings_item_end"),
+                () -> bookingRepository.findAllBookingsForOwner(userId, first.getStart(), first.getId(), page));
+        assertIndexed("idx_bookings_item_start", () -> bookingRepository.findBookingsByStatusForOwner(userId,
+                BookingStatus.WAITING, partitions.activeFrom(), first.getStart(), first.getId(), page));
+        assertIndexed("idx_items_owner", () -> itemRepository.findAllByOwnerId(userId));
+    }
+
+    @Test
+    public void itemQueries_UseIndexes() {
+        assertIndexed("idx_bookings_item_end", () -> bookingRepository.findBounds(List.of(itemId, itemId + 1), now));
+        assertIndexed("idx_items_booking_dates_until",
+                () -> itemRepository.findWithStaleBookingDates(now, PageRequest.of(0, 100)));
+        assertIndexed("idx_items_booking_dates_until",
+                () -> itemRepository.findWithoutBookingDates(PageRequest.of(0, 100)));
+        assertIndexed("idx_comments_item", () -> commentRepository.findAllByItem_Id(itemId));
+        assertIndexed("idx_items_request", () -> itemRepository.findAllByRequestId(requestId));
+    }
+
+    @Test
+    public void requestQueries_UseIndexes() {
+        assertIndexed("idx_item_requests_requester_created",
+                () -> itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(userId));
+    }
+
+    private void assertIndexed(String index, Runnable query) {
+        assertIndexed(List.of(index), query);
+    }
+
+    /**
+     * Выполняет метод репозитория, перехватывает отправленный Hibernate запрос с его параметрами
+     * и проверяет, что план читает таблицу по одному из индексов schema.sql. В PostgreSQL секции
+     * bookings читаются по своим копиям индекса, поэтому ищутся и их имена.
+     */
+    private void assertIndexed(List<String> indexes, Runnable query) {
+        List<SqlCapture.Statement> statements = sqlCapture.record(query);
+        assertThat(statements).as("Ожидался один запрос").hasSize(1);
+        String sql = statements.get(0).getSql();
+
+        String plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class,
+                        statements.get(0).getParams().toArray()).stream()
+                .collect(Collectors.joining("\n"));
+        List<String> names = new ArrayList<>();
+        for (String index : indexes) {
+            names.add(index);
+            if (schema.isPostgres()) {
+                names.addAll(jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)", String.class, index));
+            }
+        }
+        assertThat(names)
+                .as("Запрос не читает таблицу по %s%n%s%n%s", indexes, sql, plan)
+                .anyMatch(name -> plan.toLowerCase().contains(name.toLowerCase()));
+        if (schema.isPostgres()) {
+            assertThat(PG_FULL_SCAN.matcher(plan).find())
+                    .as("Полный просмотр таблицы вместо %s%n%s%n%s", indexes, sql, plan)
+                    .isFalse();
+        }
+    }
+
+    private List<Long> insertUsers() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[]{"Пользователь " + i, "user" + i + "@query.plan"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE email LIKE '%@query.plan' ORDER BY id", Long.class);
+    }
+
+    private List<Long> insertRequests(List<Long> users) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            rows.add(new Object[]{"План " + i, ts(now.minusHours(i)), users.get(i % USERS)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO item_requests (description, created, requester_id) VALUES (?, ?, ?)",
+                rows);
+        return jdbcTemplate.queryForList("SELECT id FROM item_requests WHERE description LIKE 'План %' ORDER BY id",
+                Long.class);
+    }
+
+    private List<Long> insertItems(List<Long> users, List<Long> requests) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            rows.add(new Object[]{"План " + i, "Описание " + i, true, users.get(i % USERS), requests.get(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO items (name, description, available, owner_id, request_id) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM items WHERE name LIKE 'План %' ORDER BY id", Long.class);
+    }
+
+    private void insertBookings(List<Long> users, List<Long> items) {
+        String[] statuses = {"APPROVED", "REJECTED", "CANCELED", "WAITING"};
+        LocalDateTime from = now.minusDays(BOOKINGS / ITEMS * 2);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            // У каждой вещи свои непересекающиеся сутки
+            LocalDateTime start = from.plusDays(i / ITEMS * 4L);
+            rows.add(new Object[]{ts(start), ts(start.plusDays(1)), items.get(i % ITEMS),
+                    users.get((i / 7) % USERS), statuses[i % statuses.length]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
+    private void insertComments(List<Long> users, List<Long> items) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < COMMENTS; i++) {
+            rows.add(new Object[]{"Отзыв " + i, items.get(i % ITEMS), users.get(i % USERS), ts(now)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO comments (text, item_id, author_id, created) VALUES (?, ?, ?, ?)",
+                rows);
+    }
+
+    private static Timestamp ts(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime);
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+/**
+ * Несколько потоков одновременно подтверждают и отклоняют одни и те же бронирования.
+ * Транзакции здесь настоящие, поэтому тест не транзакционный и удаляет свои данные сам.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingApprovalConcurrencyTest {
+    private static final int BOOKINGS = 30;
+    private static final int THREADS = 8;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private final List<Long> bookingIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        owner = userRepository.save(new User(null, "Владелец", "owner@approval.race"));
+        booker = userRepository.save(new User(null, "Арендатор", "booker@approval.race"));
+
+        item = new Item();
+        item.setName("Палатка");
+        item.setDescription("Четырёхместная палатка");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            BookingCreateDto booking = new BookingCreateDto();
+            booking.setItemId(item.getId());
+            booking.setBookerId(booker.getId());
+            booking.setStart(start.plusDays(i));
+            booking.setEnd(start.plusDays(i).plusHours(12));
+            bookingIds.add(bookingService.createBooking(booking).getId());
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM bookings WHERE item_id = ?", item.getId());
+        itemRepository.deleteById(item.getId());
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    public void approveBooking_ConcurrentDecisions_ExactlyOneWinsPerBooking() throws Exception {
+        Map<Long, List<BookingStatus>> decisions = new ConcurrentHashMap<>();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    List<Long> order = new ArrayList<>(bookingIds);
+                    Collections.shuffle(order);
+                    ready.await();
+                    for (Long bookingId : order) {
+                        boolean approved = ThreadLocalRandom.current().nextBoolean();
+                        try {
+                            BookingStatus status = bookingService.approveBooking(bookingId, approved, owner.getId())
+                                    .getStatus();
+                            decisions.computeIfAbsent(bookingId, id -> new CopyOnWriteArrayList<>()).add(status);
+                        } catch (ConflictException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Ни одно решение не потерялось и не перезаписало другое
+        assertThat(conflicts.get()).isEqualTo(BOOKINGS * (THREADS - 1));
+        long rejected = 0;
+        for (Long bookingId : bookingIds) {
+            assertThat(decisions.get(bookingId)).hasSize(1);
+            BookingStatus winner = decisions.get(bookingId).getFirst();
+            Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+            assertThat(booking.getStatus()).isEqualTo(winner);
+            assertThat(booking.getVersion()).isEqualTo(1L);
+            if (winner == BookingStatus.REJECTED) {
+                rejected++;
+            }
+        }
+        assertThat(bookingService.getBookingCountsForOwnedItems(owner.getId()))
+                .isEqualTo(new BookingCountsDto(BOOKINGS, 0, 0, BOOKINGS, 0, rejected));
+    }
+}
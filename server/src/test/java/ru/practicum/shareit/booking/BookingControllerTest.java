@@ -6,24 +6,45 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.ItemUtilizationDto;
+import ru.practicum.shareit.booking.dto.MonthUtilizationDto;
+import ru.practicum.shareit.booking.dto.OwnerUtilizationDto;
+import ru.practicum.shareit.booking.dto.PeakDemandDto;
+import ru.practicum.shareit.config.IdempotencyStore;
+import ru.practicum.shareit.exception.NotFoundException;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @WebMvcTest(BookingController.class)
+@Import(IdempotencyStore.class)
 public class BookingControllerTest {
 
     @Autowired
@@ -70,6 +91,58 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is("APPROVED")));
     }
 
+    @Test
+    public void testCreateBooking_RetryWithIdempotencyKeyReplaysResponse() throws Exception {
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(1L);
+        bookingCreateDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingCreateDto.setEnd(LocalDateTime.now().plusDays(2));
+        String body = objectMapper.writeValueAsString(bookingCreateDto);
+
+        when(bookingService.createBooking(any(BookingCreateDto.class))).thenReturn(booking1, booking2);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/bookings")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body)
+                            .header("X-Sharer-User-Id", "1")
+                            .header(IdempotencyStore.HEADER, "booking-retry"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(1)));
+        }
+        verify(bookingService, times(1)).createBooking(any(BookingCreateDto.class));
+
+        // Тот же ключ с другим телом - ошибка клиента
+        bookingCreateDto.setItemId(2L);
+        mockMvc.perform(post("/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookingCreateDto))
+                        .header("X-Sharer-User-Id", "1")
+                        .header(IdempotencyStore.HEADER, "booking-retry"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testCreateBookings() throws Exception {
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(1L);
+        bookingCreateDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingCreateDto.setEnd(LocalDateTime.now().plusDays(2));
+
+        when(bookingService.createBookings(anyList(), eq(1L), eq(BookingBatchMode.BEST_EFFORT)))
+                .thenReturn(List.of(new BookingBatchResultDto(0, booking1, null),
+                        new BookingBatchResultDto(1, null, "Ошибка")));
+
+        mockMvc.perform(post("/bookings/batch?mode=BEST_EFFORT")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(bookingCreateDto, bookingCreateDto)))
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].booking.status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].error", is("Ошибка")));
+    }
+
     @Test
     public void testApproveBooking() throws Exception {
         when(bookingService.approveBooking(1L, true, 1L)).thenReturn(booking1);
@@ -80,6 +153,89 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is("APPROVED")));
     }
 
+    @Test
+    public void testApproveBookings() throws Exception {
+        when(bookingService.approveBookings(List.of(1L, 2L), true, 1L)).thenReturn(List.of(booking1, booking2));
+
+        mockMvc.perform(patch("/bookings/batch?approved=true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(1L, 2L)))
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(1)));
+    }
+
+    @Test
+    public void testGetBookingCountsForOwnedItems() throws Exception {
+        when(bookingService.getBookingCountsForOwnedItems(1L)).thenReturn(new BookingCountsDto(5, 1, 2, 2, 1, 0));
+
+        mockMvc.perform(get("/bookings/owner/counts")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all", is(5)))
+                .andExpect(jsonPath("$.waiting", is(1)));
+    }
+
+    @Test
+    public void testGetUtilizationForOwnedItems() throws Exception {
+        YearMonth month = YearMonth.of(2030, 1);
+        when(bookingService.getUtilizationForOwnedItems(1L, month, month)).thenReturn(new OwnerUtilizationDto(month,
+                month, List.of(new ItemUtilizationDto(2L, "Дрель", List.of(new MonthUtilizationDto(month, 3600, 0.13)))),
+                List.of(new PeakDemandDto(month, 1, LocalDateTime.of(2030, 1, 5, 10, 0)))));
+
+        mockMvc.perform(get("/bookings/owner/utilization?from=2030-01&to=2030-01")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from", is("2030-01")))
+                .andExpect(jsonPath("$.items[0].months[0].utilization", is(0.13)))
+                .andExpect(jsonPath("$.peaks[0].at", is("2030-01-05T10:00:00")));
+    }
+
+    @Test
+    public void testExportBookingsForOwnedItems() throws Exception {
+        when(bookingService.exportBookingsForOwnedItems(1L, BookingExportFormat.CSV, null, null))
+                .thenReturn(out -> out.write("id,start\n1,2030-01-01T00:00\n".getBytes()));
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export?format=CSV")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"bookings.csv\""))
+                .andExpect(content().string("id,start\n1,2030-01-01T00:00\n"));
+    }
+
+    @Test
+    public void testSubscribeToEvents() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        when(bookingService.subscribeToEvents(1L)).thenReturn(emitter);
+
+        MvcResult result = mockMvc.perform(get("/bookings/events")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("created").data("{\"bookingId\":1}"));
+        emitter.complete();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string("event:created\ndata:{\"bookingId\":1}\n\n"));
+    }
+
+    @Test
+    public void testSubscribeToEvents_UserNotFound() throws Exception {
+        when(bookingService.subscribeToEvents(99L)).thenThrow(new NotFoundException("Пользователь с id 99 не найден"));
+
+        mockMvc.perform(get("/bookings/events")
+                        .header("X-Sharer-User-Id", "99"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", is("Пользователь с id 99 не найден")));
+    }
+
     @Test
     public void testGetBooking() throws Exception {
         when(bookingService.getBooking(1L, 1L)).thenReturn(booking1);
@@ -92,7 +248,7 @@ public class BookingControllerTest {
 
     @Test
     public void testGetBookingsForCurrentUser() throws Exception {
-        when(bookingService.getBookingsForCurrentUser(BookingController.State.ALL, 1L)).thenReturn(Arrays.asList(booking1, booking2));
+        when(bookingService.getBookingsForCurrentUser(BookingController.State.ALL, 1L, 0, 10, null)).thenReturn(Arrays.asList(booking1, booking2));
 
         mockMvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", "1"))
@@ -104,7 +260,7 @@ public class BookingControllerTest {
 
     @Test
     public void testGetBookingsForOwnedItems() throws Exception {
-        when(bookingService.getBookingsForOwnedItems(BookingController.State.ALL, 1L)).thenReturn(Arrays.asList(booking1, booking2));
+        when(bookingService.getBookingsForOwnedItems(BookingController.State.ALL, 1L, 0, 10, null)).thenReturn(Arrays.asList(booking1, booking2));
 
         mockMvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", "1"))
@@ -113,4 +269,28 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$[0].status", is("APPROVED")))
                 .andExpect(jsonPath("$[1].status", is("WAITING")));
     }
+
+    @Test
+    public void testGetBookingsForCurrentUser_FullPageReturnsNextCursor() throws Exception {
+        when(bookingService.getBookingsForCurrentUser(BookingController.State.ALL, 1L, 0, 2, null))
+                .thenReturn(Arrays.asList(booking1, booking2));
+
+        mockMvc.perform(get("/bookings?size=2")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string(BookingCursor.HEADER,
+                        new BookingCursor(booking2.getStart(), booking2.getId()).encode()));
+    }
+
+    @Test
+    public void testGetBookingsForOwnedItems_LastPageHasNoCursor() throws Exception {
+        when(bookingService.getBookingsForOwnedItems(BookingController.State.ALL, 1L, 0, 3, null))
+                .thenReturn(Arrays.asList(booking1, booking2));
+
+        mockMvc.perform(get("/bookings/owner?size=3")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookingCursor.HEADER));
+    }
 }
\ No newline at end of file
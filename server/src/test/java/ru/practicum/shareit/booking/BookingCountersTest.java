@@ -0,0 +1,122 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingCountersTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 10, 12, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingCounters counters;
+
+    @BeforeEach
+    public void setUp() {
+        counters = new BookingCounters(bookingRepository, Duration.ofHours(1), 2);
+    }
+
+    @Test
+    public void testForBooker_DerivesTimeStatesFromLoadedBookings() {
+        when(bookingRepository.findSnapshotsByBooker(eq(1L))).thenReturn(List.of(
+                new BookingSnapshot(1L, NOW.minusDays(5), NOW.minusDays(4), BookingStatus.APPROVED, null, null),
+                new BookingSnapshot(2L, NOW.minusDays(1), NOW.plusDays(1), BookingStatus.APPROVED, null, null),
+                new BookingSnapshot(3L, NOW, NOW.plusHours(1), BookingStatus.WAITING, null, null),
+                new BookingSnapshot(4L, NOW.plusDays(2), NOW.plusDays(3), BookingStatus.REJECTED, null, null),
+                new BookingSnapshot(5L, NOW.minusDays(1), NOW, BookingStatus.WAITING, null, null)));
+
+        BookingCountsDto counts = counters.forBooker(1L, NOW);
+
+        // Бронирование, закончившееся ровно сейчас, уже не текущее, но ещё и не прошедшее
+        assertThat(counts).isEqualTo(new BookingCountsDto(5, 2, 1, 1, 2, 1));
+    }
+
+    @Test
+    public void testForBooker_CountsSeriesByOccurrence() {
+        // Ежедневная серия из пяти повторов: два прошли, третий идёт сейчас, два впереди
+        LocalDateTime first = NOW.minusDays(2).minusHours(1);
+        when(bookingRepository.findSnapshotsByBooker(eq(1L))).thenReturn(List.of(new BookingSnapshot(6L, first,
+                first.plusHours(2), BookingStatus.APPROVED, BookingRepeat.DAILY, 5)));
+
+        assertThat(counters.forBooker(1L, NOW)).isEqualTo(new BookingCountsDto(5, 1, 2, 2, 0, 0));
+
+        counters.onBookingChanged(new BookingChangedEvent(6L, 7L, 2L, 1L, first, first.plusHours(2),
+                BookingRepeat.DAILY, 5, BookingStatus.APPROVED, BookingStatus.REJECTED));
+        assertThat(counters.forBooker(1L, NOW)).isEqualTo(new BookingCountsDto(5, 1, 2, 2, 0, 5));
+    }
+
+    @Test
+    public void testOnBookingChanged_UpdatesLoadedUsersOnly() {
+        when(bookingRepository.findSnapshotsByOwner(eq(2L))).thenReturn(List.of());
+        counters.forOwner(2L, NOW);
+
+        counters.onBookingChanged(new BookingChangedEvent(10L, 7L, 2L, 1L,
+                NOW.plusDays(1), NOW.plusDays(2), null, null, null, BookingStatus.WAITING));
+        assertThat(counters.forOwner(2L, NOW)).isEqualTo(new BookingCountsDto(1, 0, 0, 1, 1, 0));
+
+        counters.onBookingChanged(new BookingChangedEvent(10L, 7L, 2L, 1L,
+                NOW.plusDays(1), NOW.plusDays(2), null, null, BookingStatus.WAITING, BookingStatus.REJECTED));
+        assertThat(counters.forOwner(2L, NOW)).isEqualTo(new BookingCountsDto(1, 0, 0, 1, 0, 1));
+
+        verify(bookingRepository, times(1)).findSnapshotsByOwner(eq(2L));
+        verify(bookingRepository, never()).findSnapshotsByBooker(eq(1L));
+    }
+
+    @Test
+    public void testOnBookingChanged_IgnoresEventAlreadyVisibleInLoadedData() {
+        when(bookingRepository.findSnapshotsByBooker(eq(1L))).thenReturn(List.of(
+                new BookingSnapshot(10L, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.WAITING, null, null)));
+        counters.forBooker(1L, NOW);
+
+        counters.onBookingChanged(new BookingChangedEvent(10L, 7L, 2L, 1L,
+                NOW.plusDays(1), NOW.plusDays(2), null, null, null, BookingStatus.WAITING));
+
+        assertThat(counters.forBooker(1L, NOW)).isEqualTo(new BookingCountsDto(1, 0, 0, 1, 1, 0));
+    }
+
+    @Test
+    public void testForBooker_EvictsEarliestLoadedUserOverLimit() {
+        when(bookingRepository.findSnapshotsByBooker(eq(1L))).thenReturn(List.of());
+        when(bookingRepository.findSnapshotsByBooker(eq(2L))).thenReturn(List.of());
+        when(bookingRepository.findSnapshotsByBooker(eq(3L))).thenReturn(List.of());
+        counters.forBooker(1L, NOW);
+        counters.forBooker(2L, NOW);
+        counters.forBooker(3L, NOW);
+
+        // Вытесненный пользователь не получает событий и при следующем запросе читается заново
+        counters.onBookingChanged(new BookingChangedEvent(10L, 7L, 9L, 1L,
+                NOW.plusDays(1), NOW.plusDays(2), null, null, null, BookingStatus.WAITING));
+        counters.forBooker(2L, NOW);
+        counters.forBooker(1L, NOW);
+
+        verify(bookingRepository, times(2)).findSnapshotsByBooker(eq(1L));
+        verify(bookingRepository, times(1)).findSnapshotsByBooker(eq(2L));
+    }
+
+    @Test
+    public void testForOwner_ReloadsAfterTtl() {
+        counters = new BookingCounters(bookingRepository, Duration.ZERO, 2);
+        when(bookingRepository.findSnapshotsByOwner(eq(2L))).thenReturn(List.of(),
+                List.of(new BookingSnapshot(10L, NOW.plusDays(1), NOW.plusDays(2), BookingStatus.WAITING, null, null)));
+
+        assertThat(counters.forOwner(2L, NOW)).isEqualTo(new BookingCountsDto(0, 0, 0, 0, 0, 0));
+        // Бронирование создано другим экземпляром: событие сюда не пришло, но оно видно после перечитывания
+        assertThat(counters.forOwner(2L, NOW)).isEqualTo(new BookingCountsDto(1, 0, 0, 1, 1, 0));
+    }
+}
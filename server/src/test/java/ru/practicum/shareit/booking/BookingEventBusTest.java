@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookingEventBusTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 10, 12, 0);
+
+    private final BookingEventBus bus = new BookingEventBus(2, Duration.ofMinutes(1));
+
+    @AfterEach
+    public void tearDown() {
+        bus.destroy();
+    }
+
+    @Test
+    public void testOnBookingChanged_DeliversToBookerAndOwnerOnly() throws Exception {
+        RecordingEmitter booker = new RecordingEmitter(1);
+        RecordingEmitter owner = new RecordingEmitter(1);
+        RecordingEmitter stranger = new RecordingEmitter(1);
+        bus.subscribe(1L, booker);
+        bus.subscribe(2L, owner);
+        bus.subscribe(3L, stranger);
+
+        bus.onBookingChanged(event(10L, null, BookingStatus.WAITING));
+
+        // Данные события сериализует конвертер при отправке, здесь виден сам BookingEventDto
+        assertThat(booker.await()).contains("event:created", "bookingId=10", "status=WAITING");
+        assertThat(owner.await()).contains("event:created", "bookingId=10");
+        assertThat(stranger.messages).isEmpty();
+    }
+
+    @Test
+    public void testOnBookingChanged_ClosesSubscriberOnBufferOverflow() {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(1) {
+            @Override
+            public void send(Set<DataWithMediaType> items) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        bus.subscribe(1L, slow);
+
+        // Одно сообщение отправляется, два ждут в буфере, следующее в него уже не помещается
+        for (long id = 1; id <= 4; id++) {
+            bus.onBookingChanged(event(id, BookingStatus.WAITING, BookingStatus.APPROVED));
+        }
+        release.countDown();
+
+        assertThat(bus.subscriberCount(1L)).isZero();
+    }
+
+    private static BookingChangedEvent event(Long bookingId, BookingStatus oldStatus, BookingStatus newStatus) {
+        return new BookingChangedEvent(bookingId, 5L, 2L, 1L, START, START.plusDays(1), null, null, oldStatus, newStatus);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received;
+
+        RecordingEmitter(int expected) {
+            received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            messages.add(items.stream()
+                    .map(item -> String.valueOf(item.getData()))
+                    .collect(Collectors.joining()));
+            received.countDown();
+        }
+
+        String await() throws InterruptedException {
+            assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+            return String.join("", messages);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочное сравнение режимов приёма бронирований: много клиентов одновременно бронируют одну
+ * вещь, каждый период запрашивают сразу несколько клиентов. Очередь вещи вмещает всех клиентов,
+ * чтобы SEQUENCED не отбрасывал часть заявок с 429 и оба режима обрабатывали одинаковую нагрузку.
+ * Запускается отдельно:
+ * {@code mvn test -Dtest=BookingIntakeBenchmarkTest -Dshareit.benchmark=true
+ * [-Dshareit.benchmark.clients=5000]}. Результаты пишутся в лог.
+ */
+@Slf4j
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "shareit.bookings.intake.queue-size=${shareit.benchmark.clients:2000}")
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingIntakeBenchmarkTest {
+    private static final int CLIENTS = Integer.getInteger("shareit.benchmark.clients", 2_000);
+    // На каждый период приходится CLIENTS / SLOTS претендентов
+    private static final int SLOTS = 200;
+
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingSequencer sequencer;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    public void setUp() {
+        owner = userRepository.save(new User(null, "Владелец", "owner@intake.bench"));
+        booker = userRepository.save(new User(null, "Арендатор", "booker@intake.bench"));
+
+        item = new Item();
+        item.setName("Новинка");
+        item.setDescription("Вещь, которую бронируют все сразу");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM bookings WHERE item_id = ?", item.getId());
+        itemRepository.deleteById(item.getId());
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    public void direct() throws Exception {
+        run(BookingIntakeMode.DIRECT, booking -> intervalIndex.reserve(item.getId(), booking.getStart(),
+                booking.getEnd(), () -> bookingRepository.save(booking)));
+    }
+
+    @Test
+    public void sequenced() throws Exception {
+        run(BookingIntakeMode.SEQUENCED, sequencer::submit);
+    }
+
+    private void run(BookingIntakeMode mode, UnaryOperator<Booking> intake) throws Exception {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> requests = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            LocalDateTime start = base.plusDays(i % SLOTS);
+            Booking booking = new Booking();
+            booking.setItem(item);
+            booking.setBooker(booker);
+            booking.setStart(start);
+            booking.setEnd(start.plusHours(12));
+            booking.setStatus(BookingStatus.WAITING);
+            requests.add(booking);
+        }
+        Collections.shuffle(requests);
+
+        long[] latencies = new long[CLIENTS];
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger throttled = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> clients = new ArrayList<>(CLIENTS);
+
+        long started;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                int client = i;
+                clients.add(executor.submit(() -> {
+                    go.await();
+                    long t0 = System.nanoTime();
+                    try {
+                        intake.apply(requests.get(client));
+                        accepted.incrementAndGet();
+                    } catch (ConflictException e) {
+                        conflicts.incrementAndGet();
+                    } catch (TooManyRequestsException e) {
+                        throttled.incrementAndGet();
+                    }
+                    latencies[client] = System.nanoTime() - t0;
+                    return null;
+                }));
+            }
+            started = System.nanoTime();
+            go.countDown();
+            for (Future<?> client : clients) {
+                client.get(5, TimeUnit.MINUTES);
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+
+        Arrays.sort(latencies);
+        log.info("{}: {} requests in {} ms ({} req/s), accepted {}, conflicts {}, throttled {}, " +
+                        "latency p50 {} ms, p99 {} ms, max {} ms",
+                mode, CLIENTS, TimeUnit.NANOSECONDS.toMillis(elapsed), CLIENTS * 1_000_000_000L / elapsed,
+                accepted.get(), conflicts.get(), throttled.get(), millis(latencies, 0.5), millis(latencies, 0.99),
+                TimeUnit.NANOSECONDS.toMillis(latencies[CLIENTS - 1]));
+
+        // Каждый период достаётся ровно одному клиенту
+        Long stored = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE item_id = ?", Long.class,
+                item.getId());
+        assertThat(stored).isEqualTo(accepted.get());
+        assertThat(throttled.get()).isZero();
+        assertThat(accepted.get()).isEqualTo(SLOTS);
+        intervalIndex.invalidate(item.getId());
+    }
+
+    private static long millis(long[] sorted, double percentile) {
+        return TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(percentile * sorted.length) - 1]);
+    }
+}
@@ -0,0 +1,179 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    private static final int MAX_ITEMS = 4;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingIntervalIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookingIntervalIndex(bookingRepository, MAX_ITEMS);
+    }
+
+    @Test
+    public void testReserve_RejectsOverlapWithLoadedPeriods() {
+        when(bookingRepository.findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPeriod(day(1), day(3)), new BookingPeriod(day(5), day(6))));
+
+        Assertions.assertThrows(ConflictException.class, () -> index.reserve(1L, day(2), day(4), () -> "saved"));
+        Assertions.assertThrows(ConflictException.class, () -> index.reserve(1L, day(0), day(10), () -> "saved"));
+        assertThat(index.isFree(1L, day(3), day(5))).isTrue();
+    }
+
+    @Test
+    public void testReserve_AddsPeriodAfterWrite() {
+        when(bookingRepository.findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        assertThat(index.reserve(1L, day(1), day(2), () -> "saved")).isEqualTo("saved");
+
+        assertThat(index.isFree(1L, day(1), day(2))).isFalse();
+        assertThat(index.isFree(1L, day(2), day(3))).isTrue(); // Смежные периоды не пересекаются
+        verify(bookingRepository, times(1)).findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testReserve_FailedWriteDoesNotOccupyPeriod() {
+        when(bookingRepository.findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> index.reserve(1L, day(1), day(2), () -> {
+            throw new IllegalStateException("Ошибка записи");
+        }));
+
+        assertThat(index.isFree(1L, day(1), day(2))).isTrue();
+    }
+
+    @Test
+    public void testReserve_SeriesCheckedOccurrenceByOccurrence() {
+        when(bookingRepository.findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPeriod(day(15), day(16))));
+        BookingRecurrence weekly = new BookingRecurrence(day(0), day(1), BookingRepeat.WEEKLY, 10);
+
+        // Третий повтор (14-15 день) не пересекается с периодом 15-16, а при длине в два дня - пересекается
+        assertThat(index.reserve(1L, weekly, () -> "saved")).isEqualTo("saved");
+        Assertions.assertThrows(ConflictException.class, () -> index.reserve(1L,
+                new BookingRecurrence(day(1), day(3), BookingRepeat.WEEKLY, 10), () -> "saved"));
+
+        assertThat(index.isFree(1L, day(63), day(64))).isFalse();
+        assertThat(index.isFree(1L, day(70), day(71))).isTrue();
+        assertThat(index.busyPeriods(1L, day(13), day(22))).extracting(BookingPeriod::getStart)
+                .containsExactly(day(14), day(15), day(21));
+    }
+
+    @Test
+    public void testInvalidate_ReloadsFromRepository() {
+        when(bookingRepository.findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPeriod(day(1), day(2))))
+                .thenReturn(List.of());
+
+        assertThat(index.isFree(1L, day(1), day(2))).isFalse();
+        index.invalidate(1L);
+        assertThat(index.isFree(1L, day(1), day(2))).isTrue();
+    }
+
+    @Test
+    public void testInvalidate_WaitsForReserveInProgress() throws Exception {
+        when(bookingRepository.findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new BookingPeriod(day(1), day(2))));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> reserved = CompletableFuture.supplyAsync(() -> index.reserve(1L, day(1), day(2),
+                () -> {
+                    writing.countDown();
+                    await(release);
+                    return "saved";
+                }));
+        writing.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> invalidated = CompletableFuture.runAsync(() -> index.invalidate(1L));
+
+        // Сброс не может вклиниться между проверкой и записью
+        Thread.sleep(100);
+        assertThat(invalidated).isNotDone();
+        release.countDown();
+        assertThat(reserved.get(5, TimeUnit.SECONDS)).isEqualTo("saved");
+        invalidated.get(5, TimeUnit.SECONDS);
+
+        // После сброса данные перечитаны из базы, где записанное бронирование уже есть
+        Assertions.assertThrows(ConflictException.class, () -> index.reserve(1L, day(1), day(2), () -> "saved"));
+        verify(bookingRepository, times(2)).findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testLock_EvictsItemsAboveLimit() {
+        when(bookingRepository.findActivePeriods(anyLong(), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPeriod(day(1), day(2))));
+
+        for (long itemId = 1; itemId <= 10; itemId++) {
+            assertThat(index.isFree(itemId, day(1), day(2))).isFalse();
+            assertThat(index.size()).isLessThanOrEqualTo(MAX_ITEMS);
+        }
+        // Вытесненная вещь загружается заново
+        assertThat(index.isFree(1L, day(1), day(2))).isFalse();
+        verify(bookingRepository, times(2)).findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testLoad_MergesOverlappingHistoricalPeriods() {
+        when(bookingRepository.findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPeriod(day(1), day(10)), new BookingPeriod(day(2), day(3))));
+
+        assertThat(index.isFree(1L, day(5), day(6))).isFalse();
+        assertThat(index.isFree(1L, day(10), day(11))).isTrue();
+    }
+
+    @Test
+    public void testBusyPeriods_ReturnsPeriodsOverlappingWindow() {
+        when(bookingRepository.findActivePeriods(eq(1L), anyCollection(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new BookingPeriod(day(1), day(3)), new BookingPeriod(day(5), day(6)),
+                        new BookingPeriod(day(8), day(9))));
+
+        List<BookingPeriod> busy = index.busyPeriods(1L, day(2), day(8));
+
+        assertThat(busy).extracting(BookingPeriod::getStart).containsExactly(day(1), day(5));
+        assertThat(index.busyPeriods(1L, day(3), day(5))).isEmpty();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LocalDateTime day(int day) {
+        return BASE.plusDays(day);
+    }
+}
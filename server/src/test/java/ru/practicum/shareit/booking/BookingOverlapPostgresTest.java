@@ -0,0 +1,182 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.config.PostgresSchemaInitializer;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Триггер booking_check_overlap в PostgreSQL: пересечение активных бронирований вещи отклоняется
+ * во всей таблице, в том числе когда бронирования лежат в разных месячных секциях. В H2 тест
+ * пропускается; запуск на PostgreSQL - {@code mvn -P postgres test -pl server}.
+ * Транзакции здесь настоящие, поэтому тест не транзакционный и удаляет свои данные сам.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingOverlapPostgresTest {
+    private static final String INSERT = "INSERT INTO bookings (start_date, end_date, item_id, booker_id, status) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_SERIES = "INSERT INTO bookings (start_date, end_date, item_id, booker_id, "
+            + "status, repeat_rule, repeat_count, series_end) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final PostgresSchemaInitializer schema;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    // Начало месяца, для которого уже создана секция; предыдущий месяц - тоже отдельная секция
+    private final LocalDateTime boundary = LocalDateTime.now().plusMonths(2).withDayOfMonth(1)
+            .truncatedTo(ChronoUnit.DAYS);
+
+    @BeforeEach
+    public void setUp() {
+        assumeTrue(schema.isPostgres(), "Триггер есть только в PostgreSQL");
+        owner = userRepository.save(new User(null, "Владелец", "owner@overlap.pg"));
+        booker = userRepository.save(new User(null, "Арендатор", "booker@overlap.pg"));
+
+        item = new Item();
+        item.setName("Байдарка");
+        item.setDescription("Двухместная байдарка");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        itemRepository.save(item);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (item == null) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM bookings WHERE item_id = ?", item.getId());
+        itemRepository.deleteById(item.getId());
+        userRepository.deleteAllById(List.of(owner.getId(), booker.getId()));
+    }
+
+    @Test
+    public void insert_OverlapAcrossMonths_Rejected() {
+        insert(boundary.minusDays(2), boundary.plusDays(3), BookingStatus.APPROVED);
+
+        DataIntegrityViolationException e = Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> insert(boundary.plusDays(1), boundary.plusDays(2), BookingStatus.WAITING));
+        assertThat(BookingIntervalIndex.isOverlapViolation(e)).isTrue();
+    }
+
+    @Test
+    public void insert_AdjacentOrInactive_AcceptedUntilActivated() {
+        insert(boundary.minusDays(2), boundary.plusDays(3), BookingStatus.WAITING);
+        insert(boundary.plusDays(3), boundary.plusDays(4), BookingStatus.WAITING);
+        insert(boundary.plusDays(1), boundary.plusDays(2), BookingStatus.REJECTED);
+
+        DataIntegrityViolationException e = Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("UPDATE bookings SET status = 'WAITING' WHERE item_id = ? "
+                        + "AND status = 'REJECTED'", item.getId()));
+        assertThat(BookingIntervalIndex.isOverlapViolation(e)).isTrue();
+    }
+
+    @Test
+    public void insert_SeriesOccurrences_ComparedOneByOne() {
+        // Еженедельная серия: повторы на boundary, boundary + 7 дней, ... - в разных месячных секциях
+        insertSeries(boundary, boundary.plusDays(1), BookingRepeat.WEEKLY, 8, BookingStatus.APPROVED);
+
+        // Между повторами вещь свободна
+        insert(boundary.plusDays(1), boundary.plusDays(3), BookingStatus.WAITING);
+        insertSeries(boundary.plusDays(3), boundary.plusDays(4), BookingRepeat.WEEKLY, 8, BookingStatus.WAITING);
+
+        DataIntegrityViolationException single = Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> insert(boundary.plusWeeks(5).plusHours(12), boundary.plusWeeks(5).plusHours(13),
+                        BookingStatus.WAITING));
+        assertThat(BookingIntervalIndex.isOverlapViolation(single)).isTrue();
+
+        DataIntegrityViolationException series = Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> insertSeries(boundary.minusMonths(1), boundary.minusMonths(1).plusHours(1),
+                        BookingRepeat.MONTHLY, 3, BookingStatus.WAITING));
+        assertThat(BookingIntervalIndex.isOverlapViolation(series)).isTrue();
+    }
+
+    @Test
+    public void insert_ConcurrentOverlapsInDifferentMonths_OnlyOneCommits() throws Exception {
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        List<LocalDateTime> starts = List.of(boundary.minusDays(1), boundary.plusHours(12));
+
+        ExecutorService executor = Executors.newFixedThreadPool(starts.size());
+        try {
+            List<Future<?>> futures = starts.stream()
+                    .<Future<?>>map(start -> executor.submit(() -> {
+                        ready.await();
+                        try {
+                            transactionTemplate.executeWithoutResult(status -> {
+                                insert(start, start.plusDays(2), BookingStatus.WAITING);
+                                // Вторая транзакция должна успеть начать вставку до фиксации первой
+                                sleep();
+                            });
+                            committed.incrementAndGet();
+                        } catch (DataIntegrityViolationException e) {
+                            assertThat(BookingIntervalIndex.isOverlapViolation(e)).isTrue();
+                            rejected.incrementAndGet();
+                        }
+                        return null;
+                    }))
+                    .toList();
+            ready.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(committed.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(1);
+    }
+
+    private void insert(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        jdbcTemplate.update(INSERT, Timestamp.valueOf(start), Timestamp.valueOf(end), item.getId(), booker.getId(),
+                status.name());
+    }
+
+    private void insertSeries(LocalDateTime start, LocalDateTime end, BookingRepeat repeat, int count,
+                              BookingStatus status) {
+        LocalDateTime seriesEnd = new BookingRecurrence(start, end, repeat, count).seriesEnd();
+        jdbcTemplate.update(INSERT_SERIES, Timestamp.valueOf(start), Timestamp.valueOf(end), item.getId(),
+                booker.getId(), status.name(), repeat.name(), count, Timestamp.valueOf(seriesEnd));
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
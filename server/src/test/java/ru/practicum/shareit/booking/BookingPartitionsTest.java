@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.config.PostgresSchemaInitializer;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingPartitionsTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PostgresSchemaInitializer schema;
+
+    @Test
+    public void testMaintain_SkipsWithoutPostgres() {
+        BookingPartitions partitions = new BookingPartitions(jdbcTemplate, schema, 12, 180);
+
+        partitions.maintain();
+
+        assertThat(partitions.activeFrom()).isEqualTo(BookingPartitions.NO_ARCHIVE);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void testMaintain_MovesActiveFromToArchiveBoundary() {
+        LocalDateTime boundary = LocalDateTime.of(2030, 2, 1, 0, 0);
+        when(schema.isPostgres()).thenReturn(true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(LocalDateTime.class), eq(12), any(LocalDateTime.class)))
+                .thenReturn(boundary);
+        BookingPartitions partitions = new BookingPartitions(jdbcTemplate, schema, 12, 180);
+
+        partitions.maintain();
+
+        assertThat(partitions.activeFrom()).isEqualTo(boundary);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.booking;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingQueryCountTest {
+    private static final int BOOKINGS = 1000;
+
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+
+    private User owner;
+    private User booker;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        owner = userRepository.save(new User(null, "Владелец", "owner@query.count"));
+        booker = userRepository.save(new User(null, "Арендатор", "booker@query.count"));
+
+        // Много разных вещей, чтобы ленивые item/booker давали отдельный SELECT на строку
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Item item = new Item();
+            item.setName("Вещь " + i);
+            item.setDescription("Описание " + i);
+            item.setAvailable(true);
+            item.setOwner(owner);
+            items.add(item);
+        }
+        itemRepository.saveAll(items);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking();
+            booking.setStart(start.plusHours(i));
+            booking.setEnd(start.plusHours(i + 1));
+            booking.setItem(items.get(i % items.size()));
+            booking.setBooker(booker);
+            booking.setStatus(BookingStatus.WAITING);
+            bookings.add(booking);
+        }
+        bookingRepository.saveAll(bookings);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    public void ownerPageCostsConstantNumberOfStatements() {
+        List<BookingDto> page = bookingService.getBookingsForOwnedItems(BookingController.State.ALL, owner.getId(),
+                0, BOOKINGS, null);
+
+        assertThat(page).hasSize(BOOKINGS);
+        assertThat(page.get(0).getItem().getName()).startsWith("Вещь ");
+        assertThat(page.get(0).getBooker().getId()).isEqualTo(booker.getId());
+        // Проверка пользователя, поиск серий и один SELECT на страницу
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void bookerPageCostsSameStatementsAsSmallPage() {
+        bookingService.getBookingsForCurrentUser(BookingController.State.FUTURE, booker.getId(), 0, 10, null);
+        long smallPage = statistics.getPrepareStatementCount();
+        statistics.clear();
+
+        List<BookingDto> page = bookingService.getBookingsForCurrentUser(BookingController.State.FUTURE, booker.getId(),
+                0, BOOKINGS, null);
+
+        assertThat(page).hasSize(BOOKINGS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(smallPage);
+    }
+}
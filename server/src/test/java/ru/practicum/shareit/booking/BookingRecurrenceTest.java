@@ -0,0 +1,43 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookingRecurrenceTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 31, 10, 0);
+
+    @Test
+    public void testOccurrences_ShiftedFromFirst() {
+        BookingRecurrence monthly = new BookingRecurrence(START, START.plusHours(3), BookingRepeat.MONTHLY, 3);
+
+        // Короткие месяцы обрезают день, но следующий повтор снова считается от первого
+        assertThat(monthly.startOf(1)).isEqualTo(LocalDateTime.of(2030, 2, 28, 10, 0));
+        assertThat(monthly.startOf(2)).isEqualTo(LocalDateTime.of(2030, 3, 31, 10, 0));
+        assertThat(monthly.endOf(1)).isEqualTo(LocalDateTime.of(2030, 2, 28, 13, 0));
+        assertThat(monthly.seriesEnd()).isEqualTo(LocalDateTime.of(2030, 3, 31, 13, 0));
+    }
+
+    @Test
+    public void testFirst_FindsBoundaryByBinarySearch() {
+        BookingRecurrence weekly = new BookingRecurrence(START, START.plusHours(2), BookingRepeat.WEEKLY, 520);
+        LocalDateTime moment = START.plusWeeks(300).plusHours(1);
+
+        assertThat(weekly.first(k -> weekly.endOf(k).isAfter(moment))).isEqualTo(300);
+        assertThat(weekly.first(k -> weekly.startOf(k).isAfter(moment))).isEqualTo(301);
+        assertThat(weekly.first(k -> false)).isEqualTo(520);
+        assertThat(weekly.first(k -> true)).isZero();
+    }
+
+    @Test
+    public void testOverlaps_OnlyPeriodsTouchingAnOccurrence() {
+        BookingRecurrence daily = new BookingRecurrence(START, START.plusHours(2), BookingRepeat.DAILY, 10);
+
+        assertThat(daily.overlaps(START.plusDays(4).plusHours(1), START.plusDays(4).plusHours(5))).isTrue();
+        assertThat(daily.overlaps(START.plusDays(4).plusHours(2), START.plusDays(5))).isFalse();
+        assertThat(daily.overlaps(START.minusDays(1), START.plusDays(30))).isTrue();
+        assertThat(daily.overlaps(START.plusDays(9).plusHours(2), START.plusDays(30))).isFalse();
+    }
+}
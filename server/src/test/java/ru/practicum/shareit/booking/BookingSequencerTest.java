@@ -0,0 +1,219 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingSequencerTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final int CLIENTS = 50;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingBatchRepository bookingBatchRepository;
+
+    private final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+    private BookingSequencer sequencer;
+
+    @AfterEach
+    public void tearDown() {
+        clients.shutdownNow();
+        if (sequencer != null) {
+            sequencer.destroy();
+        }
+    }
+
+    @Test
+    public void testSubmit_SamePeriod_OnlyOneAccepted() throws Exception {
+        sequencer = sequencer(new BookingIntervalIndex(bookingRepository, CLIENTS), CLIENTS);
+        AtomicInteger inserted = recordInserts();
+
+        List<Future<Booking>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            results.add(clients.submit(() -> sequencer.submit(booking(day(1), day(2)))));
+        }
+
+        int accepted = 0;
+        for (Future<Booking> result : results) {
+            try {
+                assertThat(result.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+                accepted++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(ConflictException.class);
+            }
+        }
+        assertThat(accepted).isEqualTo(1);
+        assertThat(inserted.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSubmit_DistinctPeriods_AllWrittenInBatches() throws Exception {
+        sequencer = sequencer(new BookingIntervalIndex(bookingRepository, CLIENTS), CLIENTS);
+        AtomicInteger inserted = recordInserts();
+
+        List<Future<Booking>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            LocalDateTime start = day(i);
+            results.add(clients.submit(() -> sequencer.submit(booking(start, start.plusHours(12)))));
+        }
+
+        for (Future<Booking> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        }
+        assertThat(inserted.get()).isEqualTo(CLIENTS);
+    }
+
+    @Test
+    public void testSubmit_FullQueue_RejectsWithTooManyRequests() throws Exception {
+        BookingIntervalIndex intervalIndex = mock(BookingIntervalIndex.class);
+        sequencer = sequencer(intervalIndex, 1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(intervalIndex.withItems(any(), any())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            throw new IllegalStateException("База недоступна");
+        });
+
+        // Первая заявка уже у обработчика, вторая занимает единственное место в очереди
+        Future<Booking> first = clients.submit(() -> sequencer.submit(booking(day(1), day(2))));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Booking> second = clients.submit(() -> sequencer.submit(booking(day(3), day(4))));
+        for (int i = 0; i < 500 && sequencer.queued(1L) == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(sequencer.queued(1L)).isEqualTo(1);
+
+        Assertions.assertThrows(TooManyRequestsException.class, () -> sequencer.submit(booking(day(5), day(6))));
+
+        release.countDown();
+        assertThat(Assertions.assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause())
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(Assertions.assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testSubmit_SingleInsertFallback_CompletesEachRequestOnItsOwn() throws Exception {
+        BookingIntervalIndex intervalIndex = spy(new BookingIntervalIndex(bookingRepository, CLIENTS));
+        sequencer = sequencer(intervalIndex, CLIENTS);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            if (bookings.size() > 1) {
+                throw overlapViolation();
+            }
+            Booking booking = bookings.get(0);
+            if (booking.getStart().equals(day(1))) {
+                writing.countDown();
+                release.await();
+            } else if (booking.getStart().equals(day(5))) {
+                throw new DataIntegrityViolationException("NULL not allowed for column \"booker_id\"");
+            } else if (booking.getStart().equals(day(7))) {
+                throw overlapViolation();
+            }
+            booking.setId(ids.incrementAndGet());
+            return null;
+        }).when(bookingBatchRepository).insertAll(anyList());
+
+        // Пока пишется первая заявка, остальные три собираются в одну пачку
+        Future<Booking> first = clients.submit(() -> sequencer.submit(booking(day(1), day(2))));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Booking> saved = clients.submit(() -> sequencer.submit(booking(day(3), day(4))));
+        awaitQueued(1);
+        Future<Booking> broken = clients.submit(() -> sequencer.submit(booking(day(5), day(6))));
+        awaitQueued(2);
+        Future<Booking> overlapping = clients.submit(() -> sequencer.submit(booking(day(7), day(8))));
+        awaitQueued(3);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThat(saved.get(5, TimeUnit.SECONDS).getId()).isNotNull();
+        assertThat(Assertions.assertThrows(ExecutionException.class, () -> broken.get(5, TimeUnit.SECONDS)).getCause())
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(Assertions.assertThrows(ExecutionException.class, () -> overlapping.get(5, TimeUnit.SECONDS))
+                .getCause()).isInstanceOf(ConflictException.class);
+        verify(intervalIndex).invalidate(1L);
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && sequencer.queued(1L) < count; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(sequencer.queued(1L)).isEqualTo(count);
+    }
+
+    private static DataIntegrityViolationException overlapViolation() {
+        return new DataIntegrityViolationException("conflicting key value violates exclusion constraint \""
+                + BookingIntervalIndex.OVERLAP_CONSTRAINT + "\"");
+    }
+
+    private BookingSequencer sequencer(BookingIntervalIndex intervalIndex, int queueSize) {
+        return new BookingSequencer(intervalIndex, bookingBatchRepository, new SimpleMeterRegistry(),
+                BookingIntakeMode.SEQUENCED, queueSize, 10);
+    }
+
+    private AtomicInteger recordInserts() {
+        AtomicLong ids = new AtomicLong();
+        AtomicInteger inserted = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.forEach(booking -> booking.setId(ids.incrementAndGet()));
+            inserted.addAndGet(bookings.size());
+            return null;
+        }).when(bookingBatchRepository).insertAll(anyList());
+        return inserted;
+    }
+
+    private static Booking booking(LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItem(new Item());
+        booking.getItem().setId(1L);
+        booking.setBooker(new User());
+        booking.getBooker().setId(2L);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(BookingStatus.WAITING);
+        return booking;
+    }
+
+    private static LocalDateTime day(int day) {
+        return BASE.plusDays(day);
+    }
+}
@@ -6,10 +6,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ForbiddenOperationException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
@@ -22,10 +26,16 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +55,30 @@ public class BookingServiceImplUnitTest {
     @Mock
     private BookingMapper bookingMapper;
 
+    @Mock
+    private BookingIntervalIndex intervalIndex;
+
+    @Mock
+    private BookingBatchRepository bookingBatchRepository;
+
+    @Mock
+    private BookingCounters bookingCounters;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private BookingPartitions partitions;
+
+    @Mock
+    private BookingEventBus eventBus;
+
+    @Mock
+    private BookingSequencer sequencer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @Test
     public void testCreateBooking_UserNotFound() {
         // Подготовка тестовых данных
@@ -124,7 +158,7 @@ public class BookingServiceImplUnitTest {
         booking.getItem().setOwner(new User());
         booking.getItem().getOwner().setId(2L); // Другой пользователь
 
-        when(bookingRepository.findById(eq(bookingId))).thenReturn(Optional.of(booking));
+        when(bookingRepository.findWithItemById(eq(bookingId))).thenReturn(Optional.of(booking));
 
         // Ожидаем исключение
         Assertions.assertThrows(ForbiddenOperationException.class, () -> {
@@ -132,6 +166,67 @@ public class BookingServiceImplUnitTest {
         });
     }
 
+    @Test
+    public void testApproveBooking_CanceledByExpiry() {
+        Booking booking = new Booking();
+        booking.setId(1L);
+        booking.setStatus(BookingStatus.CANCELED);
+        booking.setItem(new Item());
+        booking.getItem().setOwner(new User());
+        booking.getItem().getOwner().setId(1L);
+
+        when(bookingRepository.findWithItemById(eq(1L))).thenReturn(Optional.of(booking));
+
+        Assertions.assertThrows(ValidationException.class, () -> {
+            bookingService.approveBooking(1L, true, 1L);
+        });
+        verify(bookingRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testApproveBooking_AlreadyReviewed() {
+        Booking booking = ownedBooking(BookingStatus.REJECTED, 3L);
+
+        when(bookingRepository.findWithItemById(eq(1L))).thenReturn(Optional.of(booking));
+
+        Assertions.assertThrows(ConflictException.class, () -> {
+            bookingService.approveBooking(1L, true, 1L);
+        });
+        verify(bookingRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testApproveBooking_RetriesAfterConcurrentUpdate() {
+        Booking stale = ownedBooking(BookingStatus.WAITING, 0L);
+        Booking fresh = ownedBooking(BookingStatus.WAITING, 1L);
+        BookingDto bookingDto = new BookingDto();
+
+        when(bookingRepository.findWithItemById(eq(1L))).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(bookingRepository.transitionStatus(1L, BookingStatus.WAITING, 0L, BookingStatus.REJECTED)).thenReturn(0);
+        when(bookingRepository.transitionStatus(1L, BookingStatus.WAITING, 1L, BookingStatus.REJECTED)).thenReturn(1);
+        when(bookingMapper.toBookingDto(fresh)).thenReturn(bookingDto);
+
+        assertThat(bookingService.approveBooking(1L, false, 1L)).isSameAs(bookingDto);
+        assertThat(fresh.getStatus()).isEqualTo(BookingStatus.REJECTED);
+        assertThat(fresh.getVersion()).isEqualTo(2L);
+        verify(intervalIndex).invalidate(10L);
+        verify(eventPublisher).publishEvent(any(BookingChangedEvent.class));
+    }
+
+    @Test
+    public void testApproveBooking_ConflictWhenRetriesExhausted() {
+        when(bookingRepository.findWithItemById(eq(1L)))
+                .thenAnswer(invocation -> Optional.of(ownedBooking(BookingStatus.WAITING, 0L)));
+        when(bookingRepository.transitionStatus(1L, BookingStatus.WAITING, 0L, BookingStatus.APPROVED)).thenReturn(0);
+
+        Assertions.assertThrows(ConflictException.class, () -> {
+            bookingService.approveBooking(1L, true, 1L);
+        });
+        verify(bookingRepository, times(BookingServiceImpl.MAX_APPROVE_ATTEMPTS))
+                .transitionStatus(1L, BookingStatus.WAITING, 0L, BookingStatus.APPROVED);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
     @Test
     public void testGetBooking_ForbiddenOperation() {
         // Подготовка тестовых данных
@@ -166,7 +261,7 @@ public class BookingServiceImplUnitTest {
 
         // Ожидаем исключение
         Assertions.assertThrows(NotFoundException.class, () -> {
-            bookingService.getBookingsForCurrentUser(state, userId);
+            bookingService.getBookingsForCurrentUser(state, userId, 0, 10, null);
         });
     }
 
@@ -180,21 +275,14 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения будущих бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
-
-        when(bookingRepository.findFutureBookings(eq(userId), any(LocalDateTime.class))).thenReturn(bookings);
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
-
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(bookingRepository.findFutureBookings(eq(userId), any(LocalDateTime.class), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -211,21 +299,15 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения ожидающих бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
-
-        when(bookingRepository.findBookingsByStatus(eq(userId), eq(BookingStatus.WAITING))).thenReturn(bookings);
-
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(partitions.activeFrom()).thenReturn(BookingPartitions.NO_ARCHIVE);
+        when(bookingRepository.findBookingsByStatus(eq(userId), eq(BookingStatus.WAITING), eq(BookingPartitions.NO_ARCHIVE), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -242,21 +324,14 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения отклоненных бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        when(bookingRepository.findBookingsByStatus(eq(userId), eq(BookingStatus.REJECTED))).thenReturn(bookings);
-
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
-
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(bookingRepository.findBookingsByStatus(eq(userId), eq(BookingStatus.REJECTED), eq(BookingPartitions.NO_ARCHIVE), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -273,21 +348,14 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения прошлых бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
-
-        when(bookingRepository.findPastBookings(eq(userId), any(LocalDateTime.class))).thenReturn(bookings);
-
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(bookingRepository.findPastBookings(eq(userId), any(LocalDateTime.class), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -304,21 +372,14 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения всех бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        when(bookingRepository.findAllBookings(eq(userId))).thenReturn(bookings);
-
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
-
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(bookingRepository.findAllBookings(eq(userId), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForCurrentUser(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -336,7 +397,7 @@ public class BookingServiceImplUnitTest {
 
         // Ожидаем исключение
         Assertions.assertThrows(NotFoundException.class, () -> {
-            bookingService.getBookingsForOwnedItems(state, userId);
+            bookingService.getBookingsForOwnedItems(state, userId, 0, 10, null);
         });
     }
 
@@ -350,21 +411,15 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
-
-        when(bookingRepository.findCurrentBookingsForOwner(eq(userId), any(LocalDateTime.class))).thenReturn(bookings);
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
-
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(partitions.activeFrom()).thenReturn(BookingPartitions.NO_ARCHIVE);
+        when(bookingRepository.findCurrentBookingsForOwner(eq(userId), any(LocalDateTime.class), eq(BookingPartitions.NO_ARCHIVE), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -381,21 +436,14 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения будущих бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
-
-        when(bookingRepository.findFutureBookingsForOwner(eq(userId), any(LocalDateTime.class))).thenReturn(bookings);
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
-
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(bookingRepository.findFutureBookingsForOwner(eq(userId), any(LocalDateTime.class), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -412,21 +460,15 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения ожидающих бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
-
-        when(bookingRepository.findBookingsByStatusForOwner(eq(userId), eq(BookingStatus.WAITING))).thenReturn(bookings);
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
-
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(partitions.activeFrom()).thenReturn(BookingPartitions.NO_ARCHIVE);
+        when(bookingRepository.findBookingsByStatusForOwner(eq(userId), eq(BookingStatus.WAITING), eq(BookingPartitions.NO_ARCHIVE), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -443,21 +485,14 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения отклоненных бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
-
-        when(bookingRepository.findBookingsByStatusForOwner(eq(userId), eq(BookingStatus.REJECTED))).thenReturn(bookings);
-
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(bookingRepository.findBookingsByStatusForOwner(eq(userId), eq(BookingStatus.REJECTED), eq(BookingPartitions.NO_ARCHIVE), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
@@ -474,24 +509,121 @@ public class BookingServiceImplUnitTest {
         when(userRepository.existsById(eq(userId))).thenReturn(true);
 
         // Имитация получения прошлых бронирований
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(new Booking());
-        bookings.add(new Booking());
+        List<BookingDto> bookings = new ArrayList<>();
+        bookings.add(new BookingDto());
+        bookings.add(new BookingDto());
 
-        when(bookingRepository.findPastBookingsForOwner(eq(userId), any(LocalDateTime.class))).thenReturn(bookings);
-
-        // Имитация маппинга в DTO
-        List<BookingDto> bookingDtos = new ArrayList<>();
-        bookingDtos.add(new BookingDto());
-        bookingDtos.add(new BookingDto());
-
-        when(bookingMapper.toBookingDto(any(Booking.class))).thenReturn(new BookingDto());
+        when(bookingRepository.findPastBookingsForOwner(eq(userId), any(LocalDateTime.class), any(LocalDateTime.class), any(Long.class), any(Pageable.class))).thenReturn(bookings);
 
         // Вызов метода
-        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId);
+        List<BookingDto> result = bookingService.getBookingsForOwnedItems(state, userId, 0, 10, null);
 
         // Проверка результата
         assertThat(result).isNotEmpty();
         assertThat(result.size()).isEqualTo(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetBookingsForCurrentUser_InvalidCursor() {
+        // Ожидаем исключение на повреждённом курсоре
+        Assertions.assertThrows(ValidationException.class, () -> {
+            bookingService.getBookingsForCurrentUser(BookingController.State.ALL, 1L, 0, 10, "не-курсор");
+        });
+    }
+
+    @Test
+    public void testCreateBookings_BookerNotFound() {
+        BookingCreateDto bookingCreateDto = new BookingCreateDto();
+        bookingCreateDto.setItemId(1L);
+
+        when(userRepository.findById(eq(1L))).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(NotFoundException.class, () -> {
+            bookingService.createBookings(List.of(bookingCreateDto), 1L, BookingBatchMode.BEST_EFFORT);
+        });
+    }
+
+    @Test
+    public void testCreateBookings_EmptyBatch() {
+        Assertions.assertThrows(ValidationException.class, () -> {
+            bookingService.createBookings(List.of(), 1L, BookingBatchMode.ALL_OR_NOTHING);
+        });
+    }
+
+    @Test
+    public void testApproveBookings_NotFound() {
+        when(bookingRepository.findAllWithItemByIdIn(anyCollection())).thenReturn(List.of());
+
+        Assertions.assertThrows(NotFoundException.class, () -> {
+            bookingService.approveBookings(List.of(1L, 2L), true, 1L);
+        });
+    }
+
+    @Test
+    public void testApproveBookings_AlreadyDecided() {
+        when(bookingRepository.findAllWithItemByIdIn(anyCollection()))
+                .thenReturn(List.of(ownedBooking(BookingStatus.WAITING, 0L), ownedBooking(2L, BookingStatus.REJECTED)));
+
+        Assertions.assertThrows(ConflictException.class, () -> {
+            bookingService.approveBookings(List.of(1L, 2L), true, 1L);
+        });
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    @Test
+    public void testApproveBookings_DecidedConcurrently() {
+        when(bookingRepository.findAllWithItemByIdIn(anyCollection()))
+                .thenReturn(List.of(ownedBooking(BookingStatus.WAITING, 0L), ownedBooking(2L, BookingStatus.WAITING)));
+        doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // Между чтением и UPDATE второе бронирование рассмотрел другой запрос
+        when(bookingRepository.transitionStatuses(anyCollection(), eq(BookingStatus.WAITING),
+                eq(BookingStatus.APPROVED))).thenReturn(1);
+
+        Assertions.assertThrows(ConflictException.class, () -> {
+            bookingService.approveBookings(List.of(1L, 2L), true, 1L);
+        });
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testGetBookingCountsForOwnedItems_UserNotFound() {
+        when(userRepository.existsById(eq(1L))).thenReturn(false);
+
+        Assertions.assertThrows(NotFoundException.class, () -> {
+            bookingService.getBookingCountsForOwnedItems(1L);
+        });
+    }
+
+    @Test
+    public void testSubscribeToEvents_UserNotFound() {
+        when(userRepository.existsById(eq(1L))).thenReturn(false);
+
+        Assertions.assertThrows(NotFoundException.class, () -> {
+            bookingService.subscribeToEvents(1L);
+        });
+        verify(eventBus, never()).subscribe(any());
+    }
+
+    private static Booking ownedBooking(Long id, BookingStatus status) {
+        Booking booking = ownedBooking(status, 0L);
+        booking.setId(id);
+        return booking;
+    }
+
+    private static Booking ownedBooking(BookingStatus status, Long version) {
+        Booking booking = new Booking();
+        booking.setId(1L);
+        booking.setStatus(status);
+        booking.setVersion(version);
+        booking.setItem(new Item());
+        booking.getItem().setId(10L);
+        booking.getItem().setOwner(new User());
+        booking.getItem().getOwner().setId(1L);
+        booking.setBooker(new User());
+        booking.getBooker().setId(2L);
+        return booking;
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.booking.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.booking.BookingRepeat;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.ItemUtilizationDto;
+import ru.practicum.shareit.booking.dto.MonthUtilizationDto;
+import ru.practicum.shareit.booking.dto.OwnerUtilizationDto;
+import ru.practicum.shareit.booking.dto.PeakDemandDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingAnalyticsTest {
+    private static final YearMonth JANUARY = YearMonth.of(2030, 1);
+    private static final YearMonth MARCH = YearMonth.of(2030, 3);
+    private static final long HOUR = 3600;
+
+    @InjectMocks
+    private BookingAnalytics analytics;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Test
+    public void testUtilization_SplitsApprovedBookingsByMonth() {
+        when(bookingRepository.findFactsByOwner(eq(1L))).thenReturn(List.of(
+                fact(1L, 7L, at(2029, 12, 31, 0), at(2030, 1, 2, 0), BookingStatus.APPROVED),
+                fact(2L, 7L, at(2030, 1, 31, 12), at(2030, 2, 1, 12), BookingStatus.APPROVED),
+                fact(3L, 7L, at(2030, 2, 10, 0), at(2030, 2, 20, 0), BookingStatus.REJECTED),
+                fact(4L, 8L, at(2030, 1, 1, 12), at(2030, 1, 3, 0), BookingStatus.APPROVED),
+                fact(5L, 8L, at(2030, 3, 1, 0), at(2030, 3, 2, 0), BookingStatus.WAITING),
+                // Вещь, которой владелец больше не владеет, в отчёт не попадает
+                fact(6L, 99L, at(2030, 1, 1, 0), at(2030, 3, 1, 0), BookingStatus.APPROVED)));
+
+        OwnerUtilizationDto report = analytics.utilization(1L, List.of(item(9L, "Лестница"), item(8L, "Пила"),
+                item(7L, "Дрель")), JANUARY, MARCH);
+
+        assertThat(report.getItems()).extracting(ItemUtilizationDto::getItemId).containsExactly(7L, 8L, 9L);
+        assertThat(report.getItems().get(0).getMonths()).containsExactly(
+                new MonthUtilizationDto(JANUARY, 36 * HOUR, 4.84),
+                new MonthUtilizationDto(YearMonth.of(2030, 2), 12 * HOUR, 1.79),
+                new MonthUtilizationDto(MARCH, 0, 0.0));
+        assertThat(report.getItems().get(1).getMonths()).extracting(MonthUtilizationDto::getBookedSeconds)
+                .containsExactly(36 * HOUR, 0L, 0L);
+        assertThat(report.getItems().get(2).getMonths()).extracting(MonthUtilizationDto::getUtilization)
+                .containsOnly(0.0);
+
+        // Бронирование, начатое в декабре, занимает вещь с первой секунды января
+        assertThat(report.getPeaks()).containsExactly(
+                new PeakDemandDto(JANUARY, 2, at(2030, 1, 1, 12)),
+                new PeakDemandDto(YearMonth.of(2030, 2), 1, at(2030, 2, 1, 0)),
+                new PeakDemandDto(MARCH, 0, null));
+    }
+
+    @Test
+    public void testUtilization_OverlappingBookingsCountedOnce() {
+        when(bookingRepository.findFactsByOwner(eq(1L))).thenReturn(List.of(
+                fact(1L, 7L, at(2030, 3, 1, 0), at(2030, 3, 3, 0), BookingStatus.APPROVED),
+                fact(2L, 7L, at(2030, 3, 2, 0), at(2030, 3, 4, 0), BookingStatus.APPROVED),
+                fact(3L, 7L, at(2030, 3, 4, 0), at(2030, 3, 5, 0), BookingStatus.APPROVED)));
+
+        OwnerUtilizationDto report = analytics.utilization(1L, List.of(item(7L, "Дрель")), MARCH, MARCH);
+
+        assertThat(report.getItems().getFirst().getMonths().getFirst().getBookedSeconds()).isEqualTo(4 * 24 * HOUR);
+        assertThat(report.getPeaks()).containsExactly(new PeakDemandDto(MARCH, 2, at(2030, 3, 2, 0)));
+    }
+
+    @Test
+    public void testUtilization_ExpandsSeriesInsideReport() {
+        when(bookingRepository.findFactsByOwner(eq(1L))).thenReturn(List.of(
+                // Еженедельно по двое суток: первый повтор начался в феврале, последний - 28 марта
+                new BookingFact(1L, 7L, at(2030, 2, 28, 0), at(2030, 3, 2, 0), BookingStatus.APPROVED,
+                        BookingRepeat.WEEKLY, 5),
+                fact(2L, 8L, at(2030, 3, 14, 12), at(2030, 3, 15, 0), BookingStatus.APPROVED)));
+
+        OwnerUtilizationDto report = analytics.utilization(1L, List.of(item(7L, "Дрель"), item(8L, "Пила")),
+                MARCH, MARCH);
+
+        assertThat(report.getItems()).extracting(item -> item.getMonths().getFirst().getBookedSeconds())
+                .containsExactly((24 + 4 * 48) * HOUR, 12 * HOUR);
+        assertThat(report.getPeaks()).containsExactly(new PeakDemandDto(MARCH, 2, at(2030, 3, 14, 12)));
+    }
+
+    @Test
+    public void testOnBookingChanged_UpdatesLoadedColumns() {
+        when(bookingRepository.findFactsByOwner(eq(1L))).thenReturn(List.of(
+                fact(5L, 8L, at(2030, 3, 1, 0), at(2030, 3, 2, 0), BookingStatus.WAITING)));
+        List<Item> items = List.of(item(8L, "Пила"));
+        assertThat(marchSeconds(analytics.utilization(1L, items, MARCH, MARCH))).isZero();
+
+        analytics.onBookingChanged(new BookingChangedEvent(5L, 8L, 1L, 2L,
+                at(2030, 3, 1, 0), at(2030, 3, 2, 0), null, null, BookingStatus.WAITING, BookingStatus.APPROVED));
+        analytics.onBookingChanged(new BookingChangedEvent(6L, 8L, 1L, 2L,
+                at(2030, 3, 10, 0), at(2030, 3, 10, 12), null, null, null, BookingStatus.APPROVED));
+        // Владелец, для которого отчёт ещё не строился, загрузится из базы при первом запросе
+        analytics.onBookingChanged(new BookingChangedEvent(7L, 3L, 4L, 2L,
+                at(2030, 3, 10, 0), at(2030, 3, 10, 12), null, null, null, BookingStatus.APPROVED));
+
+        assertThat(marchSeconds(analytics.utilization(1L, items, MARCH, MARCH))).isEqualTo(36 * HOUR);
+        verify(bookingRepository, times(1)).findFactsByOwner(eq(1L));
+    }
+
+    @Test
+    public void testUtilization_ManyItemsSweptInParallel() {
+        List<BookingFact> facts = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        long id = 0;
+        for (long item = 1; item <= 100; item++) {
+            items.add(item(item, "Вещь " + item));
+            // По сто часовых бронирований каждой вещи: строк больше, чем помещается в одну задачу
+            for (int hour = 0; hour < 100; hour++) {
+                LocalDateTime start = at(2030, 1, 1, 0).plusHours(hour * 2L + item % 2);
+                facts.add(fact(++id, item, start, start.plusHours(1), BookingStatus.APPROVED));
+            }
+        }
+        when(bookingRepository.findFactsByOwner(eq(1L))).thenReturn(facts);
+
+        OwnerUtilizationDto report = analytics.utilization(1L, items, JANUARY, JANUARY);
+
+        assertThat(report.getItems()).hasSize(100).allSatisfy(item ->
+                assertThat(item.getMonths().getFirst().getBookedSeconds()).isEqualTo(100 * HOUR));
+        // Чётные и нечётные вещи заняты в разные часы
+        assertThat(report.getPeaks()).containsExactly(new PeakDemandDto(JANUARY, 50, at(2030, 1, 1, 0)));
+    }
+
+    private static long marchSeconds(OwnerUtilizationDto report) {
+        return report.getItems().getFirst().getMonths().getFirst().getBookedSeconds();
+    }
+
+    private static BookingFact fact(Long id, Long itemId, LocalDateTime start, LocalDateTime end,
+                                    BookingStatus status) {
+        return new BookingFact(id, itemId, start, end, status, null, null);
+    }
+
+    private static Item item(Long id, String name) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        return item;
+    }
+
+    private static LocalDateTime at(int year, int month, int day, int hour) {
+        return LocalDateTime.of(year, month, day, hour, 0);
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.shareit.booking.reminder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.booking.BookingPartitions;
+import ru.practicum.shareit.booking.BookingRepeat;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingReminderSchedulerTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingPartitions partitions;
+
+    private final List<BookingReminder> delivered = new CopyOnWriteArrayList<>();
+    private final LocalDateTime start = LocalDateTime.now().plusHours(2).truncatedTo(ChronoUnit.SECONDS);
+    private BookingReminderScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        scheduler = new BookingReminderScheduler(bookingRepository, partitions, List.of(delivered::add),
+                new SimpleMeterRegistry(), Duration.ofSeconds(1), 16, Duration.ofHours(1), 2);
+    }
+
+    @Test
+    public void testOnBookingChanged_RemindsBookerBeforeStartAndOwnerAtEnd() {
+        scheduler.onBookingChanged(event(1L, null, BookingStatus.WAITING));
+        scheduler.onBookingChanged(event(1L, BookingStatus.WAITING, BookingStatus.APPROVED));
+        assertThat(scheduler.scheduled()).isEqualTo(2);
+
+        scheduler.tick(millis(start.minusHours(1).minusSeconds(1)));
+        assertThat(delivered).isEmpty();
+
+        scheduler.tick(millis(start.minusHours(1)));
+        assertThat(delivered).singleElement().satisfies(reminder -> {
+            assertThat(reminder.getType()).isEqualTo(BookingReminder.Type.START);
+            assertThat(reminder.getRecipientId()).isEqualTo(20L);
+            assertThat(reminder.getStatus()).isEqualTo(BookingStatus.APPROVED);
+        });
+
+        scheduler.tick(millis(start.plusDays(1)));
+        assertThat(delivered).extracting(BookingReminder::getType)
+                .containsExactly(BookingReminder.Type.START, BookingReminder.Type.END);
+        assertThat(delivered.get(1).getRecipientId()).isEqualTo(10L);
+        assertThat(scheduler.scheduled()).isZero();
+    }
+
+    @Test
+    public void testOnBookingChanged_SeriesRemindsAboutEachOccurrence() {
+        scheduler.onBookingChanged(new BookingChangedEvent(1L, 5L, 10L, 20L, start, start.plusHours(3),
+                BookingRepeat.DAILY, 3, null, BookingStatus.WAITING));
+        // В колесе только напоминания о ближайшем повторе
+        assertThat(scheduler.scheduled()).isEqualTo(2);
+
+        scheduler.tick(millis(start.minusHours(1)));
+        scheduler.tick(millis(start.plusHours(3)));
+        assertThat(scheduler.scheduled()).isEqualTo(2);
+        scheduler.tick(millis(start.plusDays(1).plusHours(3)));
+        scheduler.tick(millis(start.plusDays(2).plusHours(3)));
+
+        assertThat(delivered).extracting(BookingReminder::getType, BookingReminder::getOccurrence).containsExactly(
+                tuple(BookingReminder.Type.START, 0), tuple(BookingReminder.Type.END, 0),
+                tuple(BookingReminder.Type.START, 1), tuple(BookingReminder.Type.END, 1),
+                tuple(BookingReminder.Type.START, 2), tuple(BookingReminder.Type.END, 2));
+        assertThat(delivered.get(4).getStart()).isEqualTo(start.plusDays(2));
+        assertThat(scheduler.scheduled()).isZero();
+    }
+
+    @Test
+    public void testOnBookingChanged_RejectedBookingCancelsReminders() {
+        scheduler.onBookingChanged(event(1L, null, BookingStatus.WAITING));
+        scheduler.onBookingChanged(event(1L, BookingStatus.WAITING, BookingStatus.REJECTED));
+        assertThat(scheduler.scheduled()).isZero();
+
+        scheduler.tick(millis(start.plusDays(1)));
+        assertThat(delivered).isEmpty();
+    }
+
+    @Test
+    public void testLoad_ReadsUpcomingBookingsPageByPage() {
+        when(partitions.activeFrom()).thenReturn(LocalDateTime.of(1970, 1, 1, 0, 0));
+        when(bookingRepository.findUpcoming(eq(0L), anyCollection(), any(LocalDateTime.class),
+                any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(upcoming(1L), upcoming(2L)));
+        when(bookingRepository.findUpcoming(eq(2L), anyCollection(), any(LocalDateTime.class),
+                any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(upcoming(3L)));
+
+        scheduler.load();
+
+        assertThat(scheduler.scheduled()).isEqualTo(6);
+        // Повторное событие о том же бронировании не дублирует напоминания
+        scheduler.onBookingChanged(event(3L, BookingStatus.WAITING, BookingStatus.APPROVED));
+        assertThat(scheduler.scheduled()).isEqualTo(6);
+    }
+
+    private BookingChangedEvent event(Long bookingId, BookingStatus oldStatus, BookingStatus newStatus) {
+        return new BookingChangedEvent(bookingId, 5L, 10L, 20L, start, start.plusHours(3), null, null, oldStatus, newStatus);
+    }
+
+    private UpcomingBooking upcoming(Long bookingId) {
+        return new UpcomingBooking(bookingId, 5L, 10L, 20L, start, start.plusHours(3), BookingStatus.WAITING,
+                null, null);
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimingWheelTest {
+    private static final long TICK = 1000;
+
+    @Test
+    public void testAdvance_FiresEachTimerOnItsTickAcrossLevels() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 8, 0);
+        Random random = new Random(42);
+        List<TimingWheel.Timer<Integer>> timers = new ArrayList<>();
+        // Сроки до 8^4 тиков: таймеры попадают на четыре уровня колеса
+        for (int i = 0; i < 5_000; i++) {
+            TimingWheel.Timer<Integer> timer = new TimingWheel.Timer<>(1 + random.nextLong(8L * 8 * 8 * 8 * TICK), i);
+            if (wheel.add(timer)) {
+                timers.add(timer);
+            }
+        }
+        assertThat(wheel.size()).isEqualTo(timers.size());
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        long now = 0;
+        while (now < 8L * 8 * 8 * 8 * TICK) {
+            now += random.nextInt(50) * TICK;
+            wheel.advance(now, timer -> firedAt.put(timer.payload(), wheel.currentMillis()));
+        }
+
+        assertThat(firedAt).hasSize(timers.size());
+        for (TimingWheel.Timer<Integer> timer : timers) {
+            assertThat(firedAt.get(timer.payload())).isEqualTo(timer.deadlineMillis() / TICK * TICK);
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void testCancel_TimerDoesNotFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 4, 0);
+        TimingWheel.Timer<String> kept = new TimingWheel.Timer<>(5 * TICK, "kept");
+        TimingWheel.Timer<String> cancelled = new TimingWheel.Timer<>(100 * TICK, "cancelled");
+        wheel.add(kept);
+        wheel.add(cancelled);
+
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled);
+        assertThat(wheel.size()).isEqualTo(1);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(200 * TICK, timer -> fired.add(timer.payload()));
+        assertThat(fired).containsExactly("kept");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void testAdd_PastDeadlineRejected() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 4, 10 * TICK);
+
+        assertThat(wheel.add(new TimingWheel.Timer<>(10 * TICK + 999, "same tick"))).isFalse();
+        assertThat(wheel.add(new TimingWheel.Timer<>(11 * TICK, "next tick"))).isTrue();
+    }
+}
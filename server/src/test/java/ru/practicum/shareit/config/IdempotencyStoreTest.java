@@ -0,0 +1,159 @@
+package ru.practicum.shareit.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyStoreTest {
+    private final IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), 3);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void testExecute_SameKeyReturnsStoredResult() {
+        assertThat(store.execute(1L, "create", "key", "body", calls::incrementAndGet)).isEqualTo(1);
+        assertThat(store.execute(1L, "create", "key", "body", calls::incrementAndGet)).isEqualTo(1);
+        // Ключ действует только для своего пользователя и операции
+        assertThat(store.execute(2L, "create", "key", "body", calls::incrementAndGet)).isEqualTo(2);
+        assertThat(store.execute(1L, "comment", "key", "body", calls::incrementAndGet)).isEqualTo(3);
+        // Без ключа запрос выполняется каждый раз
+        assertThat(store.execute(1L, "create", null, "body", calls::incrementAndGet)).isEqualTo(4);
+    }
+
+    @Test
+    public void testExecute_SameKeyDifferentRequest_Conflict() {
+        store.execute(1L, "create", "key", "body", calls::incrementAndGet);
+
+        Assertions.assertThrows(ConflictException.class,
+                () -> store.execute(1L, "create", "key", "other body", calls::incrementAndGet));
+        Assertions.assertThrows(ValidationException.class,
+                () -> store.execute(1L, "create", " ", "body", calls::incrementAndGet));
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExecute_FailureIsNotStored() {
+        Assertions.assertThrows(IllegalStateException.class, () -> store.execute(1L, "create", "key", "body", () -> {
+            throw new IllegalStateException("Сбой");
+        }));
+
+        assertThat(store.execute(1L, "create", "key", "body", calls::incrementAndGet)).isEqualTo(1);
+    }
+
+    @Test
+    public void testExecute_ConcurrentDuplicatesWaitForFirst() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            results.add(clients.submit(() -> store.execute(1L, "create", "key", "body", () -> {
+                started.countDown();
+                await(release);
+                return calls.incrementAndGet();
+            })));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 10; i++) {
+                results.add(clients.submit(() -> store.execute(1L, "create", "key", "body", calls::incrementAndGet)));
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExecute_BoundedAndExpiring() {
+        for (int i = 0; i < 10; i++) {
+            store.execute(1L, "create", "key" + i, "body", calls::incrementAndGet);
+        }
+        assertThat(store.size()).isEqualTo(3);
+        // Самый старый ключ вытеснен - запрос выполняется заново
+        assertThat(store.execute(1L, "create", "key0", "body", calls::incrementAndGet)).isEqualTo(11);
+
+        IdempotencyStore expiring = new IdempotencyStore(Duration.ZERO, 3);
+        expiring.execute(1L, "create", "key", "body", calls::incrementAndGet);
+        assertThat(expiring.execute(1L, "create", "key", "body", calls::incrementAndGet)).isEqualTo(13);
+    }
+
+    @Test
+    public void testExecute_FullOfRunningRequests_TooManyRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> running = new ArrayList<>();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 3; i++) {
+                String key = "key" + i;
+                running.add(clients.submit(() -> store.execute(1L, "create", key, "body", () -> {
+                    started.countDown();
+                    await(release);
+                    return calls.incrementAndGet();
+                })));
+            }
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Выполняющиеся ключи не вытесняются: новый ключ отклоняется, а дубликат по-прежнему ждёт первый
+            Assertions.assertThrows(TooManyRequestsException.class,
+                    () -> store.execute(1L, "create", "key3", "body", calls::incrementAndGet));
+            Future<Integer> duplicate = clients.submit(() -> store.execute(1L, "create", "key0", "body",
+                    calls::incrementAndGet));
+            release.countDown();
+
+            for (Future<Integer> result : running) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+            assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo(running.get(0).get());
+        }
+        assertThat(store.execute(1L, "create", "key3", "body", calls::incrementAndGet)).isEqualTo(4);
+    }
+
+    @Test
+    public void testExecute_EvictsInCompletionOrder() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Первый ключ создан раньше всех, но выполнится последним
+            Future<Integer> slow = clients.submit(() -> store.execute(1L, "create", "slow", "body", () -> {
+                started.countDown();
+                await(release);
+                return 100;
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            store.execute(1L, "create", "fast1", "body", calls::incrementAndGet);
+            store.execute(1L, "create", "fast2", "body", calls::incrementAndGet);
+            release.countDown();
+            assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo(100);
+        }
+
+        store.execute(1L, "create", "next", "body", calls::incrementAndGet);
+        // Вытеснен раньше всех выполненный fast1, а не раньше всех созданный slow
+        assertThat(store.execute(1L, "create", "slow", "body", calls::incrementAndGet)).isEqualTo(100);
+        assertThat(store.execute(1L, "create", "fast1", "body", calls::incrementAndGet)).isEqualTo(4);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,8 +5,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.config.IdempotencyStore;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.dto.ItemCreateDto;
@@ -21,6 +23,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @WebMvcTest(ItemController.class)
+@Import(IdempotencyStore.class)
 public class ErrorHandlerTest {
 
     @Autowired
@@ -74,6 +77,16 @@ public class ErrorHandlerTest {
                 .andExpect(jsonPath("$.error", is("Такой элемент уже существует")));
     }
 
+    @Test
+    public void testHandleConflictException() throws Exception {
+        when(itemService.getItemById(anyLong(), anyLong())).thenThrow(new ConflictException("Период уже занят"));
+
+        mockMvc.perform(get("/items/1")
+                        .header("X-Sharer-User-Id", "1"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", is("Период уже занят")));
+    }
+
     @Test
     public void testHandleForbiddenOperationException() throws Exception {
         when(itemService.getItemById(anyLong(), anyLong())).thenThrow(new ForbiddenOperationException("Операция запрещена"));
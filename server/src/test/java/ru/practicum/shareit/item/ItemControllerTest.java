@@ -7,11 +7,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.config.IdempotencyStore;
 import ru.practicum.shareit.item.dto.*;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -23,6 +27,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @WebMvcTest(ItemController.class)
+@Import(IdempotencyStore.class)
 public class ItemControllerTest {
 
     @Autowired
@@ -122,6 +127,44 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[1].name", is("Item 2")));
     }
 
+    @Test
+    public void testSearchItems_InPeriod() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 5, 0, 0);
+        when(itemService.searchAvailableItems("Item", from, from.plusDays(2))).thenReturn(List.of(item2));
+
+        mockMvc.perform(get("/items/search?text=Item&from=2030-01-05T00:00:00&to=2030-01-07T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Item 2")));
+    }
+
+    @Test
+    public void testSuggestItems() throws Exception {
+        when(itemService.suggestItems("Ite", 5)).thenReturn(List.of(new ItemSuggestionDto(1L, "Item 1")));
+
+        mockMvc.perform(get("/items/suggest?prefix=Ite&limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[0].name", is("Item 1")));
+    }
+
+    @Test
+    public void testGetAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(1L, AvailabilityGranularity.DAY, List.of(
+                new AvailabilitySlotDto(from, from.plusDays(1), true),
+                new AvailabilitySlotDto(from.plusDays(1), from.plusDays(2), false)));
+
+        when(itemService.getAvailability(1L, from, from.plusDays(2), AvailabilityGranularity.DAY)).thenReturn(availability);
+
+        mockMvc.perform(get("/items/1/availability?from=2030-01-01T00:00:00&to=2030-01-03T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.slots", hasSize(2)))
+                .andExpect(jsonPath("$.slots[0].free", is(true)))
+                .andExpect(jsonPath("$.slots[1].free", is(false)));
+    }
+
     @Test
     public void testAddComment() throws Exception {
         // Подготовьте тестовые данные
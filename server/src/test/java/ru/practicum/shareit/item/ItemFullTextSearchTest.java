@@ -0,0 +1,49 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.config.PostgresSchemaInitializer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemFullTextSearchTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PostgresSchemaInitializer schema;
+
+    @Test
+    public void testToPrefixQuery_WordsBecomeRequiredPrefixes() {
+        assertThat(ItemFullTextSearch.toPrefixQuery("Дрель аккум")).isEqualTo("'Дрель':* & 'аккум':*");
+        // Операторы и кавычки tsquery из текста не попадают в запрос
+        assertThat(ItemFullTextSearch.toPrefixQuery(" drill' | !saw:* ")).isEqualTo("'drill':* & 'saw':*");
+        assertThat(ItemFullTextSearch.toPrefixQuery("&!")).isEmpty();
+    }
+
+    @Test
+    public void testEnabled_OnlyFullTextModeOnPostgres() {
+        Mockito.when(schema.isPostgres()).thenReturn(true, false);
+
+        assertThat(new ItemFullTextSearch(jdbcTemplate, schema, ItemSearchMode.FULL_TEXT, ItemSearchLanguage.ENGLISH)
+                .isEnabled()).isTrue();
+        assertThat(new ItemFullTextSearch(jdbcTemplate, schema, ItemSearchMode.FULL_TEXT, ItemSearchLanguage.RUSSIAN)
+                .isEnabled()).isFalse();
+        assertThat(new ItemFullTextSearch(jdbcTemplate, schema, ItemSearchMode.LIKE, ItemSearchLanguage.RUSSIAN)
+                .isEnabled()).isFalse();
+    }
+
+    @Test
+    public void testFindAvailableIds_EmptyQuerySkipsDatabase() {
+        Mockito.when(schema.isPostgres()).thenReturn(true);
+        ItemFullTextSearch search = new ItemFullTextSearch(jdbcTemplate, schema, ItemSearchMode.FULL_TEXT,
+                ItemSearchLanguage.RUSSIAN);
+
+        assertThat(search.findAvailableIds("  ?! ")).isEmpty();
+        Mockito.verifyNoInteractions(jdbcTemplate);
+    }
+}
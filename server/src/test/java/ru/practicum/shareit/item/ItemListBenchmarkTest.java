@@ -0,0 +1,138 @@
+package ru.practicum.shareit.item;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Время ответа GET /items для владельцев с разным числом вещей: у каждой вещи два комментария
+ * разных авторов и прошедшее и будущее бронирование. Число запросов к базе от числа вещей не зависит,
+ * время растёт только за счёт объёма данных. Запускается отдельно:
+ * {@code mvn test -Dtest=ItemListBenchmarkTest -Dshareit.benchmark=true}. Результаты пишутся в лог.
+ */
+@Slf4j
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Transactional
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemListBenchmarkTest {
+    private static final int[] ITEM_COUNTS = {10, 100, 1_000, 5_000};
+    private static final int AUTHORS = 500;
+    private static final int RUNS = 20;
+
+    private final ItemService itemService;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+
+    @Test
+    public void ownerItemList() {
+        List<User> authors = new ArrayList<>();
+        for (int i = 0; i < AUTHORS; i++) {
+            authors.add(new User(null, "Автор " + i, "author" + i + "@items.bench"));
+        }
+        userRepository.saveAll(authors);
+        List<User> owners = new ArrayList<>();
+        for (int count : ITEM_COUNTS) {
+            User owner = userRepository.save(new User(null, "Владелец", "owner" + count + "@items.bench"));
+            createItems(owner, count, authors);
+            owners.add(owner);
+        }
+        entityManager.flush();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        Set<Long> statements = new HashSet<>();
+        for (int i = 0; i < ITEM_COUNTS.length; i++) {
+            Long ownerId = owners.get(i).getId();
+            // Первый вызов рассчитывает и сохраняет даты бронирований, дальше они читаются из items
+            itemService.getItemsFromUser(ownerId);
+
+            long[] latencies = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                entityManager.clear();
+                statistics.clear();
+                long t0 = System.nanoTime();
+                assertThat(itemService.getItemsFromUser(ownerId)).hasSize(ITEM_COUNTS[i]);
+                latencies[run] = System.nanoTime() - t0;
+                statements.add(statistics.getPrepareStatementCount());
+            }
+
+            Arrays.sort(latencies);
+            log.info("{} items: {} statements, latency p50 {} ms, max {} ms", ITEM_COUNTS[i],
+                    statistics.getPrepareStatementCount(), TimeUnit.NANOSECONDS.toMillis(latencies[RUNS / 2]),
+                    TimeUnit.NANOSECONDS.toMillis(latencies[RUNS - 1]));
+        }
+        assertThat(statements).hasSize(1);
+    }
+
+    private void createItems(User owner, int count, List<User> authors) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Item item = new Item();
+            item.setName("Вещь " + i);
+            item.setDescription("Описание " + i);
+            item.setAvailable(true);
+            item.setOwner(owner);
+            items.add(item);
+        }
+        itemRepository.saveAll(items);
+
+        List<Comment> comments = new ArrayList<>(2 * count);
+        List<Booking> bookings = new ArrayList<>(2 * count);
+        for (int i = 0; i < count; i++) {
+            Item item = items.get(i);
+            User booker = authors.get(i % authors.size());
+            for (int j = 0; j < 2; j++) {
+                Comment comment = new Comment();
+                comment.setText("Отзыв " + j);
+                comment.setItem(item);
+                comment.setAuthor(authors.get((2 * i + j) % authors.size()));
+                comment.setCreated(now);
+                comments.add(comment);
+            }
+            bookings.add(booking(item, booker, now.minusDays(2), now.minusDays(1)));
+            bookings.add(booking(item, booker, now.plusDays(1), now.plusDays(2)));
+        }
+        commentRepository.saveAll(comments);
+        bookingRepository.saveAll(bookings);
+    }
+
+    private static Booking booking(Item item, User booker, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(BookingStatus.APPROVED);
+        return booking;
+    }
+}
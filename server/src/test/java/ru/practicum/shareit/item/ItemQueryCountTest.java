@@ -0,0 +1,125 @@
+package ru.practicum.shareit.item;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemQueryCountTest {
+    private final ItemService itemService;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+
+    private User smallOwner;
+    private User largeOwner;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        smallOwner = userRepository.save(new User(null, "Владелец", "small@item.count"));
+        largeOwner = userRepository.save(new User(null, "Владелец", "large@item.count"));
+        // У каждого комментария свой автор, чтобы ленивый author давал отдельный SELECT на строку
+        List<User> authors = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            authors.add(new User(null, "Автор " + i, "author" + i + "@item.count"));
+        }
+        userRepository.saveAll(authors);
+
+        createItems(smallOwner, 5, authors);
+        createItems(largeOwner, 200, authors);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    public void ownerItemsCostSameStatementsForAnyNumberOfItems() {
+        List<ItemDto> small = itemService.getItemsFromUser(smallOwner.getId());
+        long smallList = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+
+        List<ItemDto> large = itemService.getItemsFromUser(largeOwner.getId());
+
+        assertThat(small).hasSize(5);
+        assertThat(large).hasSize(200);
+        assertThat(large).allSatisfy(item -> {
+            assertThat(item.getComments()).hasSize(2);
+            assertThat(item.getComments().get(0).getAuthorName()).startsWith("Автор ");
+            assertThat(item.getLastBooking()).isNotNull();
+            assertThat(item.getNextBooking()).isNotNull();
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(smallList);
+    }
+
+    private void createItems(User owner, int count, List<User> authors) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Item item = new Item();
+            item.setName("Вещь " + i);
+            item.setDescription("Описание " + i);
+            item.setAvailable(true);
+            item.setOwner(owner);
+            items.add(item);
+        }
+        itemRepository.saveAll(items);
+
+        List<Comment> comments = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < 2; j++) {
+                Comment comment = new Comment();
+                comment.setText("Отзыв " + j);
+                comment.setItem(items.get(i));
+                comment.setAuthor(authors.get((2 * i + j) % authors.size()));
+                comment.setCreated(now);
+                comments.add(comment);
+            }
+            bookings.add(booking(items.get(i), authors.get(i % authors.size()), now.minusDays(2), now.minusDays(1)));
+            bookings.add(booking(items.get(i), authors.get(i % authors.size()), now.plusDays(1), now.plusDays(2)));
+        }
+        commentRepository.saveAll(comments);
+        bookingRepository.saveAll(bookings);
+    }
+
+    private static Booking booking(Item item, User booker, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(BookingStatus.APPROVED);
+        return booking;
+    }
+}
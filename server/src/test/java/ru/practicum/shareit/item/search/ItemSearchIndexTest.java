@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemSearchMode;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Test
+    public void testSearch_RankedByBm25() {
+        ItemSearchIndex index = loaded(
+                item(1L, "Отвёртка", "Крестовая отвёртка, к дрели не подходит", true),
+                item(2L, "Дрель", "Аккумуляторная дрель", true),
+                item(3L, "Перфоратор", "Мощнее, чем дрель", true),
+                item(4L, "Дрель ударная", "Сетевая", false));
+
+        List<ItemDto> found = index.search("дрели");
+
+        // Слово в названии весит больше, чем в описании; недоступная вещь не выдаётся
+        assertThat(found).extracting(ItemDto::getId).containsExactly(2L, 3L, 1L);
+        assertThat(found.get(0).getName()).isEqualTo("Дрель");
+        assertThat(found.get(0).isAvailable()).isTrue();
+        assertThat(index.searchIds("аккумуляторный перфоратор")).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.search("пила")).isEmpty();
+        assertThat(index.search("?!")).isEmpty();
+        Mockito.verifyNoMoreInteractions(itemRepository);
+    }
+
+    @Test
+    public void testPut_UpdatesTextAndAvailability() {
+        ItemSearchIndex index = loaded(item(1L, "Дрель", "Ударная", true), item(2L, "Пила", "Ручная", true));
+
+        index.put(item(1L, "Дрель", "Ударная", false));
+        assertThat(index.searchIds("дрель")).isEmpty();
+        // Смена доступности не создаёт новый документ
+        assertThat(index.documents()).isEqualTo(2);
+
+        index.put(item(1L, "Шуруповёрт", "Ударный", true));
+        index.put(item(3L, "Дрель", "Новая", true));
+        assertThat(index.searchIds("дрель")).containsExactly(3L);
+        assertThat(index.searchIds("шуруповёрт ударная")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testPut_CompactsDeletedDocuments() {
+        ItemSearchIndex index = loaded(item(1L, "Дрель", "Ударная", true));
+
+        for (int i = 0; i < 3000; i++) {
+            index.put(item(1L, "Дрель", "Версия " + i, true));
+        }
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.documents()).isLessThan(1100);
+        assertThat(index.searchIds("дрель")).containsExactly(1L);
+        assertThat(index.searchIds("версия")).containsExactly(1L);
+    }
+
+    @Test
+    public void testLoad_PagedAndDisabledInOtherModes() {
+        Mockito.when(itemRepository.findPageAfter(0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item(1L, "Дрель", "Ударная", true), item(2L, "Пила", "Ручная", true)));
+        Mockito.when(itemRepository.findPageAfter(2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(item(3L, "Дрель", "Сетевая", true)));
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, ItemSearchMode.INDEX, 2);
+        assertThat(index.isEnabled()).isFalse();
+
+        index.load();
+
+        assertThat(index.isEnabled()).isTrue();
+        assertThat(index.searchIds("дрель")).containsExactlyInAnyOrder(1L, 3L);
+
+        ItemSearchIndex disabled = new ItemSearchIndex(itemRepository, ItemSearchMode.LIKE, 2);
+        disabled.load();
+        disabled.put(item(4L, "Дрель", "Новая", true));
+        assertThat(disabled.isEnabled()).isFalse();
+        Mockito.verify(itemRepository, Mockito.times(2)).findPageAfter(anyLong(), any());
+        Mockito.verify(itemRepository, Mockito.never()).findPageAfter(eq(3L), any());
+    }
+
+    @Test
+    public void testSearch_FuzzyToleratesTypos() {
+        ItemSearchIndex exact = loaded(item(1L, "Дрель", "Ударная", true), item(2L, "Drill", "Cordless", true));
+        assertThat(exact.searchIds("drll")).isEmpty();
+
+        ItemSearchIndex index = loaded(ItemSearchMode.FUZZY, item(1L, "Перфоратор", "Ударный", true),
+                item(2L, "Drill", "Cordless", true), item(3L, "Шуруповёрт", "Перфоратором не является", true));
+
+        assertThat(index.searchIds("drll")).containsExactly(2L);
+        assertThat(index.searchIds("перфаратор")).containsExactly(1L, 3L);
+        assertThat(index.searchIds("шуроповерт")).containsExactly(3L);
+        // Точное слово не заменяется похожими
+        assertThat(index.searchIds("cordless")).containsExactly(2L);
+        assertThat(index.searchIds("молоток")).isEmpty();
+
+        index.put(item(4L, "Болгарка", "Угловая", true));
+        assertThat(index.searchIds("болгрка")).containsExactly(4L);
+    }
+
+    private ItemSearchIndex loaded(Item... items) {
+        return loaded(ItemSearchMode.INDEX, items);
+    }
+
+    private ItemSearchIndex loaded(ItemSearchMode mode, Item... items) {
+        Mockito.when(itemRepository.findPageAfter(0L, PageRequest.of(0, 100))).thenReturn(List.of(items));
+        ItemSearchIndex index = new ItemSearchIndex(itemRepository, mode, 100);
+        index.load();
+        Mockito.verify(itemRepository, Mockito.atLeastOnce()).findPageAfter(0L, PageRequest.of(0, 100));
+        return index;
+    }
+
+    private static Item item(Long id, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        return item;
+    }
+}
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.BookingChangedEvent;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSuggestionsTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Test
+    public void testSuggest_WordPrefixesByPopularity() {
+        ItemSuggestions suggestions = loaded(
+                new ItemPopularity(1L, "Дрель ударная", true, 3L),
+                new ItemPopularity(2L, "Ударная дрель Bosch", true, 7L),
+                new ItemPopularity(3L, "Дрель-шуруповёрт", true, 5L),
+                new ItemPopularity(4L, "Дрель старая", false, 100L),
+                new ItemPopularity(5L, "Древесный уголь", true, 1L));
+
+        assertThat(ids(suggestions.suggest("дре", 10))).containsExactly(2L, 3L, 1L, 5L);
+        assertThat(ids(suggestions.suggest("  ДРЕЛЬ", 2))).containsExactly(2L, 3L);
+        assertThat(ids(suggestions.suggest("шуруповерт", 10))).containsExactly(3L);
+        assertThat(ids(suggestions.suggest("ударная д", 10))).containsExactly(2L);
+        assertThat(ids(suggestions.suggest("рель", 10))).isEmpty();
+        assertThat(suggestions.suggest(" ", 10)).isEmpty();
+        assertThat(suggestions.suggest("bosch", 10).get(0).getName()).isEqualTo("Ударная дрель Bosch");
+    }
+
+    @Test
+    public void testPut_FollowsRenamesAndAvailability() {
+        ItemSuggestions suggestions = loaded(
+                new ItemPopularity(1L, "Дрель", true, 3L),
+                new ItemPopularity(2L, "Пила", false, 7L));
+        int nodes = suggestions.nodes();
+
+        suggestions.put(item(2L, "Пила", true));
+        assertThat(ids(suggestions.suggest("пи", 10))).containsExactly(2L);
+
+        suggestions.put(item(1L, "Перфоратор", true));
+        // Популярность переименованной вещи сохраняется
+        assertThat(ids(suggestions.suggest("п", 10))).containsExactly(2L, 1L);
+        assertThat(suggestions.suggest("дрель", 10)).isEmpty();
+
+        suggestions.put(item(1L, "Перфоратор", false));
+        suggestions.put(item(2L, "Пила", false));
+        assertThat(suggestions.suggest("п", 10)).isEmpty();
+        // Ветви без вещей удаляются
+        assertThat(suggestions.nodes()).isEqualTo(1);
+
+        suggestions.put(item(1L, "Дрель", true));
+        suggestions.put(item(3L, "Пила", true));
+        suggestions.put(item(3L, "Пила", false));
+        assertThat(suggestions.nodes()).isEqualTo(nodes);
+    }
+
+    @Test
+    public void testOnBookingChanged_NewBookingRaisesItem() {
+        ItemSuggestions suggestions = loaded(
+                new ItemPopularity(1L, "Дрель", true, 1L),
+                new ItemPopularity(2L, "Дрель ударная", true, 3L));
+
+        suggestions.onBookingChanged(created(1L));
+        assertThat(ids(suggestions.suggest("дрель", 10))).containsExactly(2L, 1L);
+        suggestions.onBookingChanged(created(1L));
+        suggestions.onBookingChanged(created(1L));
+        assertThat(ids(suggestions.suggest("дрель", 10))).containsExactly(1L, 2L);
+        assertThat(ids(suggestions.suggest("уда", 10))).containsExactly(2L);
+
+        // Подтверждение не считается новым бронированием
+        suggestions.onBookingChanged(new BookingChangedEvent(3L, 2L, 10L, 20L, LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1), null, null, BookingStatus.WAITING, BookingStatus.APPROVED));
+        suggestions.onBookingChanged(new BookingChangedEvent(4L, 2L, 10L, 20L, LocalDateTime.now(),
+                LocalDateTime.now().plusDays(1), null, null, BookingStatus.WAITING, BookingStatus.APPROVED));
+        assertThat(ids(suggestions.suggest("дрель", 10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void testLoad_MergesItemsChangedBeforeLoad() {
+        ItemSuggestions suggestions = new ItemSuggestions(itemRepository, 100);
+        // До загрузки вещь 1 отредактировали, а вещь 3 забронировали
+        suggestions.put(item(1L, "Дрель", true));
+        suggestions.onBookingChanged(created(3L));
+        Mockito.when(itemRepository.findPopularityPageAfter(0L, PageRequest.of(0, 100))).thenReturn(List.of(
+                new ItemPopularity(1L, "Дрель", true, 9L),
+                new ItemPopularity(2L, "Дрель ударная", true, 5L),
+                new ItemPopularity(3L, "Дрель старая", true, 0L)));
+        suggestions.load();
+
+        // Вещь 1 получила популярность из базы, бронирование вещи 3 не потерялось
+        assertThat(ids(suggestions.suggest("дрель", 10))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(suggestions.suggest("стар", 10))).containsExactly(3L);
+    }
+
+    @Test
+    public void testSuggest_KeepsTopKPerNode() {
+        List<ItemPopularity> items = new ArrayList<>();
+        for (long id = 1; id <= 30; id++) {
+            items.add(new ItemPopularity(id, "Вещь " + id, true, id));
+        }
+        ItemSuggestions suggestions = loaded(items.toArray(new ItemPopularity[0]));
+
+        assertThat(ids(suggestions.suggest("вещь", 20))).hasSize(ItemSuggestions.TOP_K).startsWith(30L, 29L);
+
+        // Вместо ушедшей вещи в верхушку поднимается следующая из поддерева
+        suggestions.put(item(30L, "Вещь 30", false));
+        assertThat(ids(suggestions.suggest("вещь", 20))).hasSize(ItemSuggestions.TOP_K).startsWith(29L)
+                .endsWith(20L);
+        assertThat(ids(suggestions.suggest("2", 20))).containsExactly(29L, 28L, 27L, 26L, 25L, 24L, 23L, 22L, 21L, 20L);
+    }
+
+    private ItemSuggestions loaded(ItemPopularity... items) {
+        Mockito.when(itemRepository.findPopularityPageAfter(0L, PageRequest.of(0, 100))).thenReturn(List.of(items));
+        ItemSuggestions suggestions = new ItemSuggestions(itemRepository, 100);
+        suggestions.load();
+        return suggestions;
+    }
+
+    private static BookingChangedEvent created(Long itemId) {
+        return new BookingChangedEvent(1L, itemId, 10L, 20L, LocalDateTime.now(), LocalDateTime.now().plusDays(1),
+                null, null, null, BookingStatus.WAITING);
+    }
+
+    private static List<Long> ids(List<ItemSuggestionDto> suggestions) {
+        return suggestions.stream().map(ItemSuggestionDto::getId).toList();
+    }
+
+    private static Item item(Long id, String name, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setAvailable(available);
+        return item;
+    }
+}
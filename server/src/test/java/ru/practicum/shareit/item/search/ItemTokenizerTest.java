@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemTokenizerTest {
+    @Test
+    public void testTokenize_FormsOfWordShareStem() {
+        assertThat(ItemTokenizer.tokenize("Дрель, дрели; ДРЕЛЬЮ!")).containsExactly("дрел", "дрел", "дрел");
+        assertThat(ItemTokenizer.tokenize("аккумуляторная аккумуляторный")).containsOnly("аккумуляторн");
+        assertThat(ItemTokenizer.tokenize("drill drills drilling drilled")).containsOnly("drill");
+        assertThat(ItemTokenizer.tokenize("battery batteries")).containsOnly("batteri");
+        assertThat(ItemTokenizer.tokenize("cut cutting")).containsOnly("cut");
+    }
+
+    @Test
+    public void testTokenize_ShortWordsAndNumbersKept() {
+        assertThat(ItemTokenizer.tokenize("Ёж и 18V-дрель")).containsExactly("еж", "и", "18v", "дрел");
+        assertThat(ItemTokenizer.tokenize(null)).isEmpty();
+        assertThat(ItemTokenizer.tokenize(" ,.! ")).isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Время поиска слова с опечаткой в словаре из случайных слов. Запускается отдельно:
+ * {@code mvn test -Dtest=SpellingDictionaryBenchmarkTest -Dshareit.benchmark=true
+ * [-Dshareit.benchmark.terms=1000000]}. Результаты пишутся в лог.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+class SpellingDictionaryBenchmarkTest {
+    private static final int TERMS = Integer.getInteger("shareit.benchmark.terms", 300_000);
+    private static final int LOOKUPS = 100_000;
+    private static final String LETTERS = "абвгдежзиклмнопрстуфхцчшэюя";
+
+    @Test
+    public void lookupWithTypos() {
+        Random random = new Random(42);
+        String[] words = new String[TERMS];
+        SpellingDictionary dictionary = new SpellingDictionary(ItemSearchIndex.MAX_EDIT_DISTANCE);
+        long buildStarted = System.nanoTime();
+        for (int i = 0; i < TERMS; i++) {
+            words[i] = word(random, 5 + random.nextInt(8));
+            dictionary.add(words[i]);
+        }
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - buildStarted);
+
+        // Запросы - слова словаря с одной опечаткой: заменён, удалён или переставлен символ
+        String[] queries = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            queries[i] = typo(random, words[random.nextInt(TERMS)]);
+        }
+        int found = 0;
+        long started = System.nanoTime();
+        for (String query : queries) {
+            if (!dictionary.lookup(query).isEmpty()) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+
+        log.info("{} terms built in {} ms; {} lookups, {} corrected, {} us per lookup", dictionary.size(),
+                buildMillis, LOOKUPS, found, TimeUnit.NANOSECONDS.toMicros(elapsed) / (double) LOOKUPS);
+        assertThat(found).isGreaterThan(LOOKUPS * 9 / 10);
+    }
+
+    private static String word(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+
+    private static String typo(Random random, String word) {
+        int i = random.nextInt(word.length() - 1);
+        return switch (random.nextInt(3)) {
+            case 0 -> word.substring(0, i) + LETTERS.charAt(random.nextInt(LETTERS.length())) + word.substring(i + 1);
+            case 1 -> word.substring(0, i) + word.substring(i + 1);
+            default -> word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2);
+        };
+    }
+}
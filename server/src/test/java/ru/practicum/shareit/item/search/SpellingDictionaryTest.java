@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpellingDictionaryTest {
+    @Test
+    public void testDistance_CountsTranspositionAsOneEdit() {
+        assertThat(SpellingDictionary.distance("drill", "drill", 2)).isZero();
+        assertThat(SpellingDictionary.distance("drll", "drill", 2)).isEqualTo(1);
+        assertThat(SpellingDictionary.distance("dirll", "drill", 2)).isEqualTo(1);
+        assertThat(SpellingDictionary.distance("перфратор", "перфоратор", 2)).isEqualTo(1);
+        assertThat(SpellingDictionary.distance("шуроповерт", "шуруповерт", 2)).isEqualTo(1);
+        // Больше max не считается
+        assertThat(SpellingDictionary.distance("hammer", "drill", 2)).isEqualTo(3);
+    }
+
+    @Test
+    public void testLookup_ClosestWordsWithinAllowedDistance() {
+        SpellingDictionary dictionary = new SpellingDictionary(2);
+        for (String word : new String[]{"drill", "dril", "saw", "перфоратор", "перфорац", "аккумуляторн"}) {
+            dictionary.add(word);
+        }
+        dictionary.add("drill");
+
+        assertThat(dictionary.size()).isEqualTo(6);
+        assertThat(dictionary.lookup("drll")).containsExactlyInAnyOrder("dril", "drill");
+        assertThat(dictionary.lookup("drilll")).containsExactly("drill");
+        assertThat(dictionary.lookup("прфоратр")).containsExactly("перфоратор");
+        // Опечатка после первых PREFIX_LENGTH символов тоже находится
+        assertThat(dictionary.lookup("акумуляторм")).containsExactly("аккумуляторн");
+        // В коротком слове опечатки не исправляются, в слове до пяти символов - только одна
+        assertThat(dictionary.lookup("sa")).isEmpty();
+        assertThat(dictionary.lookup("sww")).containsExactly("saw");
+        assertThat(dictionary.lookup("dr")).isEmpty();
+        assertThat(dictionary.lookup("hammer")).isEmpty();
+        assertThat(dictionary.lookup("drill")).containsExactly("dril");
+    }
+}